@@ -0,0 +1,27 @@
+package benchmarks;
+
+import chess.ChessGame;
+
+/**
+ * Positions shared by the benchmarks, picked so every piece type has moves to
+ * generate: the opening, a crowded middlegame and a sparse endgame.
+ */
+final class BenchmarkPositions {
+
+    static final String START = "start";
+    static final String MIDDLEGAME = "middlegame";
+    static final String ENDGAME = "endgame";
+
+    private BenchmarkPositions() {
+
+    }
+
+    static ChessGame game(String name) {
+        return switch (name) {
+            case START -> new ChessGame();
+            case MIDDLEGAME -> ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w");
+            case ENDGAME -> ChessGame.fromFen("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w");
+            default -> throw new IllegalArgumentException("Unknown position: " + name);
+        };
+    }
+}
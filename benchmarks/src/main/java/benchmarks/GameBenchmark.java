@@ -0,0 +1,159 @@
+package benchmarks;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import chess.Move;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link ChessGame} calls the server makes for every MAKE_MOVE: legal move
+ * generation, the check/checkmate/stalemate tests and playing the move itself,
+ * plus the static evaluation shown alongside the board.
+ * <p>
+ * A game keeps the status of its current position, so asking twice about one
+ * position only measures a lookup. Each status benchmark first steps the board
+ * between the named position and the one a move and a reply later, so every
+ * call works on a position the game has just left. Making or taking back those
+ * two moves on the board is a small part of the time measured.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameBenchmark {
+
+    @Param({BenchmarkPositions.START, BenchmarkPositions.MIDDLEGAME, BenchmarkPositions.ENDGAME})
+    public String position;
+
+    private ChessGame game;
+    private ChessGame.TeamColor turn;
+    private ChessMove move;
+    private int[] stepMoves;
+    private boolean stepped;
+
+    /**
+     * Squares of the pieces of the team to move, before and after the step
+     */
+    private ChessPosition[] ownSquares;
+    private ChessPosition[] steppedSquares;
+
+    @Setup
+    public void setUp() throws InvalidMoveException {
+        game = BenchmarkPositions.game(position);
+        turn = game.getTeamTurn();
+        ownSquares = squaresOf(game.getBoard(), turn);
+        move = firstValidMove(game);
+        ChessGame replied = game.copy();
+        replied.makeMove(move);
+        stepMoves = new int[]{Move.of(move), Move.of(firstValidMove(replied))};
+        step();
+        steppedSquares = squaresOf(game.getBoard(), turn);
+        step();
+    }
+
+    /**
+     * Moves the board to the other of its two positions, with the same team to move in both
+     */
+    private void step() {
+        ChessBoard board = game.getBoard();
+        stepped = !stepped;
+        if (stepped) {
+            board.makeMove(stepMoves[0]);
+            board.makeMove(stepMoves[1]);
+        } else {
+            board.unmakeMove();
+            board.unmakeMove();
+        }
+    }
+
+    /**
+     * Valid moves of every piece of the team to move, as a client asks for when highlighting
+     */
+    @Benchmark
+    public void validMoves(Blackhole blackhole) {
+        step();
+        for (ChessPosition square : stepped ? steppedSquares : ownSquares) {
+            blackhole.consume(game.validMoves(square));
+        }
+    }
+
+    @Benchmark
+    public boolean isInCheck() {
+        step();
+        return game.isInCheck(turn);
+    }
+
+    @Benchmark
+    public boolean isInCheckmate() {
+        step();
+        return game.isInCheckmate(turn);
+    }
+
+    @Benchmark
+    public boolean isInStalemate() {
+        step();
+        return game.isInStalemate(turn);
+    }
+
+    @Benchmark
+    public int evaluation() {
+        return game.getEvaluation();
+    }
+
+    /**
+     * Validates and plays a move on a game read in just before, as the server
+     * does, so nothing about the position is known yet
+     */
+    @Benchmark
+    public void makeMove(FreshGame fresh) throws InvalidMoveException {
+        fresh.game.makeMove(move);
+    }
+
+    /**
+     * A new game in the benchmark's position for every invocation. Setting it
+     * up isn't measured.
+     */
+    @State(Scope.Thread)
+    public static class FreshGame {
+        ChessGame game;
+
+        @Setup(Level.Invocation)
+        public void setUp(GameBenchmark benchmark) {
+            game = BenchmarkPositions.game(benchmark.position);
+        }
+    }
+
+    private static ChessPosition[] squaresOf(ChessBoard board, ChessGame.TeamColor team) {
+        List<ChessPosition> squares = new ArrayList<>();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition square = new ChessPosition(row, col);
+                ChessPiece piece = board.getPiece(square);
+                if (piece != null && piece.getTeamColor() == team) {
+                    squares.add(square);
+                }
+            }
+        }
+        return squares.toArray(new ChessPosition[0]);
+    }
+
+    private static ChessMove firstValidMove(ChessGame game) {
+        for (ChessPosition square : squaresOf(game.getBoard(), game.getTeamTurn())) {
+            if (!game.validMoves(square).isEmpty()) {
+                return game.validMoves(square).iterator().next();
+            }
+        }
+        throw new IllegalStateException("No legal move in " + game.toFen());
+    }
+}
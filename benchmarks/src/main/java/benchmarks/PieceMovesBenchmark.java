@@ -0,0 +1,62 @@
+package benchmarks;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pseudo-legal move generation through {@link ChessPiece#pieceMoves}, one run
+ * per piece type. Each invocation generates the moves of every piece of that
+ * type on the board, for both teams.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PieceMovesBenchmark {
+
+    @Param({"KING", "QUEEN", "BISHOP", "KNIGHT", "ROOK", "PAWN"})
+    public ChessPiece.PieceType pieceType;
+
+    @Param({BenchmarkPositions.START, BenchmarkPositions.MIDDLEGAME})
+    public String position;
+
+    private ChessBoard board;
+    private ChessPiece[] pieces;
+    private ChessPosition[] squares;
+
+    @Setup
+    public void setUp() {
+        board = BenchmarkPositions.game(position).getBoard();
+        List<ChessPiece> foundPieces = new ArrayList<>();
+        List<ChessPosition> foundSquares = new ArrayList<>();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition square = new ChessPosition(row, col);
+                ChessPiece piece = board.getPiece(square);
+                if (piece != null && piece.getPieceType() == pieceType) {
+                    foundPieces.add(piece);
+                    foundSquares.add(square);
+                }
+            }
+        }
+        pieces = foundPieces.toArray(new ChessPiece[0]);
+        squares = foundSquares.toArray(new ChessPosition[0]);
+    }
+
+    @Benchmark
+    public void pieceMoves(Blackhole blackhole) {
+        for (int i = 0; i < pieces.length; i++) {
+            blackhole.consume(pieces[i].pieceMoves(board, squares[i]));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package benchmarks;
+
+import chess.ChessGame;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gson round trips of {@link ChessGame}, which happen on every database save and
+ * load and on every LOAD_GAME message, next to the much smaller FEN form.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+
+    @Param({BenchmarkPositions.START, BenchmarkPositions.ENDGAME})
+    public String position;
+
+    private final Gson gson = new Gson();
+    private ChessGame game;
+    private String json;
+    private String fen;
+
+    @Setup
+    public void setUp() {
+        game = BenchmarkPositions.game(position);
+        json = gson.toJson(game);
+        fen = game.toFen();
+    }
+
+    @Benchmark
+    public String toJson() {
+        return gson.toJson(game);
+    }
+
+    @Benchmark
+    public ChessGame fromJson() {
+        return gson.fromJson(json, ChessGame.class);
+    }
+
+    @Benchmark
+    public String toFen() {
+        return game.toFen();
+    }
+
+    @Benchmark
+    public ChessGame fromFen() {
+        return ChessGame.fromFen(fen);
+    }
+}
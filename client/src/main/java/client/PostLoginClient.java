@@ -2,7 +2,7 @@ package client;
 
 import chess.ChessGame;
 import responsesandexceptions.ResponseException;
-import model.GameData;
+import model.GameSummary;
 import ui.BoardPrinter;
 
 import java.util.ArrayList;
@@ -14,7 +14,7 @@ public class PostLoginClient implements UIClient {
     private final ServerFacade server;
     private final ChessClient mainClient;
     private final String authToken;
-    private List<GameData> lastListedGames = new ArrayList<>();
+    private List<GameSummary> lastListedGames = new ArrayList<>();
 
     private Integer currentGameId = null;
     private ChessGame.TeamColor currentColor = null;
@@ -8,6 +8,7 @@ import responsesandexceptions.GameResponse;
 import responsesandexceptions.ResponseException;
 import model.UserData;
 import model.GameData;
+import model.GameSummary;
 import responsesandexceptions.UserResponse;
 
 
@@ -155,7 +156,7 @@ public class ServerFacade {
     }
 
 
-    public List<GameData> listGames(String authToken) throws ResponseException {
+    public List<GameSummary> listGames(String authToken) throws ResponseException {
         var headers = Map.of("Authorization", authToken);
         GameListResponse response = this.makeRequest("GET", "/game", null, headers, GameListResponse.class);
         return response.getGames();
@@ -216,15 +217,9 @@ public class ServerFacade {
 
 
     public ChessGame getGame(String gameID, String authToken) throws ResponseException {
-        System.out.println("in getGame ServerFacade");
-
-        List<GameData> games = listGames(authToken);
-        for (GameData game : games) {
-            if (String.valueOf(game.gameID()).equals(gameID)) {
-                return game.game();
-            }
-        }
-        throw new ResponseException(404, "Game not found");
+        // The list only carries summaries, so the position comes from the game itself
+        var headers = Map.of("Authorization", authToken);
+        return makeRequest("GET", "/game/" + gameID, null, headers, GameData.class).game();
     }
 
 
@@ -10,8 +10,6 @@ public class Main {
         System.out.println("♕ 240 Chess Server: " + piece);
 
         try {
-            System.out.println("in try");
-
             int port = 8080;
             if (args.length >= 1) {
                 port = Integer.parseInt(args[0]);
@@ -0,0 +1,153 @@
+package dataaccess;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Remembers which user an auth token belongs to, so checking the token on
+ * every request or move doesn't need a database query.
+ * <p>
+ * Entries expire a fixed time after they were cached, which bounds how long a
+ * token deleted behind the cache's back (by another server, say) keeps
+ * working. When more than the maximum are cached the expired ones go first,
+ * then the ones closest to expiring, until only three quarters are left, so
+ * eviction runs once in a while rather than on every put.
+ * <p>
+ * A lookup that misses reads the token from the database and caches what it
+ * found. To keep that from bringing back a token logged out while the read
+ * was running, callers take {@link #version()} before the read and hand it to
+ * {@link #put}, which drops the entry if anything was invalidated since.
+ */
+public class AuthTokenCache {
+
+    /**
+     * @param size      tokens cached now
+     * @param hits      lookups answered from the cache
+     * @param misses    lookups that had to go to the database
+     * @param evictions entries dropped to stay under the maximum or because they expired
+     */
+    public record Stats(int size, long hits, long misses, long evictions) {
+
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+
+    private record Entry(String username, long expiresAt) {
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final int maxSize;
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final ReentrantLock evicting = new ReentrantLock();
+
+    public AuthTokenCache(Duration ttl, int maxSize) {
+        if (ttl.isNegative() || ttl.isZero() || maxSize < 1) {
+            throw new IllegalArgumentException("Need a positive time to live and maxSize >= 1");
+        }
+        this.ttlNanos = ttl.toNanos();
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return the user the token belongs to, or null if it isn't cached
+     */
+    public String get(String token) {
+        Entry entry = token == null ? null : entries.get(token);
+        if (entry != null && System.nanoTime() - entry.expiresAt() >= 0) {
+            if (entries.remove(token, entry)) {
+                evictions.incrementAndGet();
+            }
+            entry = null;
+        }
+        (entry != null ? hits : misses).incrementAndGet();
+        return entry != null ? entry.username() : null;
+    }
+
+    /**
+     * @return a number that changes whenever a token is invalidated
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * Caches a token unless a token has been invalidated since {@code version} was read
+     *
+     * @return whether the token was cached
+     */
+    public boolean put(String token, String username, long version) {
+        if (token == null || username == null) {
+            return false;
+        }
+        entries.put(token, new Entry(username, System.nanoTime() + ttlNanos));
+        if (this.version.get() != version) {
+            // An invalidation raced with the read that found this token
+            entries.remove(token);
+            return false;
+        }
+        if (entries.size() > maxSize) {
+            evict();
+        }
+        return true;
+    }
+
+    public void invalidate(String token) {
+        version.incrementAndGet();
+        if (token != null) {
+            entries.remove(token);
+        }
+    }
+
+    public void clear() {
+        version.incrementAndGet();
+        entries.clear();
+    }
+
+    private void evict() {
+        if (!evicting.tryLock()) {
+            // Someone else is already making room
+            return;
+        }
+        try {
+            long now = System.nanoTime();
+            int target = Math.max(1, maxSize * 3 / 4);
+            List<Map.Entry<String, Entry>> live = new ArrayList<>(entries.size());
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                if (now - entry.getValue().expiresAt() >= 0) {
+                    remove(entry.getKey(), entry.getValue());
+                } else {
+                    live.add(entry);
+                }
+            }
+            if (live.size() > target) {
+                live.sort((a, b) -> Long.signum(a.getValue().expiresAt() - b.getValue().expiresAt()));
+                for (int i = 0; i < live.size() - target; i++) {
+                    remove(live.get(i).getKey(), live.get(i).getValue());
+                }
+            }
+        } finally {
+            evicting.unlock();
+        }
+    }
+
+    private void remove(String token, Entry entry) {
+        if (entries.remove(token, entry)) {
+            evictions.incrementAndGet();
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(entries.size(), hits.get(), misses.get(), evictions.get());
+    }
+}
@@ -0,0 +1,250 @@
+package dataaccess;
+
+import chess.ChessGame;
+import model.GameData;
+import model.GameSummary;
+import model.UserData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import responsesandexceptions.DataAccessException;
+import responsesandexceptions.ResponseException;
+import responsesandexceptions.UserResponse;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Puts an {@link AuthTokenCache} in front of any other DataAccess, so token
+ * checks are answered from memory, and optionally a {@link LiveGameCache}, so
+ * games being played are read and saved in memory. Everything else is passed
+ * through.
+ * <p>
+ * Tokens handed out by register and login are cached straight away, and
+ * logout and clear invalidate them before the wrapped DataAccess sees the
+ * call. Services that should see each other's logouts and moves must share
+ * the same caches.
+ */
+public class CachingDataAccess implements DataAccess {
+    private static final Logger LOG = LoggerFactory.getLogger(CachingDataAccess.class);
+
+    private final DataAccess delegate;
+    private final AuthTokenCache authTokens;
+    private final LiveGameCache liveGames;
+
+    public CachingDataAccess(DataAccess delegate, AuthTokenCache authTokens) {
+        this(delegate, authTokens, null);
+    }
+
+    /**
+     * @param liveGames games to read and save in memory, or null to pass games straight through
+     */
+    public CachingDataAccess(DataAccess delegate, AuthTokenCache authTokens, LiveGameCache liveGames) {
+        this.delegate = delegate;
+        this.authTokens = authTokens;
+        this.liveGames = liveGames;
+    }
+
+    public AuthTokenCache getAuthTokens() {
+        return authTokens;
+    }
+
+    @Override
+    public UserResponse addUser(UserData user) throws ResponseException, DataAccessException {
+        long version = authTokens.version();
+        return remember(delegate.addUser(user), version);
+    }
+
+    @Override
+    public UserData getUser(String username) throws ResponseException, DataAccessException {
+        return delegate.getUser(username);
+    }
+
+    @Override
+    public UserResponse login(String username, String password) throws ResponseException, DataAccessException {
+        long version = authTokens.version();
+        return remember(delegate.login(username, password), version);
+    }
+
+    private UserResponse remember(UserResponse response, long version) {
+        if (response != null) {
+            authTokens.put(response.getAuthToken(), response.getUsername(), version);
+        }
+        return response;
+    }
+
+    @Override
+    public void logout(String authToken) throws Exception {
+        authTokens.invalidate(authToken);
+        delegate.logout(authToken);
+    }
+
+    /**
+     * The token is checked here, so the wrapped DataAccess doesn't check it again
+     */
+    @Override
+    public String createGame(String gameName, String authToken) throws ResponseException, DataAccessException {
+        checkAuthToken(authToken);
+        return delegate.createGame(gameName);
+    }
+
+    @Override
+    public String createGame(String gameName) throws ResponseException, DataAccessException {
+        return delegate.createGame(gameName);
+    }
+
+    /**
+     * A token the wrapped DataAccess confirms is cached with its user, so
+     * only its first check goes there
+     */
+    @Override
+    public boolean validateAuthToken(String authToken) throws ResponseException {
+        if (authTokens.get(authToken) != null) {
+            return true;
+        }
+        long version = authTokens.version();
+        if (!delegate.validateAuthToken(authToken)) {
+            return false;
+        }
+        try {
+            authTokens.put(authToken, delegate.getUsernameFromAuth(authToken), version);
+        } catch (SQLException | DataAccessException e) {
+            // Still valid; it just isn't cached this time
+        }
+        return true;
+    }
+
+    private void checkAuthToken(String authToken) throws ResponseException {
+        if (!validateAuthToken(authToken)) {
+            throw new ResponseException(401, "Invalid auth token");
+        }
+    }
+
+    @Override
+    public Collection<GameData> listGames(String authToken) throws ResponseException {
+        checkAuthToken(authToken);
+        return listGames();
+    }
+
+    /**
+     * Games held in memory are listed as they are there, since the store may
+     * not have their latest moves yet
+     */
+    @Override
+    public Collection<GameData> listGames() throws ResponseException {
+        Collection<GameData> games = delegate.listGames();
+        if (liveGames == null) {
+            return games;
+        }
+        List<GameData> listed = new ArrayList<>(games.size());
+        for (GameData game : games) {
+            ChessGame live = liveGames.peek(game.gameID());
+            listed.add(live == null ? game
+                    : new GameData(game.gameID(), game.whiteUsername(), game.blackUsername(), game.gameName(), live));
+        }
+        return listed;
+    }
+
+    @Override
+    public Collection<GameSummary> listGameSummaries(String authToken) throws ResponseException {
+        checkAuthToken(authToken);
+        return listGameSummaries();
+    }
+
+    /**
+     * Games saved in memory but not yet written are summarised from memory
+     */
+    @Override
+    public Collection<GameSummary> listGameSummaries() throws ResponseException {
+        Collection<GameSummary> summaries = delegate.listGameSummaries();
+        Map<Integer, ChessGame> unwritten = liveGames != null ? liveGames.unwritten() : Map.of();
+        if (unwritten.isEmpty()) {
+            return summaries;
+        }
+        List<GameSummary> listed = new ArrayList<>(summaries.size());
+        for (GameSummary summary : summaries) {
+            ChessGame live = unwritten.get(summary.gameID());
+            listed.add(live == null ? summary : GameSummary.of(new GameData(summary.gameID(),
+                    summary.whiteUsername(), summary.blackUsername(), summary.gameName(), live)));
+        }
+        return listed;
+    }
+
+    /**
+     * A game held in memory is summarised from there, since the store may not
+     * have its latest moves yet
+     */
+    @Override
+    public GameSummary getGameSummary(int gameID) throws ResponseException {
+        GameSummary summary = delegate.getGameSummary(gameID);
+        ChessGame live = summary != null && liveGames != null ? liveGames.peek(gameID) : null;
+        if (live == null) {
+            return summary;
+        }
+        return GameSummary.of(new GameData(summary.gameID(), summary.whiteUsername(), summary.blackUsername(),
+                summary.gameName(), live));
+    }
+
+    /**
+     * Games saved in memory are written first, so the store has every move to
+     * hand over. One that can't be written is exported as the store has it.
+     */
+    @Override
+    public void forEachGame(GameVisitor visitor) throws ResponseException, IOException {
+        if (liveGames != null) {
+            try {
+                liveGames.flush();
+            } catch (DataAccessException e) {
+                LOG.warn("Exporting games without all of their latest moves: {}", e.getMessage());
+            }
+        }
+        delegate.forEachGame(visitor);
+    }
+
+    @Override
+    public void clear() throws ResponseException {
+        authTokens.clear();
+        if (liveGames != null) {
+            liveGames.clear();
+        }
+        delegate.clear();
+    }
+
+    @Override
+    public boolean joinGame(String authToken, String gameID, String playerColor) throws ResponseException {
+        return delegate.joinGame(authToken, gameID, playerColor);
+    }
+
+    @Override
+    public ChessGame getGame(Integer gameID) throws DataAccessException {
+        return liveGames != null ? liveGames.get(gameID) : delegate.getGame(gameID);
+    }
+
+    @Override
+    public String getUsernameFromAuth(String token) throws SQLException, DataAccessException {
+        String username = authTokens.get(token);
+        if (username == null) {
+            long version = authTokens.version();
+            username = delegate.getUsernameFromAuth(token);
+            authTokens.put(token, username, version);
+        }
+        return username;
+    }
+
+    @Override
+    public void saveGame(Integer gameId, ChessGame chessGame) throws DataAccessException {
+        if (liveGames != null) {
+            liveGames.save(gameId, chessGame);
+        } else {
+            delegate.saveGame(gameId, chessGame);
+        }
+    }
+
+    @Override
+    public void clearPlayerSlot(int gameId, String white) throws DataAccessException {
+        delegate.clearPlayerSlot(gameId, white);
+    }
+}
@@ -0,0 +1,330 @@
+package dataaccess;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded pool of JDBC connections, so a DAO call borrows an open
+ * connection instead of paying for a new TCP connection and login each time.
+ * <p>
+ * A semaphore with one permit per connection caps how many are out at once;
+ * a borrower waits up to {@link Settings#maxWaitMillis} for one. Idle
+ * connections are kept most recently used first, so the ones left at the back
+ * go quiet and are closed once they have been idle longer than
+ * {@link Settings#idleTimeoutMillis}, down to {@link Settings#minIdle}. A
+ * connection that sat idle for a while is checked with
+ * {@link Connection#isValid} before it is handed out. Connections held longer
+ * than {@link Settings#leakThresholdMillis} are logged once with the stack
+ * that borrowed them; capturing that stack costs every borrow, so leak
+ * detection is meant for tracking a leak down rather than for normal running.
+ * <p>
+ * Borrowed connections are proxies whose {@link Connection#close()} hands the
+ * connection back instead of closing it, so DAO code keeps using
+ * try-with-resources as before.
+ */
+public class ConnectionPool implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(ConnectionPool.class);
+
+    /**
+     * Connections idle for less than this are handed out without a validity check
+     */
+    private static final long VALIDATE_AFTER_IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final long HOUSEKEEPING_MILLIS = 5000;
+
+    /**
+     * Opens a new physical connection
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+
+    /**
+     * @param minIdle             idle connections never closed for being idle
+     * @param maxSize             most connections open at once
+     * @param idleTimeoutMillis   how long a connection above minIdle may sit idle before it is closed
+     * @param maxWaitMillis       how long a borrower waits for a free connection before giving up
+     * @param leakThresholdMillis how long a connection may be held before it is reported as leaked, 0 for never
+     */
+    public record Settings(int minIdle, int maxSize, long idleTimeoutMillis, long maxWaitMillis,
+                           long leakThresholdMillis) {
+
+        public Settings {
+            if (maxSize < 1 || minIdle < 0 || minIdle > maxSize) {
+                throw new IllegalArgumentException("Need 0 <= minIdle <= maxSize and maxSize >= 1");
+            }
+        }
+    }
+
+    /**
+     * @param open          connections currently open, idle or borrowed
+     * @param idle          connections waiting to be borrowed
+     * @param borrows       connections handed out since the pool started
+     * @param timeouts      borrowers that gave up waiting
+     * @param created       physical connections opened
+     * @param leaks         connections reported as held too long
+     * @param totalWaitNanos time borrowers spent waiting for a connection, summed
+     * @param maxWaitNanos  longest single wait
+     */
+    public record Stats(int open, int idle, long borrows, long timeouts, long created, long leaks,
+                        long totalWaitNanos, long maxWaitNanos) {
+
+        public double averageWaitMillis() {
+            return borrows == 0 ? 0 : totalWaitNanos / 1e6 / borrows;
+        }
+    }
+
+    private final ConnectionFactory factory;
+    private final Settings settings;
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<Pooled> idle = new ConcurrentLinkedDeque<>();
+    private final Map<Pooled, Boolean> borrowed = new ConcurrentHashMap<>();
+    private final AtomicInteger open = new AtomicInteger();
+    private final AtomicLong borrows = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong leaks = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    public ConnectionPool(ConnectionFactory factory, Settings settings) {
+        this.factory = factory;
+        this.settings = settings;
+        this.permits = new Semaphore(settings.maxSize(), true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep, HOUSEKEEPING_MILLIS, HOUSEKEEPING_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection, opening one if none is idle. Close it to give it back.
+     *
+     * @throws SQLException if no connection frees up in time or a new one can't be opened
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(settings.maxWaitMillis(), TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                throw new SQLException("Timed out after " + settings.maxWaitMillis()
+                        + "ms waiting for a database connection (" + settings.maxSize() + " in use)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for a database connection", e);
+        }
+        long waited = System.nanoTime() - start;
+        totalWaitNanos.addAndGet(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+
+        try {
+            Pooled pooled = takeIdle();
+            if (pooled == null) {
+                pooled = new Pooled(factory.open());
+                open.incrementAndGet();
+                created.incrementAndGet();
+            }
+            pooled.borrowedAt = System.nanoTime();
+            pooled.borrowedBy = settings.leakThresholdMillis() > 0 ? new Throwable("Borrowed here") : null;
+            pooled.reported = false;
+            borrowed.put(pooled, Boolean.TRUE);
+            borrows.incrementAndGet();
+            return handle(pooled);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * @return a connection for one borrower, which gives the pooled one back when closed
+     */
+    private Connection handle(Pooled pooled) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new Handle(pooled));
+    }
+
+    /**
+     * @return an idle connection that still works, or null if there is none
+     */
+    private Pooled takeIdle() {
+        for (Pooled pooled = idle.pollFirst(); pooled != null; pooled = idle.pollFirst()) {
+            if (System.nanoTime() - pooled.idleSince < VALIDATE_AFTER_IDLE_NANOS || isValid(pooled)) {
+                return pooled;
+            }
+            discard(pooled);
+        }
+        return null;
+    }
+
+    private static boolean isValid(Pooled pooled) {
+        try {
+            return pooled.connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void giveBack(Pooled pooled) {
+        borrowed.remove(pooled);
+        try {
+            if (closed || pooled.connection.isClosed()) {
+                discard(pooled);
+                return;
+            }
+            if (!pooled.connection.getAutoCommit()) {
+                // Don't let an unfinished transaction leak into the next borrower
+                pooled.connection.rollback();
+                pooled.connection.setAutoCommit(true);
+            }
+            pooled.idleSince = System.nanoTime();
+            idle.offerFirst(pooled);
+            if (closed && idle.remove(pooled)) {
+                // The pool closed while this one was on its way back
+                discard(pooled);
+            }
+        } catch (SQLException e) {
+            discard(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void discard(Pooled pooled) {
+        open.decrementAndGet();
+        try {
+            pooled.connection.close();
+        } catch (SQLException e) {
+            LOG.debug("Error closing pooled connection", e);
+        }
+    }
+
+    /**
+     * Closes connections idle too long, keeping minIdle of them, and reports
+     * connections held too long
+     */
+    void housekeep() {
+        if (closed) {
+            return;
+        }
+        long now = System.nanoTime();
+        long idleTimeout = TimeUnit.MILLISECONDS.toNanos(settings.idleTimeoutMillis());
+        // The oldest idle connections are at the back
+        Iterator<Pooled> oldestFirst = idle.descendingIterator();
+        while (oldestFirst.hasNext() && idle.size() > settings.minIdle()) {
+            Pooled pooled = oldestFirst.next();
+            if (now - pooled.idleSince > idleTimeout && idle.removeFirstOccurrence(pooled)) {
+                discard(pooled);
+            }
+        }
+
+        long leakThreshold = TimeUnit.MILLISECONDS.toNanos(settings.leakThresholdMillis());
+        if (leakThreshold > 0) {
+            for (Pooled pooled : borrowed.keySet()) {
+                if (!pooled.reported && now - pooled.borrowedAt > leakThreshold) {
+                    pooled.reported = true;
+                    leaks.incrementAndGet();
+                    LOG.warn("Database connection held for over {}ms, possibly leaked",
+                            settings.leakThresholdMillis(), pooled.borrowedBy);
+                }
+            }
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(open.get(), idle.size(), borrows.get(), timeouts.get(), created.get(), leaks.get(),
+                totalWaitNanos.get(), maxWaitNanos.get());
+    }
+
+    /**
+     * Closes every idle connection; borrowed ones are closed as they come back
+     */
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        for (Pooled pooled = idle.pollFirst(); pooled != null; pooled = idle.pollFirst()) {
+            discard(pooled);
+        }
+    }
+
+    /**
+     * A physical connection and its bookkeeping
+     */
+    private static final class Pooled {
+        final Connection connection;
+        volatile long idleSince;
+        volatile long borrowedAt;
+        volatile Throwable borrowedBy;
+        volatile boolean reported;
+
+        Pooled(Connection connection) {
+            this.connection = connection;
+        }
+    }
+
+    private final class Handle implements InvocationHandler {
+        private final Pooled pooled;
+        private final AtomicBoolean returned = new AtomicBoolean();
+
+        Handle(Pooled pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (returned.compareAndSet(false, true)) {
+                        giveBack(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned.get() || pooled.connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled " + pooled.connection;
+                default:
+                    if (returned.get()) {
+                        throw new SQLException("Connection has already been closed");
+                    }
+                    try {
+                        return method.invoke(pooled.connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
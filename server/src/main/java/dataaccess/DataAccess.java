@@ -5,8 +5,11 @@ import responsesandexceptions.ResponseException;
 import responsesandexceptions.UserResponse;
 import chess.ChessGame;
 import model.GameData;
+import model.GameHistory;
+import model.GameSummary;
 import model.UserData;
 
+import java.io.IOException;
 import java.sql.SQLException;
 import java.util.Collection;
 
@@ -21,10 +24,46 @@ public interface DataAccess {
 
     String createGame(String gameName, String authToken) throws ResponseException, DataAccessException;
 
+    /**
+     * Creates a game without checking a token, for callers that already have
+     */
+    String createGame(String gameName) throws ResponseException, DataAccessException;
+
     boolean validateAuthToken(String authToken) throws ResponseException;
 
     Collection<GameData> listGames(String authToken) throws ResponseException;
 
+    /**
+     * Lists every game without checking a token, for callers that already have
+     */
+    Collection<GameData> listGames() throws ResponseException;
+
+    /**
+     * @return every game without its position, for showing a list of games
+     */
+    Collection<GameSummary> listGameSummaries(String authToken) throws ResponseException;
+
+    /**
+     * Summarises every game without checking a token, for callers that already have
+     */
+    Collection<GameSummary> listGameSummaries() throws ResponseException;
+
+    /**
+     * @return the summary of one game, or null if there is no such game
+     */
+    GameSummary getGameSummary(int gameID) throws ResponseException;
+
+    /**
+     * Hands every game with its moves to the visitor in order of id, without
+     * holding them all in memory. Callers check the auth token first.
+     */
+    void forEachGame(GameVisitor visitor) throws ResponseException, IOException;
+
+    @FunctionalInterface
+    interface GameVisitor {
+        void visit(GameHistory game) throws IOException;
+    }
+
 
     void clear() throws ResponseException;
 
@@ -10,9 +10,18 @@ public class DatabaseManager {
     private static final String USER;
     private static final String PASSWORD;
     private static final String CONNECTION_URL;
+    private static final ConnectionPool.Settings POOL_SETTINGS;
+
+    /**
+     * Shared by every DAO call; created on first use so nothing connects until the database is needed
+     */
+    private static volatile ConnectionPool pool;
 
     /*
-     * Load the database information for the db.properties file.
+     * Load the database information for the db.properties file. The pool can be
+     * tuned there with db.pool.minIdle, db.pool.maxSize, db.pool.idleTimeoutMillis,
+     * db.pool.maxWaitMillis and db.pool.leakThresholdMillis. Leak detection is
+     * off unless a threshold is set, since it records a stack on every borrow.
      */
     static {
         try {
@@ -22,7 +31,6 @@ public class DatabaseManager {
                 }
                 Properties props = new Properties();
                 props.load(propStream);
-                System.out.println("in try DbManager");
 
                 DATABASE_NAME = props.getProperty("db.name");
                 USER = props.getProperty("db.user");
@@ -31,6 +39,13 @@ public class DatabaseManager {
                 var host = props.getProperty("db.host");
                 var port = Integer.parseInt(props.getProperty("db.port"));
                 CONNECTION_URL = String.format("jdbc:mysql://%s:%d", host, port);
+
+                POOL_SETTINGS = new ConnectionPool.Settings(
+                        Integer.parseInt(props.getProperty("db.pool.minIdle", "2")),
+                        Integer.parseInt(props.getProperty("db.pool.maxSize", "10")),
+                        Long.parseLong(props.getProperty("db.pool.idleTimeoutMillis", "600000")),
+                        Long.parseLong(props.getProperty("db.pool.maxWaitMillis", "5000")),
+                        Long.parseLong(props.getProperty("db.pool.leakThresholdMillis", "0")));
             }
         } catch (Exception ex) {
             throw new RuntimeException("unable to process db.properties. " + ex.getMessage());
@@ -47,8 +62,9 @@ public class DatabaseManager {
     static void tryStatementCreate(String databaseName, String connectionUrl, String user, String password) throws DataAccessException {
         try {
             var statement = "CREATE DATABASE IF NOT EXISTS " + databaseName;
-            var conn = DriverManager.getConnection(connectionUrl, user, password);
-            try (var preparedStatement = conn.prepareStatement(statement)) {
+            // Not pooled, since pooled connections are set to a catalog that may not exist yet
+            try (var conn = DriverManager.getConnection(connectionUrl, user, password);
+                 var preparedStatement = conn.prepareStatement(statement)) {
                 preparedStatement.executeUpdate();
             }
         } catch (SQLException e) {
@@ -57,9 +73,10 @@ public class DatabaseManager {
     }
 
     /**
-     * Create a connection to the database and sets the catalog based upon the
-     * properties specified in db.properties. Connections to the database should
-     * be short-lived, and you must close the connection when you are done with it.
+     * Borrow a connection to the database from the pool, with the catalog set
+     * based upon the properties specified in db.properties. Connections to the
+     * database should be short-lived, and you must close the connection when you
+     * are done with it, which returns it to the pool.
      * The easiest way to do that is with a try-with-resource block.
      * <br/>
      * <code>
@@ -70,11 +87,36 @@ public class DatabaseManager {
      */
     public static Connection getConnection() throws DataAccessException {
         try {
-            var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
-            conn.setCatalog(DATABASE_NAME);
-            return conn;
+            return pool().getConnection();
         } catch (SQLException e) {
             throw new DataAccessException(e.getMessage(), e);
         }
     }
+
+    /**
+     * @return how busy the connection pool is and how long borrowers have waited
+     */
+    public static ConnectionPool.Stats poolStats() {
+        return pool().stats();
+    }
+
+    private static ConnectionPool pool() {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (DatabaseManager.class) {
+                current = pool;
+                if (current == null) {
+                    current = new ConnectionPool(DatabaseManager::openConnection, POOL_SETTINGS);
+                    pool = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static Connection openConnection() throws SQLException {
+        var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
+        conn.setCatalog(DATABASE_NAME);
+        return conn;
+    }
 }
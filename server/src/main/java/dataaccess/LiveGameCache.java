@@ -0,0 +1,282 @@
+package dataaccess;
+
+import chess.ChessGame;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import responsesandexceptions.DataAccessException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the games being played in memory, so a move reads its game without a
+ * query and saves it without waiting for the database.
+ * <p>
+ * A save only marks the game dirty. A background thread writes dirty games to
+ * the store every {@code flushMillis}, so a game moved several times between
+ * writes is written once with its latest position, and a save reaches the
+ * database within about that long. A game that has ended is written straight
+ * away, and {@link #flush()} writes everything, for shutdown.
+ * <p>
+ * Games are copied on the way in and out, so callers never share one they
+ * might play a move on. When more than {@code maxGames} are held, the clean
+ * ones used least recently are dropped until three quarters are left; dirty
+ * games stay until they are written.
+ */
+public class LiveGameCache implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(LiveGameCache.class);
+
+    /**
+     * Writes of one game that may fail in a row before it is given up on, as when it was deleted
+     */
+    private static final int MAX_WRITE_ATTEMPTS = 5;
+
+    /**
+     * @param size      games held now
+     * @param dirty     games saved but not yet written
+     * @param hits      reads answered from memory
+     * @param misses    reads that went to the store
+     * @param saves     saves made
+     * @param writes    games written to the store; saves minus writes were coalesced
+     * @param failures  writes the store refused
+     */
+    public record Stats(int size, int dirty, long hits, long misses, long saves, long writes, long failures) {
+    }
+
+    private final DataAccess store;
+    private final int maxGames;
+    private final Map<Integer, Live> games = new ConcurrentHashMap<>();
+    private final Set<Integer> dirty = ConcurrentHashMap.newKeySet();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong saves = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final ReentrantLock evicting = new ReentrantLock();
+    private final ScheduledExecutorService flusher;
+
+    /**
+     * @param store       where games are read from and written to
+     * @param maxGames    most games held before clean ones are dropped
+     * @param flushMillis how long a saved game may wait before it is written
+     */
+    public LiveGameCache(DataAccess store, int maxGames, long flushMillis) {
+        if (maxGames < 1 || flushMillis < 1) {
+            throw new IllegalArgumentException("Need maxGames >= 1 and flushMillis >= 1");
+        }
+        this.store = store;
+        this.maxGames = maxGames;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "live-game-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return a copy of the game, read from the store if it isn't held
+     */
+    public ChessGame get(int gameID) throws DataAccessException {
+        Live live = games.get(gameID);
+        if (live != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            Live loaded = new Live(store.getGame(gameID));
+            Live existing = games.putIfAbsent(gameID, loaded);
+            // A save that landed while we read is newer than what we read
+            live = existing != null ? existing : loaded;
+            if (games.size() > maxGames) {
+                evict();
+            }
+        }
+        live.lastUsed = System.nanoTime();
+        return live.current.game().copy();
+    }
+
+    /**
+     * @return a copy of the game if it is held, without reading the store
+     */
+    public ChessGame peek(int gameID) {
+        Live live = games.get(gameID);
+        return live != null ? live.current.game().copy() : null;
+    }
+
+    /**
+     * @return copies of the games saved but not yet written, which the store is behind on
+     */
+    public Map<Integer, ChessGame> unwritten() {
+        Map<Integer, ChessGame> unwritten = new HashMap<>();
+        for (Integer gameID : dirty) {
+            ChessGame game = peek(gameID);
+            if (game != null) {
+                unwritten.put(gameID, game);
+            }
+        }
+        return unwritten;
+    }
+
+    /**
+     * Holds a copy of the game and writes it later, or now if the game is over
+     */
+    public void save(int gameID, ChessGame game) throws DataAccessException {
+        ChessGame copy = game.copy();
+        saves.incrementAndGet();
+        games.compute(gameID, (id, live) -> {
+            if (live == null) {
+                live = new Live(null);
+            }
+            live.current = new Snapshot(copy, live.current.version() + 1);
+            live.lastUsed = System.nanoTime();
+            return live;
+        });
+        if (game.getGameOver()) {
+            write(gameID);
+        } else {
+            dirty.add(gameID);
+        }
+    }
+
+    /**
+     * Writes every dirty game to the store
+     *
+     * @throws DataAccessException for the last game that couldn't be written; the rest are still written
+     */
+    public void flush() throws DataAccessException {
+        DataAccessException failed = null;
+        for (Integer gameID : dirty) {
+            try {
+                write(gameID);
+            } catch (DataAccessException e) {
+                failed = e;
+            }
+        }
+        if (failed != null) {
+            throw failed;
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (DataAccessException | RuntimeException e) {
+            LOG.warn("Unable to write back saved games, will retry", e);
+        }
+    }
+
+    private void write(int gameID) throws DataAccessException {
+        dirty.remove(gameID);
+        Live live = games.get(gameID);
+        if (live == null) {
+            return;
+        }
+        // One write per game at a time, so an older position can't land after a newer one
+        synchronized (live) {
+            Snapshot snapshot = live.current;
+            if (snapshot.version() == live.writtenVersion) {
+                return;
+            }
+            try {
+                store.saveGame(gameID, snapshot.game());
+                live.writtenVersion = snapshot.version();
+                live.failedWrites = 0;
+                writes.incrementAndGet();
+            } catch (DataAccessException | RuntimeException e) {
+                failures.incrementAndGet();
+                if (++live.failedWrites >= MAX_WRITE_ATTEMPTS) {
+                    LOG.error("Giving up on writing game {} after {} attempts", gameID, MAX_WRITE_ATTEMPTS);
+                    games.remove(gameID, live);
+                } else if (games.get(gameID) == live) {
+                    dirty.add(gameID);
+                }
+                throw e instanceof DataAccessException dataAccessException ? dataAccessException
+                        : new DataAccessException("Unable to save game " + gameID + ": " + e.getMessage(), null);
+            }
+        }
+    }
+
+    /**
+     * Forgets every game without writing the unsaved ones, for when the store is being wiped
+     */
+    public void clear() {
+        dirty.clear();
+        games.clear();
+    }
+
+    private void evict() {
+        if (!evicting.tryLock()) {
+            return;
+        }
+        try {
+            int target = Math.max(1, maxGames * 3 / 4);
+            // Take the times first; they keep changing while we sort
+            List<long[]> held = new ArrayList<>(games.size());
+            for (Map.Entry<Integer, Live> entry : games.entrySet()) {
+                held.add(new long[]{entry.getKey(), entry.getValue().lastUsed});
+            }
+            held.sort((a, b) -> Long.signum(a[1] - b[1]));
+            for (int i = 0; i < held.size() && games.size() > target; i++) {
+                // Only drop it if no save made it dirty in the meantime
+                games.computeIfPresent((int) held.get(i)[0], (id, live) -> live.isClean() ? null : live);
+            }
+        } finally {
+            evicting.unlock();
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(games.size(), dirty.size(), hits.get(), misses.get(), saves.get(), writes.get(),
+                failures.get());
+    }
+
+    /**
+     * Stops the background writer and writes what is left
+     */
+    @Override
+    public void close() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+    }
+
+    /**
+     * A saved position and how many saves of the game came before it
+     */
+    private record Snapshot(ChessGame game, long version) {
+    }
+
+    /**
+     * A held game. Only the writer for the game touches writtenVersion and failedWrites.
+     */
+    private static final class Live {
+        volatile Snapshot current;
+        volatile long writtenVersion;
+        volatile long lastUsed;
+        int failedWrites;
+
+        /**
+         * @param game as read from the store, so nothing needs writing
+         */
+        Live(ChessGame game) {
+            this.current = new Snapshot(game, 0);
+        }
+
+        boolean isClean() {
+            return current.version() == writtenVersion;
+        }
+    }
+}
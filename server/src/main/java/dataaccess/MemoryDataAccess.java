@@ -5,14 +5,21 @@ import responsesandexceptions.DataAccessException;
 import chess.ChessGame;
 import model.AuthData;
 import model.GameData;
+import model.GameHistory;
+import model.GameSummary;
 import model.UserData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.sql.SQLException;
 import java.util.Random;
 
 import java.util.*;
 
 public class MemoryDataAccess implements DataAccess {
+    private static final Logger LOG = LoggerFactory.getLogger(MemoryDataAccess.class);
+
     final private HashMap<String, UserData> users = new HashMap<>();
     final private HashMap<String, AuthData> authData = new HashMap<>();
     final private HashMap<String, GameData> gameData = new HashMap<>();
@@ -33,8 +40,6 @@ public class MemoryDataAccess implements DataAccess {
 
         // Create a response object
         UserResponse response = new UserResponse(user.username(), authToken);
-        // Print the current state of users
-        System.out.println(users);
         authTokens.put(authToken, user); // Link authToken to user
         AuthData newAuthData = new AuthData(authToken, user.username());
 
@@ -48,12 +53,10 @@ public class MemoryDataAccess implements DataAccess {
     }
 
     public UserData getUser(String username) throws IllegalStateException {
-        System.out.println("in memory");
         UserData user = users.get(username);
         if(user == null){
             throw new IllegalStateException("User not found");
         }
-        System.out.println(user);
         return user;
     }
 
@@ -61,17 +64,14 @@ public class MemoryDataAccess implements DataAccess {
         UserData user = users.get(username);
 
         if (user == null) {
-            System.out.println("User" + user);
             return null; // This will lead to a 401 Unauthorized response in the session method
         }
 
         // Check if the password matches
         if (!user.password().equals(password)) {
-            System.out.println("password does not match");
             return null; // This will lead to a 401
         }
         String authToken = AuthData.generateToken();
-        System.out.println("authToken in login" + authToken);
         AuthData newAuthData = new AuthData(authToken, username);
 
         authData.put(authToken, newAuthData);
@@ -85,11 +85,6 @@ public class MemoryDataAccess implements DataAccess {
     }
 
     public boolean isLoggedInByUser(UserData user) {
-        UserData authTokensUser = users.get(user.username());
-        System.out.println("user " + user);
-        System.out.println("users " + users);
-
-        System.out.println("authTokensUser " + authTokensUser);
         return authTokens.containsValue(user);
     }
 
@@ -97,7 +92,6 @@ public class MemoryDataAccess implements DataAccess {
 
 
     public void logout(String authToken) throws Exception {
-        System.out.println(authToken);
         if(authData.containsKey(authToken)){
             authData.remove(authToken);
             authTokens.remove(authToken);
@@ -107,29 +101,26 @@ public class MemoryDataAccess implements DataAccess {
         }
 
 
-        System.out.println(authData);
 
     }
 
     @Override
     public String createGame(String gameName, String authToken) {
-        System.out.println(authToken);
-        int randomFourDigit = 0;
-        if(validateAuthToken(authToken)){
-
-            ChessGame newGame = new ChessGame();
-
-            UserData user = authTokens.get(authToken);
-
-            randomFourDigit = 1000 + RANDOM.nextInt(9000);
-            GameData newGameData = new GameData(randomFourDigit, null, null, gameName, newGame);
-            gameData.put("" + randomFourDigit, newGameData);
-            allGames.add(newGameData);
-            System.out.println("valid auth token" + gameData);
-        } else{
+        if (!validateAuthToken(authToken)) {
             throw new IllegalStateException("Error: unauthorized");
         }
+        return createGame(gameName);
+    }
 
+    @Override
+    public String createGame(String gameName) {
+        ChessGame newGame = new ChessGame();
+
+        int randomFourDigit = 1000 + RANDOM.nextInt(9000);
+        GameData newGameData = new GameData(randomFourDigit, null, null, gameName, newGame);
+        gameData.put("" + randomFourDigit, newGameData);
+        allGames.add(newGameData);
+        LOG.debug("Created game {} ({})", randomFourDigit, gameName);
 
         return "" + randomFourDigit;
     }
@@ -139,6 +130,38 @@ public class MemoryDataAccess implements DataAccess {
     }
 
 
+    @Override
+    public Collection<GameSummary> listGameSummaries(String authToken) {
+        if (!validateAuthToken(authToken)) {
+            return null;
+        }
+        return listGameSummaries();
+    }
+
+    @Override
+    public Collection<GameSummary> listGameSummaries() {
+        List<GameSummary> summaries = new ArrayList<>();
+        for (GameData game : listGames()) {
+            summaries.add(GameSummary.of(game));
+        }
+        return summaries;
+    }
+
+    @Override
+    public GameSummary getGameSummary(int gameID) {
+        GameData game = gameData.get(String.valueOf(gameID));
+        return game == null ? null : GameSummary.of(game);
+    }
+
+    @Override
+    public void forEachGame(GameVisitor visitor) throws IOException {
+        List<GameData> games = new ArrayList<>(gameData.values());
+        games.sort(Comparator.comparingInt(GameData::gameID));
+        for (GameData game : games) {
+            visitor.visit(GameHistory.of(game));
+        }
+    }
+
     @Override
     public void clear(){
         users.clear();
@@ -146,12 +169,6 @@ public class MemoryDataAccess implements DataAccess {
         gameData.clear();
         authTokens.clear();
         allGames.clear();
-        System.out.println("----------------------clearing hopefully");
-        System.out.println(authTokens);
-        System.out.println(gameData);
-        System.out.println(authData);
-        System.out.println(users);
-
     }
 
     @Override
@@ -159,14 +176,12 @@ public class MemoryDataAccess implements DataAccess {
 
 
 
-        System.out.println("playerColor" + playerColor);
 
         if (!validateAuthToken(authToken)) {
             throw new IllegalArgumentException("unauthorized");
         }
 
 
-        System.out.println("game is " + gameData.get(gameID));
         int intGameId = Integer.parseInt(gameID);
         GameData game = gameData.get(gameID); // should this be gameID????
 
@@ -180,8 +195,6 @@ public class MemoryDataAccess implements DataAccess {
         }
 
         UserData user = authTokens.get(authToken);
-        System.out.println("user" + user);
-        // System.out.println("authTokens" + authTokens);
 
 
         if (user == null) {
@@ -196,7 +209,7 @@ public class MemoryDataAccess implements DataAccess {
         }
         gameData.put(gameID, updatedGame); // Update the game data
         allGames.add(updatedGame);
-        System.out.println("gameData   " + gameData);
+        LOG.debug("{} joined game {} as {}", user.username(), gameID, playerColor);
 
         return true; // Successful join
     }
@@ -208,6 +221,11 @@ public class MemoryDataAccess implements DataAccess {
         return null;
     }
 
+    @Override
+    public Collection<GameData> listGames() {
+        return gameData.values();
+    }
+
     @Override
     public ChessGame getGame(Integer gameID) throws DataAccessException {
         GameData game = gameData.get(String.valueOf(gameID));
@@ -224,7 +242,8 @@ public class MemoryDataAccess implements DataAccess {
 
     @Override
     public void saveGame(Integer gameId, ChessGame chessGame) {
-
+        gameData.computeIfPresent(String.valueOf(gameId), (id, game) ->
+                new GameData(game.gameID(), game.whiteUsername(), game.blackUsername(), game.gameName(), chessGame));
     }
 
     @Override
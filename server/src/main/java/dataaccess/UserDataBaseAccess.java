@@ -4,26 +4,93 @@ import responsesandexceptions.DataAccessException;
 import responsesandexceptions.ResponseException;
 import responsesandexceptions.UserResponse;
 import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+import chess.Move;
+import chess.book.OpeningNames;
 import com.google.gson.Gson;
 import model.AuthData;
 import model.GameData;
+import model.GameHistory;
+import model.GameSummary;
 import model.UserData;
 import org.mindrot.jbcrypt.BCrypt;
-import service.ChessService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Set;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static java.sql.Statement.RETURN_GENERATED_KEYS;
 
 
 public class UserDataBaseAccess implements DataAccess {
+    private static final Logger LOG = LoggerFactory.getLogger(UserDataBaseAccess.class);
+
+    /**
+     * Plies appended to a game's move log before its whole position is stored
+     * again, which bounds how many moves reading the game has to replay
+     */
+    private static final int SNAPSHOT_PLIES = 40;
+
+    /**
+     * Reads a game's snapshot with the stored moves played since it, in order
+     */
+    private static final String GAME_WITH_MOVES = """
+            SELECT g.gameID, g.whiteUsername, g.blackUsername, g.gameName, g.game, g.opening, m.ply, m.move
+            FROM GameData g LEFT JOIN GameMoves m ON m.gameID = g.gameID AND m.ply >= g.snapshotPly
+            """;
+
+    /**
+     * Reads what a game list shows without touching the stored positions. The
+     * ply after the last stored move, or the snapshot's, gives the team to move.
+     */
+    private static final String GAME_SUMMARIES = """
+            SELECT g.gameID, g.whiteUsername, g.blackUsername, g.gameName, g.gameOver, g.opening,
+              COALESCE((SELECT MAX(m.ply) + 1 FROM GameMoves m WHERE m.gameID = g.gameID AND m.ply >= g.snapshotPly),
+                g.snapshotPly) AS ply
+            FROM GameData g
+            """;
+
+    /**
+     * Games read per query when exporting, so an export holds a page of games at a time
+     */
+    private static final int EXPORT_PAGE = 50;
+
+    /**
+     * Reads a page of games after a given id with every move stored for them, in order
+     */
+    private static final String GAME_PAGE_WITH_ALL_MOVES = """
+            SELECT g.gameID, g.whiteUsername, g.blackUsername, g.gameName, g.game, m.ply, m.move
+            FROM GameData g LEFT JOIN GameMoves m ON m.gameID = g.gameID
+            WHERE g.gameID > ? AND g.gameID <= ?
+            ORDER BY g.gameID, m.ply
+            """;
+
+    /**
+     * @param next     ply the next stored move will have
+     * @param snapshot ply of the stored snapshot
+     * @param opening  opening name stored with the game
+     */
+    private record LoggedPly(int next, int snapshot, String opening) {
+    }
+
+    /**
+     * How far the stored moves go for each game read or saved here, so a save
+     * can tell whether the game's new moves carry on from them
+     */
+    private final Map<Integer, LoggedPly> loggedPlies = new ConcurrentHashMap<>();
 
     public UserDataBaseAccess() throws ResponseException, DataAccessException {
-        System.out.println("in userDatabase");
         configureDatabase();
     }
 
@@ -40,7 +107,18 @@ public class UserDataBaseAccess implements DataAccess {
           `whiteUsername` VARCHAR(255),
           `blackUsername` VARCHAR(255),
           `gameName` VARCHAR(255),
-          `game` BLOB NOT NULL
+          `game` BLOB NOT NULL,
+          `snapshotPly` INT NOT NULL DEFAULT 0,
+          `gameOver` BOOLEAN NOT NULL DEFAULT FALSE,
+          `opening` VARCHAR(255)
+        ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
+        """,
+        """
+        CREATE TABLE IF NOT EXISTS GameMoves (
+          `gameID` INT NOT NULL,
+          `ply` INT NOT NULL,
+          `move` SMALLINT NOT NULL,
+          PRIMARY KEY (`gameID`, `ply`)
         ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
         """,
         """
@@ -61,11 +139,61 @@ public class UserDataBaseAccess implements DataAccess {
                     preparedStatement.executeUpdate();
                 }
             }
+            // Tables made before the move log and game summaries lack these columns
+            boolean added = addColumnIfMissing(conn, "GameData", "snapshotPly", "INT NOT NULL DEFAULT 0");
+            added |= addColumnIfMissing(conn, "GameData", "gameOver", "BOOLEAN NOT NULL DEFAULT FALSE");
+            added |= addColumnIfMissing(conn, "GameData", "opening", "VARCHAR(255)");
+            if (added) {
+                fillSummaryColumns(conn);
+            }
         } catch (SQLException | DataAccessException ex) {
             throw new ResponseException(500, String.format("Unable to configure database: %s", ex.getMessage()));
         }
     }
 
+    /**
+     * @return whether the column had to be added
+     */
+    private boolean addColumnIfMissing(Connection conn, String table, String column, String definition)
+            throws SQLException {
+        var sql = "SELECT 1 FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() "
+                + "AND TABLE_NAME = ? AND COLUMN_NAME = ?";
+        try (var ps = conn.prepareStatement(sql)) {
+            ps.setString(1, table);
+            ps.setString(2, column);
+            try (var rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return false;
+                }
+            }
+        }
+        try (var stmt = conn.createStatement()) {
+            stmt.executeUpdate("ALTER TABLE " + table + " ADD COLUMN `" + column + "` " + definition);
+        }
+        return true;
+    }
+
+    /**
+     * Reads every stored game once to fill in the columns a game list is read
+     * from, for games stored before those columns existed
+     */
+    private void fillSummaryColumns(Connection conn) throws SQLException {
+        var update = "UPDATE GameData SET snapshotPly = ?, gameOver = ?, opening = ? WHERE gameID = ?";
+        try (var select = conn.prepareStatement("SELECT gameID, game FROM GameData");
+             var rs = select.executeQuery();
+             var ps = conn.prepareStatement(update)) {
+            while (rs.next()) {
+                ChessGame game = deJsonGame(rs.getString("game"));
+                ps.setInt(1, game.getPly());
+                ps.setBoolean(2, game.getGameOver());
+                ps.setString(3, OpeningNames.standard().nameOf(game));
+                ps.setInt(4, rs.getInt("gameID"));
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
     public String addAuthToken(UserData user) throws DataAccessException {
         String authToken = AuthData.generateToken();
 
@@ -182,16 +310,13 @@ public class UserDataBaseAccess implements DataAccess {
     @Override
     public void logout(String authToken) throws ResponseException {
         String statement = "DELETE FROM AuthData WHERE authtoken = ?";
-        System.out.println("About to logout with token: " + authToken);
 
         try (var conn = DatabaseManager.getConnection();
              var ps = conn.prepareStatement(statement)) {
 
             ps.setString(1, authToken);
             int affectedRows = ps.executeUpdate();
-            System.out.println("Affected rows: " + affectedRows);
             if (affectedRows == 0) {
-                System.out.println("Throwing 401 for invalid token");
                 throw new ResponseException(401, "Invalid auth token");
             }
 
@@ -204,10 +329,13 @@ public class UserDataBaseAccess implements DataAccess {
     @Override
     public String createGame(String gameName, String authToken) throws ResponseException, DataAccessException {
         if (!validateAuthToken(authToken)) {
-            System.out.println("in not valid auth");
             throw new ResponseException(401, "Invalid auth token");
         }
+        return createGame(gameName);
+    }
 
+    @Override
+    public String createGame(String gameName) throws ResponseException, DataAccessException {
         var statement = "INSERT INTO GameData (gameName, game) VALUES (?, ?)";
 
         try (var conn = DatabaseManager.getConnection();
@@ -256,25 +384,31 @@ public class UserDataBaseAccess implements DataAccess {
         if (!validateAuthToken(authToken)) {
             throw new ResponseException(401, "Invalid auth token");
         }
+        return listGames();
+    }
 
-
-
+    @Override
+    public Collection<GameData> listGames() throws ResponseException {
         var games = new ArrayList<GameData>();
-        var statement = "SELECT gameID, whiteUsername, blackUsername, gameName, game FROM GameData";
+        var statement = GAME_WITH_MOVES + "ORDER BY g.gameID, m.ply";
 
         try (var conn = DatabaseManager.getConnection();
              var ps = conn.prepareStatement(statement);
              var rs = ps.executeQuery()) {
 
+            GameData current = null;
             while (rs.next()) {
                 int gameID = rs.getInt("gameID");
-                String whiteUsername = rs.getString("whiteUsername");
-                String blackUsername = rs.getString("blackUsername");
-                String gameName = rs.getString("gameName");
-                ChessGame game = deJsonGame(rs.getString("game")); // todo: get it from json?
-
-
-                games.add(new GameData(gameID, whiteUsername, blackUsername, gameName, game));
+                if (current == null || current.gameID() != gameID) {
+                    String whiteUsername = rs.getString("whiteUsername");
+                    String blackUsername = rs.getString("blackUsername");
+                    String gameName = rs.getString("gameName");
+                    ChessGame game = deJsonGame(rs.getString("game"));
+
+                    current = new GameData(gameID, whiteUsername, blackUsername, gameName, game);
+                    games.add(current);
+                }
+                playStoredMove(gameID, current.game(), rs);
             }
 
         } catch (SQLException | DataAccessException e) {
@@ -288,6 +422,201 @@ public class UserDataBaseAccess implements DataAccess {
         return new Gson().fromJson(gameData, ChessGame.class);
     }
 
+    @Override
+    public Collection<GameSummary> listGameSummaries(String authToken) throws ResponseException {
+        if (!validateAuthToken(authToken)) {
+            throw new ResponseException(401, "Invalid auth token");
+        }
+        return listGameSummaries();
+    }
+
+    @Override
+    public Collection<GameSummary> listGameSummaries() throws ResponseException {
+        var summaries = new ArrayList<GameSummary>();
+        try (var conn = DatabaseManager.getConnection();
+             var ps = conn.prepareStatement(GAME_SUMMARIES + "ORDER BY g.gameID");
+             var rs = ps.executeQuery()) {
+
+            while (rs.next()) {
+                summaries.add(readSummary(rs));
+            }
+
+        } catch (SQLException | DataAccessException e) {
+            throw new ResponseException(500, String.format("Unable to retrieve games: %s", e.getMessage()));
+        }
+
+        return summaries;
+    }
+
+    @Override
+    public GameSummary getGameSummary(int gameID) throws ResponseException {
+        try (var conn = DatabaseManager.getConnection();
+             var ps = conn.prepareStatement(GAME_SUMMARIES + "WHERE g.gameID = ?")) {
+            ps.setInt(1, gameID);
+            try (var rs = ps.executeQuery()) {
+                return rs.next() ? readSummary(rs) : null;
+            }
+        } catch (SQLException | DataAccessException e) {
+            throw new ResponseException(500, String.format("Unable to retrieve game: %s", e.getMessage()));
+        }
+    }
+
+    private static GameSummary readSummary(ResultSet rs) throws SQLException {
+        ChessGame.TeamColor teamTurn = rs.getInt("ply") % 2 == 0
+                ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        return new GameSummary(rs.getInt("gameID"), rs.getString("whiteUsername"),
+                rs.getString("blackUsername"), rs.getString("gameName"), rs.getBoolean("gameOver"),
+                teamTurn, rs.getString("opening"));
+    }
+
+    /**
+     * Reads the games a page at a time, by id, so neither the connection nor
+     * more than a page of games is held while the visitor writes them out
+     */
+    @Override
+    public void forEachGame(GameVisitor visitor) throws ResponseException, IOException {
+        int after = 0;
+        while (true) {
+            List<GameHistory> page = readGamePage(after);
+            if (page.isEmpty()) {
+                return;
+            }
+            for (GameHistory game : page) {
+                visitor.visit(game);
+            }
+            after = page.get(page.size() - 1).data().gameID();
+        }
+    }
+
+    private List<GameHistory> readGamePage(int after) throws ResponseException {
+        var page = new ArrayList<GameHistory>();
+        try (var conn = DatabaseManager.getConnection()) {
+            int last;
+            try (var ps = conn.prepareStatement(
+                    "SELECT MAX(gameID) FROM (SELECT gameID FROM GameData WHERE gameID > ? ORDER BY gameID LIMIT ?) ids")) {
+                ps.setInt(1, after);
+                ps.setInt(2, EXPORT_PAGE);
+                try (var rs = ps.executeQuery()) {
+                    last = rs.next() ? rs.getInt(1) : 0;
+                }
+            }
+            if (last == 0) {
+                return page;
+            }
+            try (var ps = conn.prepareStatement(GAME_PAGE_WITH_ALL_MOVES)) {
+                ps.setInt(1, after);
+                ps.setInt(2, last);
+                try (var rs = ps.executeQuery()) {
+                    StoredHistory current = null;
+                    while (rs.next()) {
+                        int gameID = rs.getInt("gameID");
+                        if (current == null || current.gameID != gameID) {
+                            if (current != null) {
+                                page.add(current.history());
+                            }
+                            current = new StoredHistory(gameID, rs.getString("whiteUsername"),
+                                    rs.getString("blackUsername"), rs.getString("gameName"),
+                                    deJsonGame(rs.getString("game")));
+                        }
+                        current.add(rs);
+                    }
+                    if (current != null) {
+                        page.add(current.history());
+                    }
+                }
+            }
+        } catch (SQLException | DataAccessException e) {
+            throw new ResponseException(500, String.format("Unable to retrieve games: %s", e.getMessage()));
+        }
+        return page;
+    }
+
+    /**
+     * A game being read with every move stored for it. The moves before its
+     * snapshot are kept for export when they lead from the standard start to
+     * the snapshot; otherwise the game is exported from the snapshot.
+     */
+    private static final class StoredHistory {
+        private final int gameID;
+        private final String whiteUsername;
+        private final String blackUsername;
+        private final String gameName;
+        private final ChessGame game;
+        private final String snapshotFen;
+        private final long snapshotKey;
+        private final int snapshotPly;
+        private final ChessGame fromStart = new ChessGame();
+        private final List<ChessMove> movesToSnapshot = new ArrayList<>();
+        private final List<ChessMove> movesSinceSnapshot = new ArrayList<>();
+        private boolean reachesSnapshot = true;
+
+        StoredHistory(int gameID, String whiteUsername, String blackUsername, String gameName, ChessGame snapshot) {
+            this.gameID = gameID;
+            this.whiteUsername = whiteUsername;
+            this.blackUsername = blackUsername;
+            this.gameName = gameName;
+            this.game = snapshot;
+            this.snapshotFen = snapshot.toFen();
+            this.snapshotKey = snapshot.getPositionKey();
+            this.snapshotPly = snapshot.getPly();
+        }
+
+        void add(ResultSet rs) throws SQLException {
+            int ply = rs.getInt("ply");
+            if (rs.wasNull()) {
+                return;
+            }
+            if (ply >= snapshotPly) {
+                if (playStoredMove(gameID, game, rs)) {
+                    movesSinceSnapshot.add(Move.toChessMove(rs.getInt("move")));
+                }
+                return;
+            }
+            if (!reachesSnapshot || ply != fromStart.getPly()) {
+                reachesSnapshot = false;
+                return;
+            }
+            ChessMove move = Move.toChessMove(rs.getInt("move"));
+            try {
+                fromStart.makeMove(move);
+                movesToSnapshot.add(move);
+            } catch (InvalidMoveException e) {
+                reachesSnapshot = false;
+            }
+        }
+
+        GameHistory history() {
+            GameData data = new GameData(gameID, whiteUsername, blackUsername, gameName, game);
+            if (reachesSnapshot && fromStart.getPly() == snapshotPly && fromStart.getPositionKey() == snapshotKey) {
+                List<ChessMove> moves = new ArrayList<>(movesToSnapshot);
+                moves.addAll(movesSinceSnapshot);
+                return new GameHistory(data, null, moves);
+            }
+            return new GameHistory(data, snapshotFen, movesSinceSnapshot);
+        }
+    }
+
+    /**
+     * Plays the stored move in the current row if it is the game's next move.
+     * Rows without a move, from before the game's position or after a gap are
+     * skipped, so after an illegal one the rest of the game's moves are too.
+     *
+     * @return whether the move was played
+     */
+    private static boolean playStoredMove(int gameID, ChessGame game, ResultSet rs) throws SQLException {
+        int ply = rs.getInt("ply");
+        if (rs.wasNull() || ply != game.getPly()) {
+            return false;
+        }
+        try {
+            game.makeMove(Move.toChessMove(rs.getInt("move")));
+            return true;
+        } catch (InvalidMoveException e) {
+            LOG.warn("Stored move at ply {} of game {} is illegal, ignoring the moves from there on", ply, gameID);
+            return false;
+        }
+    }
+
 
 
     @Override
@@ -295,21 +624,18 @@ public class UserDataBaseAccess implements DataAccess {
         try (var conn = DatabaseManager.getConnection();
              var stmt = conn.createStatement()) {
             stmt.executeUpdate("DELETE FROM AuthData");
+            stmt.executeUpdate("DELETE FROM GameMoves");
             stmt.executeUpdate("DELETE FROM GameData");
+            loggedPlies.clear();
             stmt.executeUpdate("DELETE FROM UserData");
         } catch (SQLException | DataAccessException e) {
-            e.printStackTrace();
+            LOG.error("Unable to clear database", e);
         }
     }
 
 
     @Override
     public boolean joinGame(String authToken, String gameID, String playerColor) throws ResponseException {
-        System.out.println("join game ----- " + gameID + playerColor);
-        System.out.println("join game ----- " + playerColor);
-
-        Set<GameData> gameDataList = ChessService.ALL_GAME_DATA;
-
 
         if (!playerColor.equalsIgnoreCase("WHITE") && !playerColor.equalsIgnoreCase("BLACK")) {
             throw new IllegalArgumentException("Invalid player color: " + playerColor);
@@ -330,17 +656,7 @@ public class UserDataBaseAccess implements DataAccess {
 
 
             boolean updatePlayerColor = updatePlayerColor(conn, column, username, gameID);
-            ChessService.ALL_GAME_DATA.clear();
-            ChessService.ALL_GAME_DATA.addAll(listGames(authToken));
-
-            GameData gameData = gameDataList.stream()
-                    .filter(g -> g.gameID() == Integer.parseInt(gameID))
-                    .findFirst()
-                    .orElse(null);
-            System.out.println(gameID + " outside");
-            System.out.println(playerColor + " outside");
-            System.out.println(gameData + " outside");
-            System.out.println(getGame(Integer.valueOf(gameID)).getTeamTurn());
+            LOG.debug("{} joined game {} as {}", username, gameID, playerColor);
             return updatePlayerColor;
         } catch (SQLException | DataAccessException e) {
             throw new ResponseException(500, "Unable to join game: " + e.getMessage());
@@ -405,41 +721,121 @@ public class UserDataBaseAccess implements DataAccess {
         }
     }
 
+    /**
+     * Appends the moves played since the last save to the game's move log. The
+     * whole position is stored instead when the game's moves don't carry on
+     * from the stored ones, and as well every {@link #SNAPSHOT_PLIES} plies and
+     * when the game is over.
+     */
     @Override
     public void saveGame(Integer gameId, ChessGame chessGame) throws DataAccessException {
-        String updateSql = "UPDATE GameData SET game = ? WHERE gameID = ?";
+        int ply = chessGame.getPly();
+        int[] moveLog = chessGame.getMoveLog();
+        LoggedPly logged = loggedPlies.get(gameId);
+        int firstPly = moveLog == null ? Integer.MAX_VALUE : ply - moveLog.length;
+        boolean carriesOn = logged != null && firstPly <= logged.next() && logged.next() <= ply;
+        boolean snapshot = !carriesOn || chessGame.getGameOver() || ply - logged.snapshot() >= SNAPSHOT_PLIES;
+        if (!snapshot && logged.next() == ply) {
+            return;
+        }
+        String opening = OpeningNames.standard().nameOf(chessGame);
 
-        try (var conn = DatabaseManager.getConnection();
-             var ps = conn.prepareStatement(updateSql)) {
+        try (var conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            if (carriesOn && logged.next() < ply) {
+                try {
+                    appendMoves(conn, gameId, moveLog, firstPly, logged.next(), ply);
+                } catch (SQLException e) {
+                    if (e.getSQLState() == null || !e.getSQLState().startsWith("23")) {
+                        throw e;
+                    }
+                    // Moves were stored for this game from somewhere else; ours replace them
+                    conn.rollback();
+                    snapshot = true;
+                }
+            }
+            if (snapshot) {
+                writeSnapshot(conn, gameId, chessGame, ply, opening);
+            } else if (!Objects.equals(opening, logged.opening())) {
+                try (var ps = conn.prepareStatement("UPDATE GameData SET opening = ? WHERE gameID = ?")) {
+                    ps.setString(1, opening);
+                    ps.setInt(2, gameId);
+                    ps.executeUpdate();
+                }
+            }
+            conn.commit();
+            loggedPlies.put(gameId, new LoggedPly(ply, snapshot ? ply : logged.snapshot(), opening));
+        } catch (SQLException e) {
+            loggedPlies.remove(gameId);
+            throw new DataAccessException("Failed to save game: " + e.getMessage(), e);
+        }
+    }
 
-            String gameJson = new Gson().toJson(chessGame);
-            ps.setString(1, gameJson);
-            ps.setInt(2, gameId);
+    private void appendMoves(Connection conn, int gameId, int[] moveLog, int firstPly, int fromPly, int toPly)
+            throws SQLException {
+        String sql = "INSERT INTO GameMoves (gameID, ply, move) VALUES "
+                + String.join(", ", Collections.nCopies(toPly - fromPly, "(?, ?, ?)"));
+        try (var ps = conn.prepareStatement(sql)) {
+            int column = 1;
+            for (int ply = fromPly; ply < toPly; ply++) {
+                ps.setInt(column++, gameId);
+                ps.setInt(column++, ply);
+                ps.setInt(column++, moveLog[ply - firstPly]);
+            }
+            ps.executeUpdate();
+        }
+    }
 
-            int rowsAffected = ps.executeUpdate();
-            if (rowsAffected == 0) {
+    /**
+     * Stores the whole position and drops any stored moves it replaces
+     */
+    private void writeSnapshot(Connection conn, int gameId, ChessGame chessGame, int ply, String opening)
+            throws SQLException, DataAccessException {
+        var sql = "UPDATE GameData SET game = ?, snapshotPly = ?, gameOver = ?, opening = ? WHERE gameID = ?";
+        try (var ps = conn.prepareStatement(sql)) {
+            ps.setString(1, new Gson().toJson(chessGame));
+            ps.setInt(2, ply);
+            ps.setBoolean(3, chessGame.getGameOver());
+            ps.setString(4, opening);
+            ps.setInt(5, gameId);
+            if (ps.executeUpdate() == 0) {
                 throw new DataAccessException("No game found with ID: " + gameId, null);
             }
-
-        } catch (SQLException | DataAccessException e) {
-            throw new DataAccessException("Failed to save game: " + e.getMessage(), (SQLException) e);
+        }
+        try (var ps = conn.prepareStatement("DELETE FROM GameMoves WHERE gameID = ? AND ply >= ?")) {
+            ps.setInt(1, gameId);
+            ps.setInt(2, ply);
+            ps.executeUpdate();
         }
     }
 
 
+    /**
+     * Reads the game's last snapshot and replays the moves stored since
+     */
     @Override
     public ChessGame getGame(Integer gameID) throws DataAccessException {
-        String sql = "SELECT game FROM GameData WHERE gameID = ?";
+        String sql = GAME_WITH_MOVES + "WHERE g.gameID = ? ORDER BY m.ply";
         try (var conn = DatabaseManager.getConnection();
              var ps = conn.prepareStatement(sql)) {
             ps.setInt(1, gameID);
             try (var rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    String gameJson = rs.getString("game");
-                    return new Gson().fromJson(gameJson, ChessGame.class);
-                } else {
+                ChessGame game = null;
+                int snapshotPly = 0;
+                String opening = null;
+                while (rs.next()) {
+                    if (game == null) {
+                        game = deJsonGame(rs.getString("game"));
+                        snapshotPly = game.getPly();
+                        opening = rs.getString("opening");
+                    }
+                    playStoredMove(gameID, game, rs);
+                }
+                if (game == null) {
                     throw new DataAccessException("Game not found with ID: " + gameID, null);
                 }
+                loggedPlies.put(gameID, new LoggedPly(game.getPly(), snapshotPly, opening));
+                return game;
             }
         } catch (SQLException e) {
             throw new DataAccessException("Failed to get game: " + e.getMessage(), e);
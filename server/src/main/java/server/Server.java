@@ -1,6 +1,13 @@
 package server;
 
+import chess.ChessGame;
 import chess.ChessMove;
+import chess.PositionTable;
+import chess.Tablebase;
+import chess.book.OpeningBook;
+import chess.search.ParallelSearcher;
+import chess.search.SearchLimits;
+import chess.search.SearchResult;
 import responsesandexceptions.DataAccessException;
 import responsesandexceptions.ResponseException;
 import responsesandexceptions.UserResponse;
@@ -8,14 +15,57 @@ import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import dataaccess.*;
-import model.GameData;
+import model.GameSummary;
 import model.UserData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import spark.*;
 import service.ChessService;
 
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletRequestWrapper;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.*;
 
 public class Server {
+    private static final Logger LOG = LoggerFactory.getLogger(Server.class);
+
+    /**
+     * Memory for the position table shared by all games, set with -Dchess.positionTableMb
+     */
+    private static final long POSITION_TABLE_BYTES = Long.getLong("chess.positionTableMb", 16) * 1024 * 1024;
+
+    /**
+     * Threads per analysis request, set with -Dchess.analysisThreads; 1 gives repeatable results
+     */
+    private static final int ANALYSIS_THREADS =
+            Integer.getInteger("chess.analysisThreads", Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Memory for the hash table the analysis threads share, set with -Dchess.analysisTableMb
+     */
+    private static final long ANALYSIS_TABLE_BYTES = Long.getLong("chess.analysisTableMb", 64) * 1024 * 1024;
+
+    /**
+     * Opening book file to serve book moves from, set with -Dchess.openingBook
+     */
+    private static final String OPENING_BOOK = System.getProperty("chess.openingBook");
+
+    /**
+     * Directory of endgame tables, built there on first start, set with -Dchess.tablebaseDir.
+     * Without it only positions no side can win are adjudicated.
+     */
+    private static final String TABLEBASE_DIR = System.getProperty("chess.tablebaseDir");
+
+    private static final long DEFAULT_ANALYSIS_MILLIS = 1000;
+    private static final long MAX_ANALYSIS_MILLIS = 10_000;
+
     private ChessService service;
     public int port;
     private WebSocketHandler webSocketHandler;
@@ -25,7 +75,7 @@ public class Server {
 
     public Server() {
         try {
-            this.dataAccess = new UserDataBaseAccess();
+            this.dataAccess = ChessService.databaseAccess();
             this.service = new ChessService(this.dataAccess);
         } catch (Exception e) {
             throw new RuntimeException("Failed to initialize default DataAccess", e);
@@ -66,14 +116,18 @@ public class Server {
                 throw new ResponseException(401, "Invalid auth token");
             }
 
-            var games = service.listGames(authToken);
-            boolean gameExists = games.stream().anyMatch(g -> Integer.toString(g.gameID()).equals(gameID));
-            if (!gameExists) {
+            GameSummary game;
+            try {
+                game = service.getGameSummary(authToken, Integer.parseInt(gameID));
+            } catch (NumberFormatException e) {
+                game = null;
+            }
+            if (game == null) {
                 throw new ResponseException(400, "Game not found");
             }
 
             if (playerColor.equalsIgnoreCase("observer")) {
-                System.out.println("Observer joined game " + gameID);
+                LOG.debug("Observer joined game {}", gameID);
                 res.status(200);
                 return "{}";
             }
@@ -128,12 +182,10 @@ public class Server {
         }
 
         try {
-            Collection<GameData> games = service.listGames(authToken);
-
-            // Prepare response in the desired format
-            String jsonResponse = new Gson().toJson(Map.of("games", games));
+            // Summaries only; a game's position is fetched from /game/:gameID when it is opened
+            Collection<GameSummary> games = service.listGames(authToken);
             response.status(200); // HTTP 200 OK
-            return jsonResponse;
+            return new Gson().toJson(Map.of("games", games));
 
         } catch (Exception e) {
             // If there is an error, send a 500 error with a descriptive message
@@ -148,8 +200,7 @@ public class Server {
             String gameName = (String) requestMap.get("gameName");
             String authToken = req.headers("Authorization");
 
-            System.out.println("Auth Token: " + authToken);
-            System.out.println(gameName);
+            LOG.debug("Creating game {}", gameName);
 
             String gameId = service.createGame(gameName, authToken); // may throw ResponseException
 
@@ -173,7 +224,6 @@ public class Server {
 
     private Object logout(Request req, Response res) {
         String authToken = req.headers("Authorization");
-        System.out.println("Headers: " + req.headers());
 
         try {
             service.logout(authToken);
@@ -235,8 +285,7 @@ public class Server {
 
     private Object getUser(Request req, Response res) throws ResponseException, DataAccessException {
         String username = req.params(":username");
-        System.out.println("in get user");
-        System.out.println("username " + username);
+        LOG.debug("Looking up user {}", username);
         UserData user = service.getUser(username);
 
         if (user != null) {
@@ -249,8 +298,13 @@ public class Server {
     }
 
     public void stop() {
+        if (service.getAnalyzer() != null) {
+            service.getAnalyzer().shutdown();
+            service.setAnalyzer(null);
+        }
         Spark.stop();
         Spark.awaitStop();
+        ChessService.flushLiveGames();
     }
 
     public int run(int desiredPort) {
@@ -263,6 +317,25 @@ public class Server {
 
         Spark.staticFiles.location("web");
 
+        if (ChessGame.getPositionTable() == null) {
+            ChessGame.setPositionTable(new PositionTable(POSITION_TABLE_BYTES, PositionTable.ReplacementPolicy.OLDEST));
+        }
+        if (ChessGame.getTablebase() == null) {
+            ChessGame.setTablebase(openTablebase());
+        }
+        if (service.getAnalyzer() == null) {
+            service.setAnalyzer(new ParallelSearcher(Math.max(1, ANALYSIS_THREADS), ANALYSIS_TABLE_BYTES));
+        }
+        if (OPENING_BOOK != null && service.getOpeningBook() == null) {
+            try {
+                OpeningBook book = OpeningBook.open(Path.of(OPENING_BOOK));
+                service.setOpeningBook(book);
+                LOG.info("Opened opening book {} with {} entries", OPENING_BOOK, book.size());
+            } catch (IOException e) {
+                LOG.warn("Could not open opening book {}", OPENING_BOOK, e);
+            }
+        }
+
         // Register routes
         runningAllEndpoints();
 
@@ -271,9 +344,24 @@ public class Server {
         return Spark.port();
     }
 
+    private static Tablebase openTablebase() {
+        if (TABLEBASE_DIR == null) {
+            return Tablebase.empty();
+        }
+        try {
+            long start = System.nanoTime();
+            Tablebase tablebase = Tablebase.generate(Path.of(TABLEBASE_DIR));
+            LOG.info("Opened tablebase {} in {}ms", TABLEBASE_DIR, (System.nanoTime() - start) / 1_000_000);
+            return tablebase;
+        } catch (IOException e) {
+            LOG.warn("Could not open tablebase {}", TABLEBASE_DIR, e);
+            return Tablebase.empty();
+        }
+    }
+
     private Object makeMove(Request req, Response res) {
         try {
-            System.out.println("Request Body: " + req.body());
+            LOG.debug("Move request {}", req.body());
 
             String authToken = req.headers("Authorization");
             JsonObject body = JsonParser.parseString(req.body()).getAsJsonObject();
@@ -326,6 +414,123 @@ public class Server {
         }
     }
 
+    private Object analyzeGame(Request req, Response res) {
+        try {
+            String authToken = req.headers("Authorization");
+            JsonObject body = JsonParser.parseString(req.body()).getAsJsonObject();
+
+            if (body.get("gameID") == null) {
+                res.status(400);
+                return new Gson().toJson(Map.of("message", "Error: missing gameID"));
+            }
+            int gameId = body.get("gameID").getAsInt();
+            long timeMillis = body.has("timeMillis") ? body.get("timeMillis").getAsLong() : DEFAULT_ANALYSIS_MILLIS;
+            if (timeMillis <= 0) {
+                res.status(400);
+                return new Gson().toJson(Map.of("message", "Error: timeMillis must be positive"));
+            }
+
+            SearchLimits limits = SearchLimits.time(Math.min(timeMillis, MAX_ANALYSIS_MILLIS));
+            SearchResult result = service.analyzeGame(authToken, gameId, limits);
+
+            // bestMove is null when the game is over, which Map.of won't hold
+            Map<String, Object> response = new HashMap<>();
+            response.put("bestMove", result.bestMove());
+            response.put("score", result.score());
+            response.put("mateIn", result.matePlies());
+            response.put("depth", result.depth());
+            response.put("nodes", result.nodes());
+            response.put("elapsedMillis", result.elapsedMillis());
+            res.status(200);
+            return new Gson().toJson(response);
+
+        } catch (ResponseException e) {
+            res.status(e.getStatusCode());
+            return new Gson().toJson(Map.of("message", "Error: " + e.getMessage()));
+        } catch (Exception e) {
+            res.status(500);
+            return new Gson().toJson(Map.of("message", "Error: " + e.getMessage()));
+        }
+    }
+
+    private Object getGame(Request req, Response res) {
+        try {
+            String authToken = req.headers("Authorization");
+            int gameId = Integer.parseInt(req.params(":gameID"));
+            ChessGame game = service.getGame(authToken, gameId);
+            res.status(200);
+            return new Gson().toJson(Map.of("gameID", gameId, "game", game));
+        } catch (NumberFormatException e) {
+            res.status(400);
+            return new Gson().toJson(Map.of("message", "Error: bad gameID"));
+        } catch (ResponseException e) {
+            res.status(e.getStatusCode());
+            return new Gson().toJson(Map.of("message", "Error: " + e.getMessage()));
+        } catch (Exception e) {
+            res.status(500);
+            return new Gson().toJson(Map.of("message", "Error: " + e.getMessage()));
+        }
+    }
+
+    private Object bookMoves(Request req, Response res) {
+        try {
+            String authToken = req.headers("Authorization");
+            int gameId = Integer.parseInt(req.params(":gameID"));
+            List<OpeningBook.BookMove> moves = service.getBookMoves(authToken, gameId);
+            res.status(200);
+            return new Gson().toJson(Map.of("moves", moves));
+        } catch (NumberFormatException e) {
+            res.status(400);
+            return new Gson().toJson(Map.of("message", "Error: bad gameID"));
+        } catch (ResponseException e) {
+            res.status(e.getStatusCode());
+            return new Gson().toJson(Map.of("message", "Error: " + e.getMessage()));
+        } catch (Exception e) {
+            res.status(500);
+            return new Gson().toJson(Map.of("message", "Error: " + e.getMessage()));
+        }
+    }
+
+    private Object importGames(Request req, Response res) {
+        try {
+            String authToken = req.headers("Authorization");
+            // Spark's wrapper reads a whole unchunked body into memory, so stream from the request beneath it
+            ServletRequest raw = req.raw();
+            while (raw instanceof ServletRequestWrapper wrapper) {
+                raw = wrapper.getRequest();
+            }
+            Reader pgn = new InputStreamReader(raw.getInputStream(), StandardCharsets.UTF_8);
+            ChessService.ImportReport report = service.importGames(authToken, pgn);
+            res.status(200);
+            return new Gson().toJson(report);
+        } catch (ResponseException e) {
+            res.status(e.getStatusCode());
+            return new Gson().toJson(Map.of("message", "Error: " + e.getMessage()));
+        } catch (Exception e) {
+            res.status(500);
+            return new Gson().toJson(Map.of("message", "Error: " + e.getMessage()));
+        }
+    }
+
+    private Object exportGames(Request req, Response res) {
+        try {
+            String authToken = req.headers("Authorization");
+            if (!service.validateAuthToken(authToken)) {
+                throw new ResponseException(401, "Invalid auth token");
+            }
+            res.status(200);
+            res.type("application/x-chess-pgn");
+            Writer out = new OutputStreamWriter(res.raw().getOutputStream(), StandardCharsets.UTF_8);
+            service.exportGames(authToken, out);
+            return "";
+        } catch (ResponseException e) {
+            res.status(e.getStatusCode());
+            return new Gson().toJson(Map.of("message", "Error: " + e.getMessage()));
+        } catch (Exception e) {
+            res.status(500);
+            return new Gson().toJson(Map.of("message", "Error: " + e.getMessage()));
+        }
+    }
 
     private void runningAllEndpoints() {
         Spark.post("/user", this::addUser);
@@ -340,6 +545,12 @@ public class Server {
         Spark.delete("/db", this::clear);
 
         Spark.put("/game/move", this::makeMove);
+        Spark.post("/game/analysis", this::analyzeGame);
+        Spark.get("/game/:gameID/book", this::bookMoves);
+        Spark.post("/game/pgn", this::importGames);
+        Spark.get("/game/pgn", this::exportGames);
+        // After /game/pgn, which it would otherwise match
+        Spark.get("/game/:gameID", this::getGame);
 
     }
 
@@ -2,12 +2,15 @@ package server;
 
 import chess.ChessGame;
 import chess.ChessMove;
+import chess.Tablebase;
 import com.google.gson.Gson;
 import responsesandexceptions.DataAccessException;
 import responsesandexceptions.ResponseException;
-import model.GameData;
+import model.GameSummary;
 import org.eclipse.jetty.websocket.api.*;
 import org.eclipse.jetty.websocket.api.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import service.ChessService;
 import websocket.commands.UserGameCommand;
 import websocket.messages.ServerMessage;
@@ -18,6 +21,7 @@ import java.util.concurrent.ConcurrentHashMap;
 @WebSocket
 public class WebSocketHandler {
 
+    private static final Logger LOG = LoggerFactory.getLogger(WebSocketHandler.class);
     private static final Map<Session, Connection> CONNECTIONS = new ConcurrentHashMap<>();
     private static final Gson GSON = new Gson();
     private final ChessService service = new ChessService();
@@ -39,7 +43,7 @@ public class WebSocketHandler {
 
     @OnWebSocketError
     public void onError(Session session, Throwable error) {
-        error.printStackTrace();
+        LOG.warn("WebSocket error", error);
     }
 
     @OnWebSocketMessage
@@ -93,10 +97,10 @@ public class WebSocketHandler {
 
         try {
             String username = service.getUsernameFromAuth(connection.authToken);
-            GameData gameData = service.listGames(connection.authToken).stream()
-                    .filter(g -> g.gameID() == gameId)
-                    .findFirst()
-                    .orElseThrow(() -> new ResponseException(400, "Game not found"));
+            GameSummary gameData = service.getGameSummary(connection.authToken, gameId);
+            if (gameData == null) {
+                throw new ResponseException(400, "Game not found");
+            }
 
             if (username.equals(gameData.whiteUsername())) {
                 service.dataAccess.clearPlayerSlot(gameId, "white");
@@ -132,15 +136,14 @@ public class WebSocketHandler {
             }
             String username = service.getUsernameFromAuth(connection.authToken);
 
-            GameData gameData = service.listGames(connection.authToken).stream()
-                    .filter(g -> g.gameID() == gameId)
-                    .findFirst()
-                    .orElseThrow(() -> new ResponseException(400, "Game not found"));
+            GameSummary gameData = service.getGameSummary(connection.authToken, gameId);
+            if (gameData == null) {
+                throw new ResponseException(400, "Game not found");
+            }
             String whiteUsername = gameData.whiteUsername();
             String blackUsername = gameData.blackUsername();
 
             if(!Objects.equals(username, whiteUsername) && !Objects.equals(username, blackUsername)){
-                System.out.println("in if");
                 sendError(session, "Observers cannot resign");
                 return;
             }
@@ -170,15 +173,15 @@ public class WebSocketHandler {
 
             ChessGame chessGame = service.getGame(gameId);
 
-            if (service.isGameResigned(gameId)) {
+            if (service.isGameResigned(gameId) || chessGame.getGameOver()) {
                 sendError(session, "Game is already over");
                 return;
             }
 
-            GameData gameData = service.listGames(auth).stream()
-                    .filter(g -> g.gameID() == gameId)
-                    .findFirst()
-                    .orElseThrow(() -> new ResponseException(400, "Game not found"));
+            GameSummary gameData = service.getGameSummary(auth, gameId);
+            if (gameData == null) {
+                throw new ResponseException(400, "Game not found");
+            }
             ChessGame.TeamColor color = service.getPlayerColor(auth, gameData);
 
             if (chessGame.getTeamTurn() != color) {
@@ -201,18 +204,32 @@ public class WebSocketHandler {
                 broadcastMessage(gameId, ServerMessage.notification(playerName + " is in check"));
             }
 
+            Tablebase.Outcome outcome = service.adjudicate(gameId, chessGame);
+            if (outcome != null) {
+                broadcastMessage(gameId, ServerMessage.notification(adjudication(outcome, chessGame.getTeamTurn())));
+            }
+
         } catch (Exception e) {
             sendError(session, "Invalid move or internal error");
         }
     }
 
+    private static String adjudication(Tablebase.Outcome outcome, ChessGame.TeamColor toMove) {
+        if (outcome == Tablebase.Outcome.DRAW) {
+            return "Game over: drawn, neither side can force a win";
+        }
+        ChessGame.TeamColor winner = outcome == Tablebase.Outcome.WIN ? toMove
+                : toMove == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        return "Game over: " + winner + " wins with best play";
+    }
+
     private void broadcastMessage(Integer gameId, ServerMessage message) {
         String json = GSON.toJson(message);
         for (Session s : getSessionsForGame(gameId)) {
             try {
                 s.getRemote().sendString(json);
             } catch (Exception e) {
-                e.printStackTrace();
+                LOG.warn("Unable to send message to game {}", gameId, e);
             }
         }
     }
@@ -224,7 +241,7 @@ public class WebSocketHandler {
                 try {
                     s.getRemote().sendString(json);
                 } catch (Exception e) {
-                    e.printStackTrace();
+                    LOG.warn("Unable to send message to game {}", gameId, e);
                 }
             }
         }
@@ -239,7 +256,7 @@ public class WebSocketHandler {
             String json = GSON.toJson(message);
             session.getRemote().sendString(json);
         } catch (Exception e) {
-            e.printStackTrace();
+            LOG.warn("Unable to send message", e);
         }
     }
 
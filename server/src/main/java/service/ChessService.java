@@ -1,27 +1,73 @@
 package service;
 
 import chess.ChessMove;
+import chess.book.OpeningBook;
+import chess.book.OpeningNames;
+import chess.pgn.PgnFormatException;
+import chess.pgn.PgnGame;
+import chess.pgn.PgnReader;
+import chess.pgn.PgnWriter;
+import chess.search.ParallelSearcher;
+import chess.search.SearchLimits;
+import chess.search.SearchResult;
 import dataaccess.DataAccess;
 import responsesandexceptions.DataAccessException;
 import responsesandexceptions.ResponseException;
 import responsesandexceptions.UserResponse;
 import chess.ChessGame;
+import chess.Tablebase;
 import dataaccess.*;
 import model.GameData;
+import model.GameSummary;
 import model.UserData;
-
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 
 public class ChessService {
+    private static final Logger LOG = LoggerFactory.getLogger(ChessService.class);
+
     public final DataAccess dataAccess;
 
     private final HashMap<String, UserData> users = new HashMap<>();
     private final Set<Integer> resignedGames = new HashSet<>();
-    public static final Set<GameData> ALL_GAME_DATA = new HashSet<>();
+
+    /**
+     * Most problems listed in an import report; the rest are only counted
+     */
+    private static final int MAX_REPORTED_PROBLEMS = 100;
+
+    /**
+     * Auth tokens known to every service backed by the database, so a logout
+     * through one is seen by all. Entries live for -Dchess.authCacheSeconds and
+     * at most -Dchess.authCacheSize are kept.
+     */
+    private static final AuthTokenCache AUTH_TOKENS = new AuthTokenCache(
+            Duration.ofSeconds(Long.getLong("chess.authCacheSeconds", 900)),
+            Integer.getInteger("chess.authCacheSize", 10_000));
+
+    /**
+     * Games being played, shared like the auth tokens and created with the first
+     * database-backed service. Saved games are written back within
+     * -Dchess.gameFlushMillis and at most -Dchess.liveGames are held.
+     */
+    private static LiveGameCache liveGames;
+
+    private volatile ParallelSearcher analyzer;
+    private volatile OpeningBook openingBook;
 
 
     public ChessService(DataAccess dataAccess) {
@@ -29,7 +75,34 @@ public class ChessService {
     }
 
     public ChessService() throws ResponseException, DataAccessException {
-        this.dataAccess = new UserDataBaseAccess();
+        this.dataAccess = databaseAccess();
+    }
+
+    /**
+     * @return the database, with auth token lookups answered from the shared cache where possible
+     */
+    public static synchronized DataAccess databaseAccess() throws ResponseException, DataAccessException {
+        UserDataBaseAccess database = new UserDataBaseAccess();
+        if (liveGames == null) {
+            liveGames = new LiveGameCache(database, Integer.getInteger("chess.liveGames", 1000),
+                    Long.getLong("chess.gameFlushMillis", 500));
+            Runtime.getRuntime().addShutdownHook(new Thread(liveGames::close, "live-game-shutdown"));
+        }
+        return new CachingDataAccess(database, AUTH_TOKENS, liveGames);
+    }
+
+    /**
+     * Writes every game saved in memory to the database, for when the server stops
+     */
+    public static synchronized void flushLiveGames() {
+        if (liveGames == null) {
+            return;
+        }
+        try {
+            liveGames.flush();
+        } catch (DataAccessException e) {
+            LOG.error("Unable to write back saved games", e);
+        }
     }
 
 
@@ -58,9 +131,231 @@ public class ChessService {
         return dataAccess.validateAuthToken(authToken);
     }
 
-    public Collection<GameData> listGames(String authToken) throws ResponseException{
-        ALL_GAME_DATA.addAll(dataAccess.listGames(authToken));
-        return dataAccess.listGames(authToken);
+    /**
+     * @return every game without its position; use {@link #getGame} for the position
+     */
+    public Collection<GameSummary> listGames(String authToken) throws ResponseException{
+        return dataAccess.listGameSummaries(authToken);
+    }
+
+    /**
+     * @return one game without its position, or null if there is no such game
+     */
+    public GameSummary getGameSummary(String authToken, int gameId) throws ResponseException {
+        if (!validateAuthToken(authToken)) {
+            throw new ResponseException(401, "Invalid auth token");
+        }
+        return dataAccess.getGameSummary(gameId);
+    }
+
+    /**
+     * Checks every stored game in parallel for positions that legal play can't reach
+     *
+     * @return the games checked, any problems found and how long it took
+     */
+    public GameArchiveValidator.Report validateStoredGames(String authToken) throws ResponseException {
+        if (!validateAuthToken(authToken)) {
+            throw new ResponseException(401, "Invalid auth token");
+        }
+        return new GameArchiveValidator().validate(dataAccess.listGames(authToken));
+    }
+
+    /**
+     * @param imported number of games stored
+     * @param skipped  number of games that could not be read
+     * @param problems why games were skipped, one line each, for the first few only
+     */
+    public record ImportReport(int imported, int skipped, List<String> problems) {
+
+    }
+
+    /**
+     * Reads games from PGN and stores each one's final position as a new game,
+     * ended unless its result is *. The games are read one at a time, so the
+     * input can be of any size. Games that can't be read are skipped and
+     * reported.
+     */
+    public ImportReport importGames(String authToken, Reader pgn) throws ResponseException, IOException {
+        if (!validateAuthToken(authToken)) {
+            throw new ResponseException(401, "Invalid auth token");
+        }
+        int imported = 0;
+        int skipped = 0;
+        List<String> problems = new ArrayList<>();
+        PgnReader reader = new PgnReader(pgn);
+        while (true) {
+            PgnGame game;
+            try {
+                game = reader.next();
+            } catch (PgnFormatException e) {
+                skipped++;
+                if (problems.size() < MAX_REPORTED_PROBLEMS) {
+                    problems.add(e.getMessage());
+                }
+                continue;
+            }
+            if (game == null) {
+                break;
+            }
+            ChessGame position = game.position();
+            position.setGameOver(!game.result().equals("*"));
+            try {
+                String gameId = dataAccess.createGame(importedName(game), authToken);
+                dataAccess.saveGame(Integer.parseInt(gameId), position);
+            } catch (DataAccessException e) {
+                throw new ResponseException(500, "Unable to store imported game: " + e.getMessage());
+            }
+            imported++;
+        }
+        LOG.info("Imported {} games from PGN, skipped {}", imported, skipped);
+        return new ImportReport(imported, skipped, problems);
+    }
+
+    private static String importedName(PgnGame game) {
+        String white = game.tags().get("White");
+        String black = game.tags().get("Black");
+        if (white != null && black != null) {
+            return white + " vs " + black;
+        }
+        return game.tags().getOrDefault("Event", "Imported game");
+    }
+
+    /**
+     * Writes every stored game as PGN, one at a time, with the moves logged for
+     * it. A game whose moves don't go back to the standard start gets a FEN
+     * tag for the position they do start from.
+     */
+    public void exportGames(String authToken, Writer out) throws ResponseException, IOException {
+        if (!validateAuthToken(authToken)) {
+            throw new ResponseException(401, "Invalid auth token");
+        }
+        PgnWriter writer = new PgnWriter(out);
+        dataAccess.forEachGame(history -> {
+            GameData data = history.data();
+            Map<String, String> tags = new LinkedHashMap<>();
+            tags.put("Event", data.gameName() != null ? data.gameName() : "?");
+            tags.put("White", data.whiteUsername() != null ? data.whiteUsername() : "?");
+            tags.put("Black", data.blackUsername() != null ? data.blackUsername() : "?");
+            if (history.startFen() != null) {
+                tags.put("FEN", history.startFen());
+            }
+            writer.write(new PgnGame(tags, history.moves(), Map.of(), exportedResult(data.game()), data.game()));
+        });
+        writer.flush();
+    }
+
+    /**
+     * @return the PGN result of a game, * while it goes on or when how it ended is not known
+     */
+    private static String exportedResult(ChessGame game) {
+        ChessGame.TeamColor toMove = game.getTeamTurn();
+        String toMoveWins = toMove == ChessGame.TeamColor.WHITE ? "1-0" : "0-1";
+        String toMoveLoses = toMove == ChessGame.TeamColor.WHITE ? "0-1" : "1-0";
+        if (game.isInCheckmate(toMove)) {
+            return toMoveLoses;
+        }
+        if (game.isInStalemate(toMove)) {
+            return "1/2-1/2";
+        }
+        Tablebase.Outcome outcome = game.getGameOver() ? game.probeTablebase() : null;
+        if (outcome == null) {
+            return "*";
+        }
+        return switch (outcome) {
+            case WIN -> toMoveWins;
+            case LOSS -> toMoveLoses;
+            case DRAW -> "1/2-1/2";
+        };
+    }
+
+    /**
+     * Sets the searcher used by {@link #analyzeGame}
+     */
+    public void setAnalyzer(ParallelSearcher analyzer) {
+        this.analyzer = analyzer;
+    }
+
+    public ParallelSearcher getAnalyzer() {
+        return analyzer;
+    }
+
+    /**
+     * Searches for the best move in a game's current position. The game itself
+     * is not changed.
+     *
+     * @return the best move for the team whose turn it is, and its score
+     */
+    public SearchResult analyzeGame(String authToken, int gameId, SearchLimits limits) throws ResponseException {
+        if (!validateAuthToken(authToken)) {
+            throw new ResponseException(401, "Invalid auth token");
+        }
+        ParallelSearcher searcher = analyzer;
+        if (searcher == null) {
+            throw new ResponseException(503, "Analysis is not available");
+        }
+        ChessGame game = getGame(gameId);
+        SearchResult result = searcher.search(game, limits);
+        LOG.debug("Analyzed game {} to depth {} ({} nodes in {}ms)",
+                gameId, result.depth(), result.nodes(), result.elapsedMillis());
+        return result;
+    }
+
+    public void setOpeningBook(OpeningBook openingBook) {
+        this.openingBook = openingBook;
+    }
+
+    public OpeningBook getOpeningBook() {
+        return openingBook;
+    }
+
+    /**
+     * @return one game with its position, for a player or observer opening it
+     */
+    public ChessGame getGame(String authToken, int gameId) throws ResponseException {
+        if (!validateAuthToken(authToken)) {
+            throw new ResponseException(401, "Invalid auth token");
+        }
+        ChessGame game = getGame(gameId);
+        return game;
+    }
+
+    /**
+     * @return the opening book's moves for a game's current position, best
+     * first, or an empty list if there is no book or the position isn't in it
+     */
+    public List<OpeningBook.BookMove> getBookMoves(String authToken, int gameId) throws ResponseException {
+        if (!validateAuthToken(authToken)) {
+            throw new ResponseException(401, "Invalid auth token");
+        }
+        ChessGame game = getGame(gameId);
+        OpeningBook book = openingBook;
+        return book == null ? List.of() : book.lookup(game);
+    }
+
+    /**
+     * @return the name of the opening a game is in, or null if its position isn't a named one
+     */
+    public String getOpeningName(ChessGame game) {
+        return game == null ? null : OpeningNames.standard().nameOf(game);
+    }
+
+    /**
+     * Ends a game whose result the tablebase already knows, so it isn't played
+     * out move by move. The game is saved as over.
+     *
+     * @return the result for the team to move, or null if the game goes on
+     */
+    public Tablebase.Outcome adjudicate(int gameId, ChessGame game) {
+        if (game.getGameOver()) {
+            return null;
+        }
+        Tablebase.Outcome outcome = game.probeTablebase();
+        if (outcome != null) {
+            game.setGameOver(true);
+            saveGame(gameId, game);
+            LOG.debug("Adjudicated game {}: {} for {}", gameId, outcome, game.getTeamTurn());
+        }
+        return outcome;
     }
 
     public void clear() throws ResponseException{
@@ -68,19 +363,25 @@ public class ChessService {
     }
 
     public boolean joinGame(String authToken, String gameID, String playerColor) throws ResponseException{
-        System.out.println("in service Join game" + "playerColor" + playerColor);
         return dataAccess.joinGame(authToken, gameID, playerColor);
     }
 
+    /**
+     * @throws ResponseException 404 if there is no such game, 500 if the store couldn't be read
+     */
     public ChessGame getGame(Integer gameID) throws ResponseException {
         try {
             return dataAccess.getGame(gameID);
         } catch (DataAccessException e) {
+            // Stores report a missing game the same way as a failed read, so tell them apart
+            if (gameID != null && dataAccess.getGameSummary(gameID) == null) {
+                throw new ResponseException(404, "Game not found");
+            }
             throw new ResponseException(500, "Unable to fetch game: " + e.getMessage());
         }
     }
 
-    public ChessGame.TeamColor getPlayerColor(String auth, GameData game) {
+    public ChessGame.TeamColor getPlayerColor(String auth, GameSummary game) {
         try {
             String username = getUsernameFromAuth(auth);
             if (game.whiteUsername() != null && game.whiteUsername().equals(username)) {
@@ -99,7 +400,7 @@ public class ChessService {
         try {
            dataAccess.saveGame(gameId, chessGame);
         } catch (Exception e) {
-            e.printStackTrace();
+            LOG.error("Unable to save game {}", gameId, e);
         }
     }
 
@@ -129,9 +430,6 @@ public class ChessService {
 
         // 2. Get the game
         ChessGame game = getGame(gameId);
-        if (game == null) {
-            throw new ResponseException(404, "Game not found");
-        }
 
         // 3. Check if the game is over
         if (isGameResigned(gameId) || game.getGameOver()) {
@@ -139,12 +437,12 @@ public class ChessService {
         }
 
         // 4. Get the user's team color
-        GameData gameData = ALL_GAME_DATA.stream()
-                .filter(g -> g.gameID() == gameId)
-                .findFirst()
-                .orElseThrow(() -> new ResponseException(404, "Game data not found"));
+        GameSummary summary = dataAccess.getGameSummary(gameId);
+        if (summary == null) {
+            throw new ResponseException(404, "Game data not found");
+        }
 
-        ChessGame.TeamColor playerColor = getPlayerColor(authToken, gameData);
+        ChessGame.TeamColor playerColor = getPlayerColor(authToken, summary);
         if (playerColor == null) {
             throw new ResponseException(403, "Observers cannot make moves");
         }
@@ -163,6 +461,9 @@ public class ChessService {
 
         // 7. Save the game back to the database
         saveGame(gameId, game);
+
+        // 8. End the game now if the tablebase already knows how it finishes
+        adjudicate(gameId, game);
     }
 
 }
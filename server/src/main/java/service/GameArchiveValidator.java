@@ -0,0 +1,249 @@
+package service;
+
+import chess.AttackTables;
+import chess.Bitboards;
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.LegalMoveGenerator;
+import chess.MoveList;
+import chess.Perft;
+import model.GameData;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Audits stored games in parallel on a {@link ForkJoinPool}.
+ * <p>
+ * The game list is split in halves until each task holds a handful of games.
+ * Every game is checked on its own copy of the board, since {@link ChessGame}
+ * and {@link ChessBoard} keep mutable state that can't be shared between
+ * threads. A game passes when its position could have come from legal play:
+ * one king per team, no pawns on the first or last row, and the team that just
+ * moved not left in check. The legal move tree is then walked a few plies
+ * deep, making and taking back every move, to confirm the position plays
+ * cleanly. When there are enough plies left, each root move gets its own task,
+ * so a single deep game still uses every core.
+ */
+public class GameArchiveValidator {
+
+    private static final int GAMES_PER_TASK = 8;
+    private static final int MIN_SPLIT_DEPTH = 3;
+
+    /**
+     * @param gamesChecked number of games looked at
+     * @param problems     one line per problem found, starting with the game ID
+     * @param elapsedNanos wall clock time the validation took
+     */
+    public record Report(int gamesChecked, List<String> problems, long elapsedNanos) {
+
+        public boolean isClean() {
+            return problems.isEmpty();
+        }
+
+        public double gamesPerSecond() {
+            return gamesChecked / Math.max(elapsedNanos / 1e9, 1e-9);
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private final int walkDepth;
+
+    /**
+     * @param pool      the pool to run on
+     * @param walkDepth plies of the legal move tree to play through from each
+     *                  stored position, 0 to only check the position itself
+     */
+    public GameArchiveValidator(ForkJoinPool pool, int walkDepth) {
+        if (walkDepth < 0) {
+            throw new IllegalArgumentException("walkDepth must not be negative");
+        }
+        this.pool = pool;
+        this.walkDepth = walkDepth;
+    }
+
+    public GameArchiveValidator() {
+        this(ForkJoinPool.commonPool(), 2);
+    }
+
+    public Report validate(Collection<GameData> games) {
+        GameData[] gameArray = games.toArray(new GameData[0]);
+        Queue<String> problems = new ConcurrentLinkedQueue<>();
+        long start = System.nanoTime();
+        pool.invoke(new GamesTask(gameArray, 0, gameArray.length, problems));
+        long elapsed = System.nanoTime() - start;
+
+        List<String> sorted = new ArrayList<>(problems);
+        sorted.sort(null);
+        return new Report(gameArray.length, sorted, elapsed);
+    }
+
+    private class GamesTask extends RecursiveAction {
+        private final GameData[] games;
+        private final int from;
+        private final int to;
+        private final Queue<String> problems;
+
+        GamesTask(GameData[] games, int from, int to, Queue<String> problems) {
+            this.games = games;
+            this.from = from;
+            this.to = to;
+            this.problems = problems;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= GAMES_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    validateGame(games[i], problems);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new GamesTask(games, from, middle, problems),
+                    new GamesTask(games, middle, to, problems));
+        }
+    }
+
+    private void validateGame(GameData gameData, Queue<String> problems) {
+        String prefix = "Game " + gameData.gameID() + ": ";
+        if (gameData.game() == null) {
+            problems.add(prefix + "no stored game");
+            return;
+        }
+        ChessGame game = copyOf(gameData.game());
+        String problem = checkPosition(game);
+        if (problem != null) {
+            problems.add(prefix + problem);
+            return;
+        }
+        if (walkDepth == 0) {
+            return;
+        }
+
+        ChessBoard board = game.getBoard();
+        MoveList rootMoves = new MoveList();
+        LegalMoveGenerator generator = new LegalMoveGenerator();
+        generator.analyze(board, game.getTeamTurn());
+        generator.generate(rootMoves);
+        if (walkDepth < MIN_SPLIT_DEPTH) {
+            for (int i = 0; i < rootMoves.size(); i++) {
+                new Walker(board).walkMove(rootMoves.get(i), game.getTeamTurn(), walkDepth, prefix, problems);
+            }
+            return;
+        }
+        List<RootMoveTask> tasks = new ArrayList<>();
+        for (int i = 0; i < rootMoves.size(); i++) {
+            tasks.add(new RootMoveTask(game, rootMoves.get(i), prefix, problems));
+        }
+        RecursiveAction.invokeAll(tasks);
+    }
+
+    /**
+     * Walks the tree below one root move on a board of its own
+     */
+    private class RootMoveTask extends RecursiveAction {
+        private final ChessGame game;
+        private final int move;
+        private final String prefix;
+        private final Queue<String> problems;
+
+        RootMoveTask(ChessGame game, int move, String prefix, Queue<String> problems) {
+            this.game = game;
+            this.move = move;
+            this.prefix = prefix;
+            this.problems = problems;
+        }
+
+        @Override
+        protected void compute() {
+            ChessGame copy = copyOf(game);
+            new Walker(copy.getBoard()).walkMove(move, copy.getTeamTurn(), walkDepth, prefix, problems);
+        }
+    }
+
+    /**
+     * Plays every legal move to a fixed depth on one board, checking that no
+     * move leaves the mover in check and that taking it back restores the position
+     */
+    private static class Walker {
+        private final ChessBoard board;
+        private final LegalMoveGenerator generator = new LegalMoveGenerator();
+
+        Walker(ChessBoard board) {
+            this.board = board;
+        }
+
+        void walkMove(int move, ChessGame.TeamColor color, int depth, String prefix, Queue<String> problems) {
+            long key = board.getPositionKey();
+            board.makeMove(move);
+            String problem = null;
+            if (kingAttacked(color)) {
+                problem = "move " + Perft.moveName(move) + " leaves the king in check";
+            } else if (depth > 1) {
+                MoveList replies = new MoveList();
+                ChessGame.TeamColor opponent = opposite(color);
+                generator.analyze(board, opponent);
+                generator.generate(replies);
+                for (int i = 0; i < replies.size(); i++) {
+                    walkMove(replies.get(i), opponent, depth - 1, prefix, problems);
+                }
+            }
+            board.unmakeMove();
+            if (problem == null && board.getPositionKey() != key) {
+                problem = "taking back " + Perft.moveName(move) + " does not restore the position";
+            }
+            if (problem != null) {
+                problems.add(prefix + problem);
+            }
+        }
+
+        private boolean kingAttacked(ChessGame.TeamColor color) {
+            Bitboards bitboards = board.getBitboards();
+            int king = Bitboards.firstSquare(bitboards.pieces(color, ChessPiece.PieceType.KING));
+            return king >= 0 && AttackTables.isAttacked(bitboards, king, opposite(color));
+        }
+    }
+
+    /**
+     * @return a description of what makes the position impossible, or null if it looks legal
+     */
+    private static String checkPosition(ChessGame game) {
+        Bitboards bitboards = game.getBoard().getBitboards();
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            int kings = Long.bitCount(bitboards.pieces(color, ChessPiece.PieceType.KING));
+            if (kings != 1) {
+                return color + " has " + kings + " kings";
+            }
+        }
+        long backRows = 0xFFL | (0xFFL << 56);
+        long pawns = bitboards.pieces(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN)
+                | bitboards.pieces(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
+        if ((pawns & backRows) != 0) {
+            return "pawn on the first or last row";
+        }
+        ChessGame.TeamColor justMoved = opposite(game.getTeamTurn());
+        if (game.isInCheck(justMoved)) {
+            return justMoved + " is in check but it is " + game.getTeamTurn() + "'s turn";
+        }
+        return null;
+    }
+
+    private static ChessGame copyOf(ChessGame stored) {
+        ChessGame copy = new ChessGame();
+        copy.setBoard(stored.getBoard());
+        copy.setTeamTurn(stored.getTeamTurn());
+        copy.setGameOver(stored.getGameOver());
+        return copy;
+    }
+
+    private static ChessGame.TeamColor opposite(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+}
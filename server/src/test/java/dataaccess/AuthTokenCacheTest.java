@@ -0,0 +1,119 @@
+package dataaccess;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import model.UserData;
+import org.junit.jupiter.api.Test;
+import responsesandexceptions.UserResponse;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AuthTokenCacheTest {
+
+    @Test
+    void remembersTokensUntilInvalidated() {
+        AuthTokenCache cache = new AuthTokenCache(Duration.ofMinutes(1), 10);
+        assertNull(cache.get("token"));
+        assertTrue(cache.put("token", "alice", cache.version()));
+        assertEquals("alice", cache.get("token"));
+
+        cache.invalidate("token");
+        assertNull(cache.get("token"));
+        assertNull(cache.get(null));
+
+        AuthTokenCache.Stats stats = cache.stats();
+        assertEquals(1, stats.hits());
+        assertEquals(3, stats.misses());
+        assertEquals(0.25, stats.hitRate());
+    }
+
+    @Test
+    void dropsReadsThatRacedWithAnInvalidation() {
+        AuthTokenCache cache = new AuthTokenCache(Duration.ofMinutes(1), 10);
+        long version = cache.version();
+        // A logout lands while the database read that found the token is still running
+        cache.invalidate("token");
+        assertFalse(cache.put("token", "alice", version));
+        assertNull(cache.get("token"));
+
+        version = cache.version();
+        cache.clear();
+        assertFalse(cache.put("other", "bob", version));
+    }
+
+    @Test
+    void expiresEntries() throws InterruptedException {
+        AuthTokenCache cache = new AuthTokenCache(Duration.ofMillis(20), 10);
+        cache.put("token", "alice", cache.version());
+        Thread.sleep(40);
+        assertNull(cache.get("token"));
+        assertEquals(0, cache.stats().size());
+        assertEquals(1, cache.stats().evictions());
+    }
+
+    @Test
+    void evictsOldestEntriesWhenFull() throws InterruptedException {
+        AuthTokenCache cache = new AuthTokenCache(Duration.ofMinutes(1), 8);
+        for (int i = 0; i < 8; i++) {
+            cache.put("token" + i, "user" + i, cache.version());
+            Thread.sleep(1);
+        }
+        assertEquals(8, cache.stats().size());
+
+        cache.put("token8", "user8", cache.version());
+        assertEquals(6, cache.stats().size());
+        assertNull(cache.get("token0"));
+        assertNull(cache.get("token2"));
+        assertEquals("user3", cache.get("token3"));
+        assertEquals("user8", cache.get("token8"));
+    }
+
+    @Test
+    void cachesTokensInFrontOfAnyDataAccess() throws Exception {
+        AuthTokenCache cache = new AuthTokenCache(Duration.ofMinutes(1), 10);
+        CachingDataAccess dataAccess = new CachingDataAccess(new MemoryDataAccess(), cache);
+
+        UserResponse registered = dataAccess.addUser(new UserData("alice", "secret", "alice@example.com"));
+        String token = registered.getAuthToken();
+        assertTrue(dataAccess.validateAuthToken(token));
+        assertEquals("alice", dataAccess.getUsernameFromAuth(token));
+        assertEquals(2, cache.stats().hits());
+
+        dataAccess.logout(token);
+        assertFalse(dataAccess.validateAuthToken(token));
+
+        String loggedIn = dataAccess.login("alice", "secret").getAuthToken();
+        assertEquals("alice", cache.get(loggedIn));
+        dataAccess.clear();
+        assertFalse(dataAccess.validateAuthToken(loggedIn));
+        assertEquals(0, cache.stats().size());
+    }
+
+    @Test
+    void checksTokensInTheStoreOnce() throws Exception {
+        AtomicInteger storeChecks = new AtomicInteger();
+        MemoryDataAccess store = new MemoryDataAccess() {
+            @Override
+            public boolean validateAuthToken(String authToken) {
+                storeChecks.incrementAndGet();
+                return super.validateAuthToken(authToken);
+            }
+
+            @Override
+            public String getUsernameFromAuth(String token) {
+                return "alice";
+            }
+        };
+        String token = store.addUser(new UserData("alice", "secret", "alice@example.com")).getAuthToken();
+        AuthTokenCache cache = new AuthTokenCache(Duration.ofMinutes(1), 10);
+        CachingDataAccess dataAccess = new CachingDataAccess(store, cache);
+
+        assertTrue(dataAccess.validateAuthToken(token));
+        assertEquals("alice", cache.get(token));
+        dataAccess.createGame("game", token);
+        assertEquals(1, dataAccess.listGames(token).size());
+        assertEquals(1, dataAccess.listGameSummaries(token).size());
+        assertEquals(1, storeChecks.get());
+    }
+}
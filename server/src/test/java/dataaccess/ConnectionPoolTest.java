@@ -0,0 +1,177 @@
+package dataaccess;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ConnectionPoolTest {
+
+    /**
+     * State of a fake physical connection
+     */
+    private static class Fake {
+        boolean closed;
+        boolean valid = true;
+        boolean autoCommit = true;
+        int rollbacks;
+
+        Connection connection() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> switch (method.getName()) {
+                        case "close" -> {
+                            closed = true;
+                            yield null;
+                        }
+                        case "isClosed" -> closed;
+                        case "isValid" -> valid && !closed;
+                        case "getAutoCommit" -> autoCommit;
+                        case "setAutoCommit" -> {
+                            autoCommit = (Boolean) args[0];
+                            yield null;
+                        }
+                        case "rollback" -> {
+                            rollbacks++;
+                            yield null;
+                        }
+                        default -> null;
+                    });
+        }
+    }
+
+    private final List<Fake> opened = new ArrayList<>();
+    private ConnectionPool pool;
+
+    private ConnectionPool pool(int minIdle, int maxSize, long idleTimeoutMillis, long leakThresholdMillis) {
+        pool = new ConnectionPool(() -> {
+            Fake fake = new Fake();
+            opened.add(fake);
+            return fake.connection();
+        }, new ConnectionPool.Settings(minIdle, maxSize, idleTimeoutMillis, 50, leakThresholdMillis));
+        return pool;
+    }
+
+    @AfterEach
+    void closePool() {
+        pool.close();
+    }
+
+    @Test
+    void reusesConnections() throws SQLException {
+        ConnectionPool pool = pool(0, 4, 60_000, 0);
+        try (Connection conn = pool.getConnection()) {
+            assertFalse(conn.isClosed());
+        }
+        try (Connection conn = pool.getConnection()) {
+            assertFalse(conn.isClosed());
+        }
+        assertEquals(1, opened.size());
+        assertFalse(opened.get(0).closed);
+        ConnectionPool.Stats stats = pool.stats();
+        assertEquals(2, stats.borrows());
+        assertEquals(1, stats.open());
+        assertEquals(1, stats.idle());
+    }
+
+    @Test
+    void waitsForAFreeConnectionThenGivesUp() throws SQLException {
+        ConnectionPool pool = pool(0, 1, 60_000, 0);
+        Connection held = pool.getConnection();
+        assertThrows(SQLException.class, pool::getConnection);
+        assertEquals(1, pool.stats().timeouts());
+        assertTrue(pool.stats().maxWaitNanos() > 0);
+
+        held.close();
+        try (Connection conn = pool.getConnection()) {
+            assertFalse(conn.isClosed());
+        }
+        assertEquals(1, opened.size());
+    }
+
+    @Test
+    void closedHandleCanNotBeUsedOrReturnedTwice() throws SQLException {
+        ConnectionPool pool = pool(0, 1, 60_000, 0);
+        Connection conn = pool.getConnection();
+        conn.close();
+        conn.close();
+        assertTrue(conn.isClosed());
+        assertThrows(SQLException.class, conn::createStatement);
+
+        // A second close must not have freed a second slot
+        Connection next = pool.getConnection();
+        assertThrows(SQLException.class, pool::getConnection);
+        next.close();
+    }
+
+    @Test
+    void rollsBackUnfinishedTransactions() throws SQLException {
+        ConnectionPool pool = pool(0, 1, 60_000, 0);
+        try (Connection conn = pool.getConnection()) {
+            conn.setAutoCommit(false);
+        }
+        assertEquals(1, opened.get(0).rollbacks);
+        assertTrue(opened.get(0).autoCommit);
+    }
+
+    @Test
+    void replacesConnectionsThatWentBad() throws SQLException, InterruptedException {
+        ConnectionPool pool = pool(0, 2, 60_000, 0);
+        pool.getConnection().close();
+        opened.get(0).valid = false;
+        // Only connections idle for a while are checked
+        Thread.sleep(600);
+        try (Connection conn = pool.getConnection()) {
+            assertFalse(conn.isClosed());
+        }
+        assertEquals(2, opened.size());
+        assertTrue(opened.get(0).closed);
+        assertEquals(1, pool.stats().open());
+    }
+
+    @Test
+    void evictsIdleConnectionsDownToMinimum() throws SQLException {
+        ConnectionPool pool = pool(1, 4, 0, 0);
+        Connection a = pool.getConnection();
+        Connection b = pool.getConnection();
+        Connection c = pool.getConnection();
+        a.close();
+        b.close();
+        c.close();
+        assertEquals(3, pool.stats().idle());
+
+        pool.housekeep();
+        assertEquals(1, pool.stats().idle());
+        assertEquals(1, pool.stats().open());
+        assertEquals(2, opened.stream().filter(fake -> fake.closed).count());
+    }
+
+    @Test
+    void reportsLeakedConnectionsOnce() throws SQLException, InterruptedException {
+        ConnectionPool pool = pool(0, 2, 60_000, 1);
+        Connection leaked = pool.getConnection();
+        Thread.sleep(10);
+        pool.housekeep();
+        pool.housekeep();
+        assertEquals(1, pool.stats().leaks());
+        leaked.close();
+    }
+
+    @Test
+    void closingThePoolClosesConnections() throws SQLException {
+        ConnectionPool pool = pool(0, 2, 60_000, 0);
+        Connection held = pool.getConnection();
+        pool.getConnection().close();
+        pool.close();
+        assertTrue(opened.get(1).closed);
+        assertFalse(opened.get(0).closed);
+        held.close();
+        assertTrue(opened.get(0).closed);
+        assertThrows(SQLException.class, pool::getConnection);
+    }
+}
@@ -5,6 +5,11 @@ import responsesandexceptions.ResponseException;
 import responsesandexceptions.UserResponse;
 import model.UserData;
 import model.GameData;
+import model.GameSummary;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.book.OpeningNames;
 import org.junit.jupiter.api.*;
 
 import java.util.Collection;
@@ -112,6 +117,29 @@ public class JUnitTests {
         assertThrows(ResponseException.class, () -> dao.listGames("fake-token"));
     }
 
+    @Test
+    void listGameSummariesPositive() throws Exception {
+        UserData user = new UserData("hermione", "pw", "hermione@mail.com");
+        dao.addUser(user);
+        String token = dao.addAuthToken(user);
+        int gameID = Integer.parseInt(dao.createGame("G1", token));
+        ChessGame game = dao.getGame(gameID);
+        game.makeMove(new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        dao.saveGame(gameID, game);
+
+        GameSummary summary = dao.listGameSummaries(token).iterator().next();
+        assertEquals(gameID, summary.gameID());
+        assertEquals("G1", summary.gameName());
+        assertEquals(ChessGame.TeamColor.BLACK, summary.teamTurn());
+        assertFalse(summary.gameOver());
+        assertEquals(OpeningNames.standard().nameOf(game), summary.opening());
+    }
+
+    @Test
+    void listGameSummariesNegativeInvalidToken() {
+        assertThrows(ResponseException.class, () -> dao.listGameSummaries("fake-token"));
+    }
+
     @Test
     void addAuthTokenPositive() throws Exception {
         UserData user = new UserData("authme", "pw", "authme@mail.com");
@@ -164,6 +192,33 @@ public class JUnitTests {
         assertEquals(401, exception.getStatusCode());
     }
 
+    @Test
+    void saveGamePositive() throws Exception {
+        UserData user = new UserData("jack", "pw", "jack@mail.com");
+        dao.addUser(user);
+        int gameID = Integer.parseInt(dao.createGame("G1", dao.addAuthToken(user)));
+
+        ChessGame game = dao.getGame(gameID);
+        for (int col = 1; col <= 8; col++) {
+            game.makeMove(new ChessMove(ChessPosition.of(2, col), ChessPosition.of(3, col), null));
+            game.makeMove(new ChessMove(ChessPosition.of(7, col), ChessPosition.of(6, col), null));
+            dao.saveGame(gameID, game);
+        }
+        // Another DAO rebuilds the game from the snapshot and the moves after it
+        assertEquals(game.toFen(), new UserDataBaseAccess().getGame(gameID).toFen());
+
+        game.setGameOver(true);
+        dao.saveGame(gameID, game);
+        ChessGame reloaded = new UserDataBaseAccess().getGame(gameID);
+        assertTrue(reloaded.getGameOver());
+        assertEquals(game.toFen(), reloaded.toFen());
+    }
+
+    @Test
+    void saveGameNegativeGameNotFound() {
+        assertThrows(DataAccessException.class, () -> dao.saveGame(-1, new ChessGame()));
+    }
+
     @Test
     void clearPositive() throws Exception {
         UserData user = new UserData("ivy", "pw", "ivy@mail.com");
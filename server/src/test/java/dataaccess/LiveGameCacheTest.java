@@ -0,0 +1,166 @@
+package dataaccess;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import model.AuthData;
+import model.GameData;
+import model.GameSummary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import responsesandexceptions.DataAccessException;
+
+import java.time.Duration;
+
+public class LiveGameCacheTest {
+
+    /**
+     * Counts the reads and writes that reach it
+     */
+    private static class CountingStore extends MemoryDataAccess {
+        int reads;
+        volatile int writes;
+        boolean failing;
+
+        @Override
+        public ChessGame getGame(Integer gameID) throws DataAccessException {
+            reads++;
+            return super.getGame(gameID);
+        }
+
+        @Override
+        public void saveGame(Integer gameId, ChessGame chessGame) {
+            if (failing) {
+                throw new IllegalStateException("No game found with ID: " + gameId);
+            }
+            writes++;
+            super.saveGame(gameId, chessGame);
+        }
+    }
+
+    private final CountingStore store = new CountingStore();
+    private LiveGameCache cache;
+
+    @AfterEach
+    void closeCache() {
+        cache.close();
+    }
+
+    private int createGame() {
+        store.addAuthToken("token", new AuthData("token", "alice"));
+        return Integer.parseInt(store.createGame("game", "token"));
+    }
+
+    @Test
+    void readsEachGameFromTheStoreOnce() throws DataAccessException, InvalidMoveException {
+        cache = new LiveGameCache(store, 10, 60_000);
+        int gameID = createGame();
+        ChessGame first = cache.get(gameID);
+        first.makeMove(move(2, 5, 4, 5));
+        ChessGame second = cache.get(gameID);
+        assertEquals(1, store.reads);
+        // What a caller does to its copy isn't seen by the next one
+        assertEquals(ChessGame.TeamColor.WHITE, second.getTeamTurn());
+        assertEquals(1, cache.stats().hits());
+        assertEquals(1, cache.stats().misses());
+    }
+
+    @Test
+    void coalescesSavesUntilFlushed() throws DataAccessException, InvalidMoveException {
+        cache = new LiveGameCache(store, 10, 60_000);
+        int gameID = createGame();
+        ChessGame game = cache.get(gameID);
+        game.makeMove(move(2, 5, 4, 5));
+        cache.save(gameID, game);
+        game.makeMove(move(7, 5, 5, 5));
+        cache.save(gameID, game);
+        assertEquals(0, store.writes);
+        assertEquals(game.toFen(), cache.get(gameID).toFen());
+        assertEquals(1, cache.stats().dirty());
+
+        cache.flush();
+        cache.flush();
+        assertEquals(1, store.writes);
+        assertEquals(game.toFen(), store.getGame(gameID).toFen());
+        assertEquals(0, cache.stats().dirty());
+    }
+
+    @Test
+    void writesInTheBackground() throws DataAccessException, InvalidMoveException, InterruptedException {
+        cache = new LiveGameCache(store, 10, 10);
+        int gameID = createGame();
+        ChessGame game = cache.get(gameID);
+        game.makeMove(move(2, 5, 4, 5));
+        cache.save(gameID, game);
+        for (int i = 0; i < 100 && store.writes == 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, store.writes);
+        assertEquals(game.toFen(), store.getGame(gameID).toFen());
+    }
+
+    @Test
+    void writesFinishedGamesStraightAway() throws DataAccessException {
+        cache = new LiveGameCache(store, 10, 60_000);
+        int gameID = createGame();
+        ChessGame game = cache.get(gameID);
+        game.setGameOver(true);
+        cache.save(gameID, game);
+        assertEquals(1, store.writes);
+        assertTrue(store.getGame(gameID).getGameOver());
+    }
+
+    @Test
+    void givesUpOnGamesThatCanNotBeWritten() throws DataAccessException {
+        cache = new LiveGameCache(store, 10, 60_000);
+        int gameID = createGame();
+        cache.save(gameID, cache.get(gameID));
+        store.failing = true;
+        for (int i = 0; i < 4; i++) {
+            assertThrows(DataAccessException.class, cache::flush);
+            assertEquals(1, cache.stats().size());
+        }
+        assertThrows(DataAccessException.class, cache::flush);
+        assertEquals(0, cache.stats().size());
+        assertEquals(5, cache.stats().failures());
+        cache.flush();
+    }
+
+    @Test
+    void dropsOnlyCleanGamesWhenFull() throws DataAccessException {
+        cache = new LiveGameCache(store, 4, 60_000);
+        int dirtyGame = createGame();
+        cache.save(dirtyGame, cache.get(dirtyGame));
+        for (int i = 0; i < 4; i++) {
+            cache.get(createGame());
+        }
+        assertEquals(3, cache.stats().size());
+        assertNotNull(cache.peek(dirtyGame));
+        assertEquals(1, cache.stats().dirty());
+    }
+
+    @Test
+    void listsGamesAsHeldInMemory() throws Exception {
+        cache = new LiveGameCache(store, 10, 60_000);
+        CachingDataAccess dataAccess = new CachingDataAccess(store, new AuthTokenCache(Duration.ofMinutes(1), 10), cache);
+        int gameID = createGame();
+        ChessGame game = dataAccess.getGame(gameID);
+        game.makeMove(move(2, 5, 4, 5));
+        dataAccess.saveGame(gameID, game);
+
+        GameData listed = dataAccess.listGames("token").iterator().next();
+        assertEquals(game.toFen(), listed.game().toFen());
+        GameSummary summary = dataAccess.listGameSummaries("token").iterator().next();
+        assertEquals(ChessGame.TeamColor.BLACK, summary.teamTurn());
+
+        dataAccess.clear();
+        assertEquals(0, cache.stats().size());
+    }
+
+    private static ChessMove move(int fromRow, int fromCol, int toRow, int toCol) {
+        return new ChessMove(ChessPosition.of(fromRow, fromCol), ChessPosition.of(toRow, toCol), null);
+    }
+}
@@ -2,12 +2,26 @@ package service;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.Tablebase;
+import chess.InvalidMoveException;
+import chess.search.ParallelSearcher;
+import chess.search.SearchLimits;
+import chess.search.SearchResult;
 import responsesandexceptions.ResponseException;
 import responsesandexceptions.UserResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import dataaccess.*;
 import model.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.util.Collection;
 
 public class ChessServiceTest {
@@ -96,6 +110,26 @@ public class ChessServiceTest {
         assertNull(games);
     }
 
+    @Test
+    void getGameSummary() throws ResponseException {
+        dataAccess.addAuthToken(authToken, newAuthData);
+        String gameId = dataAccess.createGame("Chess Match", authToken);
+        ChessService service = new ChessService(dataAccess);
+
+        GameSummary summary = service.getGameSummary(authToken, Integer.parseInt(gameId));
+        assertEquals("Chess Match", summary.gameName());
+        assertEquals(ChessGame.TeamColor.WHITE, summary.teamTurn());
+        assertNull(service.getGameSummary(authToken, 0));
+    }
+
+    @Test
+    void getGameFailureUnknownGame() {
+        dataAccess.addAuthToken(authToken, newAuthData);
+        ChessService service = new ChessService(dataAccess);
+        ResponseException e = assertThrows(ResponseException.class, () -> service.getGame(authToken, 9999));
+        assertEquals(404, e.getStatusCode());
+    }
+
     @Test
     void clearSuccess() {
         dataAccess.addUser(user);
@@ -136,4 +170,123 @@ public class ChessServiceTest {
 
         assertThrows(IllegalArgumentException.class, () -> dataAccess.joinGame(response2.getAuthToken(), gameId, "WHITE"));
     }
+
+    @Test
+    void analyzeGameSuccess() throws ResponseException {
+        dataAccess.addAuthToken(authToken, newAuthData);
+        String gameId = dataAccess.createGame("Analysis", authToken);
+        ChessService service = new ChessService(dataAccess);
+        service.setAnalyzer(new ParallelSearcher(1, 1 << 20));
+
+        SearchResult result = service.analyzeGame(authToken, Integer.parseInt(gameId), SearchLimits.depth(3));
+        assertNotNull(result.bestMove());
+        assertEquals(3, result.depth());
+    }
+
+    @Test
+    void analyzeGameFailureInvalidAuth() {
+        ChessService service = new ChessService(dataAccess);
+        service.setAnalyzer(new ParallelSearcher(1, 1 << 20));
+        ResponseException e = assertThrows(ResponseException.class,
+                () -> service.analyzeGame("invalidToken", 1234, SearchLimits.depth(1)));
+        assertEquals(401, e.getStatusCode());
+    }
+
+    @Test
+    void analyzeGameFailureUnknownGame() {
+        dataAccess.addAuthToken(authToken, newAuthData);
+        ChessService service = new ChessService(dataAccess);
+        service.setAnalyzer(new ParallelSearcher(1, 1 << 20));
+        ResponseException e = assertThrows(ResponseException.class,
+                () -> service.analyzeGame(authToken, 9999, SearchLimits.depth(1)));
+        assertEquals(404, e.getStatusCode());
+    }
+
+    @Test
+    void bookMovesEmptyWithoutBook() throws ResponseException, InvalidMoveException {
+        dataAccess.addAuthToken(authToken, newAuthData);
+        String gameId = dataAccess.createGame("Book", authToken);
+        ChessService service = new ChessService(dataAccess);
+        assertTrue(service.getBookMoves(authToken, Integer.parseInt(gameId)).isEmpty());
+
+        ChessGame game = new ChessGame();
+        assertNull(service.getOpeningName(game));
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        assertEquals("King's Pawn Opening", service.getOpeningName(game));
+    }
+
+    @Test
+    void bookMovesFailureUnknownGame() {
+        dataAccess.addAuthToken(authToken, newAuthData);
+        ChessService service = new ChessService(dataAccess);
+        ResponseException e = assertThrows(ResponseException.class, () -> service.getBookMoves(authToken, 9999));
+        assertEquals(404, e.getStatusCode());
+    }
+
+    @Test
+    void adjudicateEndsDeadDrawnGame() throws ResponseException {
+        dataAccess.addAuthToken(authToken, newAuthData);
+        String gameId = dataAccess.createGame("Bare kings", authToken);
+        ChessService service = new ChessService(dataAccess);
+        ChessGame game = service.getGame(Integer.parseInt(gameId));
+
+        ChessGame.setTablebase(Tablebase.empty());
+        try {
+            assertNull(service.adjudicate(Integer.parseInt(gameId), game));
+            assertFalse(game.getGameOver());
+
+            ChessBoard board = new ChessBoard();
+            board.addPiece(new ChessPosition(1, 5), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+            board.addPiece(new ChessPosition(8, 5), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+            game.setBoard(board);
+            assertEquals(Tablebase.Outcome.DRAW, service.adjudicate(Integer.parseInt(gameId), game));
+            assertTrue(game.getGameOver());
+        } finally {
+            ChessGame.setTablebase(null);
+        }
+    }
+
+    @Test
+    void importAndExportPgn() throws ResponseException, IOException {
+        dataAccess.addAuthToken(authToken, newAuthData);
+        ChessService service = new ChessService(dataAccess);
+        String pgn = """
+                [White "Anderssen"]
+                [Black "Kieseritzky"]
+
+                1. e4 e5 2. f4 exf4 3. Bc4 Qh4+ *
+
+                [Event "Broken"]
+
+                1. e4 e4 *
+
+                [Event "Scholar's Mate"]
+
+                1. e4 e5 2. Bc4 Nc6 3. Qh5 Nf6 4. Qxf7# 1-0
+                """;
+        ChessService.ImportReport report = service.importGames(authToken, new StringReader(pgn));
+        assertEquals(2, report.imported());
+        assertEquals(1, report.skipped());
+        assertEquals(1, report.problems().size());
+
+        Collection<GameData> games = dataAccess.listGames(authToken);
+        GameData open = games.stream().filter(g -> g.gameName().equals("Anderssen vs Kieseritzky")).findFirst().orElseThrow();
+        assertFalse(open.game().getGameOver());
+        assertTrue(open.game().isInCheck(ChessGame.TeamColor.WHITE));
+        GameData mate = games.stream().filter(g -> g.gameName().equals("Scholar's Mate")).findFirst().orElseThrow();
+        assertTrue(mate.game().getGameOver());
+
+        StringWriter out = new StringWriter();
+        service.exportGames(authToken, out);
+        String exported = out.toString();
+        assertTrue(exported.contains("[Event \"Scholar's Mate\"]"), exported);
+        assertTrue(exported.contains("[Result \"1-0\"]"), exported);
+        assertTrue(exported.contains("4. Qxf7# 1-0"), exported);
+        assertFalse(exported.contains("[FEN "), exported);
+        assertTrue(exported.contains("[Event \"Anderssen vs Kieseritzky\"]"), exported);
+
+        ResponseException e = assertThrows(ResponseException.class,
+                () -> service.importGames("invalidToken", new StringReader(pgn)));
+        assertEquals(401, e.getStatusCode());
+    }
 }
@@ -0,0 +1,71 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import model.GameData;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+public class GameArchiveValidatorTest {
+
+    @Test
+    void validGamesAreClean() throws InvalidMoveException {
+        List<GameData> games = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            ChessGame game = new ChessGame();
+            if (i % 2 == 1) {
+                game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+            }
+            games.add(new GameData(i, "white", "black", "game" + i, game));
+        }
+
+        GameArchiveValidator.Report report = new GameArchiveValidator(new ForkJoinPool(4), 3).validate(games);
+
+        assertTrue(report.isClean(), report.problems().toString());
+        assertEquals(40, report.gamesChecked());
+        assertTrue(report.gamesPerSecond() > 0);
+    }
+
+    @Test
+    void impossiblePositionsAreReported() {
+        ChessGame missingKing = new ChessGame();
+        missingKing.getBoard().addPiece(new ChessPosition(8, 5), null);
+        ChessGame backRowPawn = new ChessGame();
+        backRowPawn.getBoard().addPiece(new ChessPosition(8, 1),
+                new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        // White to move while black is still in check from the rook
+        ChessGame wrongTurn = ChessGame.fromFen("4k3/8/8/8/8/8/8/K3R3 w");
+
+        List<GameData> games = List.of(
+                new GameData(1, null, null, "missing king", missingKing),
+                new GameData(2, null, null, "back row pawn", backRowPawn),
+                new GameData(3, null, null, "wrong turn", wrongTurn),
+                new GameData(4, null, null, "no game", null));
+
+        GameArchiveValidator.Report report = new GameArchiveValidator().validate(games);
+
+        assertEquals(4, report.problems().size());
+        assertTrue(report.problems().get(0).startsWith("Game 1: BLACK has 0 kings"));
+        assertTrue(report.problems().get(1).startsWith("Game 2: pawn"));
+        assertTrue(report.problems().get(2).startsWith("Game 3: BLACK is in check"));
+        assertEquals("Game 4: no stored game", report.problems().get(3));
+    }
+
+    @Test
+    void storedGamesAreNotModified() {
+        ChessGame game = new ChessGame();
+        long key = game.getPositionKey();
+        new GameArchiveValidator(ForkJoinPool.commonPool(), 3)
+                .validate(List.of(new GameData(1, null, null, "game", game)));
+        assertEquals(key, game.getPositionKey());
+        assertEquals(0, game.getBoard().getUndoDepth());
+    }
+}
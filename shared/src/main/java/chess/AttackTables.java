@@ -0,0 +1,264 @@
+package chess;
+
+/**
+ * Precomputed attack masks for every piece type, using the square numbering
+ * from {@link Bitboards}.
+ * <p>
+ * Knights, kings and pawns use plain per-square lookup tables. Rooks and bishops
+ * use magic bitboards: the blockers on a piece's rays are multiplied by a magic
+ * number so the top bits form a perfect index into a per-square attack table.
+ * The magics are found once, when the class is loaded, with a fixed seed so the
+ * tables are the same on every run.
+ */
+public final class AttackTables {
+
+    private static final long[] KNIGHT = new long[64];
+    private static final long[] KING = new long[64];
+    private static final long[][] PAWN = new long[2][64];
+
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] ROOK_MAGICS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final long[][] ROOK_ATTACKS = new long[64][];
+
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final long[] BISHOP_MAGICS = new long[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final long[][] BISHOP_ATTACKS = new long[64][];
+
+    private static final long[][] BETWEEN = new long[64][64];
+
+    private static long seed = 0x2545F4914F6CDD1DL;
+
+    static {
+        int[][] knightSteps = {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
+        int[][] kingSteps = {{1, 0}, {1, 1}, {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}, {0, -1}, {1, -1}};
+        for (int square = 0; square < 64; square++) {
+            KNIGHT[square] = stepAttacks(square, knightSteps);
+            KING[square] = stepAttacks(square, kingSteps);
+            PAWN[Bitboards.WHITE][square] = stepAttacks(square, new int[][]{{1, 1}, {1, -1}});
+            PAWN[Bitboards.BLACK][square] = stepAttacks(square, new int[][]{{-1, 1}, {-1, -1}});
+        }
+        for (int square = 0; square < 64; square++) {
+            initBetween(square, ROOK_DIRECTIONS);
+            initBetween(square, BISHOP_DIRECTIONS);
+        }
+        for (int square = 0; square < 64; square++) {
+            initMagic(square, ROOK_DIRECTIONS, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_ATTACKS);
+            initMagic(square, BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_ATTACKS);
+        }
+    }
+
+    private AttackTables() {
+
+    }
+
+    public static long knightAttacks(int square) {
+        return KNIGHT[square];
+    }
+
+    public static long kingAttacks(int square) {
+        return KING[square];
+    }
+
+    /**
+     * @return the squares a pawn of the given color standing on square captures on
+     */
+    public static long pawnAttacks(ChessGame.TeamColor color, int square) {
+        return PAWN[Bitboards.colorIndex(color)][square];
+    }
+
+    public static long rookAttacks(int square, long occupied) {
+        int index = (int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square]);
+        return ROOK_ATTACKS[square][index];
+    }
+
+    public static long bishopAttacks(int square, long occupied) {
+        int index = (int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square]);
+        return BISHOP_ATTACKS[square][index];
+    }
+
+    public static long queenAttacks(int square, long occupied) {
+        return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+    }
+
+    /**
+     * @return the squares strictly between two squares on the same row, column or
+     * diagonal, or an empty mask if they do not share a line
+     */
+    public static long between(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    /**
+     * @return the squares a piece of the given type standing on square attacks
+     */
+    public static long attacks(ChessPiece.PieceType type, ChessGame.TeamColor color, int square, long occupied) {
+        return switch (type) {
+            case KING -> kingAttacks(square);
+            case QUEEN -> queenAttacks(square, occupied);
+            case BISHOP -> bishopAttacks(square, occupied);
+            case KNIGHT -> knightAttacks(square);
+            case ROOK -> rookAttacks(square, occupied);
+            case PAWN -> pawnAttacks(color, square);
+        };
+    }
+
+    /**
+     * Determines if any piece of the attacking team attacks a square
+     *
+     * @param bitboards     the position to look at
+     * @param square        the square that may be attacked
+     * @param attackerColor the team doing the attacking
+     * @return True if the square is attacked
+     */
+    public static boolean isAttacked(Bitboards bitboards, int square, ChessGame.TeamColor attackerColor) {
+        return attackersTo(bitboards, square, attackerColor, bitboards.allPieces()) != 0;
+    }
+
+    /**
+     * @return mask of every piece of the attacking team that attacks square, with
+     * sliding pieces blocked by the given occupancy
+     */
+    public static long attackersTo(Bitboards bitboards, int square, ChessGame.TeamColor attackerColor, long occupied) {
+        ChessGame.TeamColor defenderColor = attackerColor == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        long queens = bitboards.pieces(attackerColor, ChessPiece.PieceType.QUEEN);
+        long rooksAndQueens = bitboards.pieces(attackerColor, ChessPiece.PieceType.ROOK) | queens;
+        long bishopsAndQueens = bitboards.pieces(attackerColor, ChessPiece.PieceType.BISHOP) | queens;
+        return (pawnAttacks(defenderColor, square) & bitboards.pieces(attackerColor, ChessPiece.PieceType.PAWN))
+                | (knightAttacks(square) & bitboards.pieces(attackerColor, ChessPiece.PieceType.KNIGHT))
+                | (kingAttacks(square) & bitboards.pieces(attackerColor, ChessPiece.PieceType.KING))
+                | (rookAttacks(square, occupied) & rooksAndQueens)
+                | (bishopAttacks(square, occupied) & bishopsAndQueens);
+    }
+
+    private static long stepAttacks(int square, int[][] steps) {
+        long attacks = 0;
+        int row = square >>> 3;
+        int col = square & 7;
+        for (int[] step : steps) {
+            int toRow = row + step[0];
+            int toCol = col + step[1];
+            if (toRow >= 0 && toRow < 8 && toCol >= 0 && toCol < 8) {
+                attacks |= 1L << (toRow * 8 + toCol);
+            }
+        }
+        return attacks;
+    }
+
+    private static void initBetween(int square, int[][] directions) {
+        int row = square >>> 3;
+        int col = square & 7;
+        for (int[] direction : directions) {
+            long passed = 0;
+            int toRow = row + direction[0];
+            int toCol = col + direction[1];
+            while (toRow >= 0 && toRow < 8 && toCol >= 0 && toCol < 8) {
+                int to = toRow * 8 + toCol;
+                BETWEEN[square][to] = passed;
+                passed |= 1L << to;
+                toRow += direction[0];
+                toCol += direction[1];
+            }
+        }
+    }
+
+    /**
+     * Walks the rays from square, stopping at (and including) the first occupied square
+     */
+    private static long slidingAttacks(int square, long occupied, int[][] directions) {
+        long attacks = 0;
+        int row = square >>> 3;
+        int col = square & 7;
+        for (int[] direction : directions) {
+            int toRow = row + direction[0];
+            int toCol = col + direction[1];
+            while (toRow >= 0 && toRow < 8 && toCol >= 0 && toCol < 8) {
+                long bit = 1L << (toRow * 8 + toCol);
+                attacks |= bit;
+                if ((occupied & bit) != 0) {
+                    break;
+                }
+                toRow += direction[0];
+                toCol += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * @return the squares whose occupancy can change a slider's attacks, which is
+     * every ray square except the last one before the edge of the board
+     */
+    private static long relevantMask(int square, int[][] directions) {
+        long mask = 0;
+        int row = square >>> 3;
+        int col = square & 7;
+        for (int[] direction : directions) {
+            int toRow = row + direction[0];
+            int toCol = col + direction[1];
+            while (toRow + direction[0] >= 0 && toRow + direction[0] < 8
+                    && toCol + direction[1] >= 0 && toCol + direction[1] < 8) {
+                mask |= 1L << (toRow * 8 + toCol);
+                toRow += direction[0];
+                toCol += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    private static void initMagic(int square, int[][] directions, long[] masks, long[] magics,
+                                  int[] shifts, long[][] attackTable) {
+        long mask = relevantMask(square, directions);
+        int bits = Long.bitCount(mask);
+        int size = 1 << bits;
+
+        long[] occupancies = new long[size];
+        long[] attacks = new long[size];
+        long subset = 0;
+        for (int i = 0; i < size; i++) {
+            occupancies[i] = subset;
+            attacks[i] = slidingAttacks(square, subset, directions);
+            subset = (subset - mask) & mask;
+        }
+
+        long[] table = new long[size];
+        int[] usedBy = new int[size];
+        int attempt = 0;
+        while (true) {
+            attempt++;
+            long magic = nextRandom() & nextRandom() & nextRandom();
+            if (Long.bitCount((mask * magic) & 0xFF00000000000000L) < 6) {
+                continue;
+            }
+            boolean collision = false;
+            for (int i = 0; i < size && !collision; i++) {
+                int index = (int) ((occupancies[i] * magic) >>> (64 - bits));
+                if (usedBy[index] != attempt) {
+                    usedBy[index] = attempt;
+                    table[index] = attacks[i];
+                } else if (table[index] != attacks[i]) {
+                    collision = true;
+                }
+            }
+            if (!collision) {
+                masks[square] = mask;
+                magics[square] = magic;
+                shifts[square] = 64 - bits;
+                attackTable[square] = table;
+                return;
+            }
+        }
+    }
+
+    private static long nextRandom() {
+        seed ^= seed >>> 12;
+        seed ^= seed << 25;
+        seed ^= seed >>> 27;
+        return seed * 0x2545F4914F6CDD1DL;
+    }
+}
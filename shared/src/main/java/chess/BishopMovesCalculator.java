@@ -21,50 +21,32 @@ public class BishopMovesCalculator {
      * @return Set of valid moves
      */
     public Set<ChessMove> calculateValidMoves() {
-        // validMoves.clear(); // Clear any previous valid moves
+        validMoves.clear(); // Clear any previous valid moves
 
-        // Calculate diagonal moves
-        calculateDiagonalMoves();
+        MoveList moves = new MoveList();
+        generate(board, Bitboards.square(position), moves);
+        moves.addTo(validMoves);
 
         return validMoves;
     }
 
-    private void calculateDiagonalMoves() {
-        // Check upper right diagonal
-        calculateDiagonalMovesInDirection(1, 1);
-
-        // Check upper left diagonal
-        calculateDiagonalMovesInDirection(1, -1);
-
-        // Check lower right diagonal
-        calculateDiagonalMovesInDirection(-1, 1);
-
-        // Check lower left diagonal
-        calculateDiagonalMovesInDirection(-1, -1);
+    /**
+     * Adds the moves for the bishop on square to the list without allocating
+     */
+    static void generate(ChessBoard board, int square, MoveList moves) {
+        generate(board, square, -1L, moves);
     }
 
-    private void calculateDiagonalMovesInDirection(int rowDirection, int colDirection) {
-        int currentRow = position.getRow() + rowDirection;
-        int currentCol = position.getColumn() + colDirection;
-
-        while (board.isValidPosition(new ChessPosition(currentRow, currentCol))) {
-            ChessPiece pieceAtCurrentPosition = board.getPiece(new ChessPosition(currentRow, currentCol));
-
-            if (pieceAtCurrentPosition == null) {
-                // Empty cell, add the move
-                validMoves.add(new ChessMove(position, new ChessPosition(currentRow, currentCol), null));
-            } else {
-                // Occupied cell, check if the piece is an opponent's piece
-                if (pieceAtCurrentPosition.getTeamColor() != board.getPiece(position).getTeamColor()) {
-                    validMoves.add(new ChessMove(position, new ChessPosition(currentRow, currentCol), null));
-                }
-                break; // Stop checking in this direction after encountering the first piece
-            }
-
-            // Move to the next cell in the diagonal direction
-            currentRow += rowDirection;
-            currentCol += colDirection;
-        }
-
+    /**
+     * Same as {@link #generate(ChessBoard, int, MoveList)} but only adds moves
+     * that end on a square in the allowed mask
+     */
+    static void generate(ChessBoard board, int square, long allowed, MoveList moves) {
+        // Diagonal rays come straight out of the magic lookup, blockers included
+        Bitboards bitboards = board.getBitboards();
+        ChessGame.TeamColor color = board.pieceAt(square).getTeamColor();
+        long targets = AttackTables.bishopAttacks(square, bitboards.allPieces())
+                & ~bitboards.occupancy(color) & allowed;
+        MoveGenerator.addTargets(board, square, targets, moves);
     }
 }
@@ -0,0 +1,201 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Bitboard view of a chess board: one 64-bit mask per color and piece type,
+ * plus occupancy masks for each color and for the whole board.
+ * <p>
+ * Squares are numbered 0..63 with a1 (row 1, column 1) as square 0 and
+ * h8 (row 8, column 8) as square 63, so bit {@code (row - 1) * 8 + (column - 1)}
+ * of a mask is set when that square is included.
+ * <p>
+ * The {@link Zobrist} key of the pieces is updated along with the masks, as
+ * are the running totals {@link Evaluation} scores positions from.
+ */
+public class Bitboards {
+
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    private static final int TYPE_COUNT = ChessPiece.PieceType.values().length;
+
+    private final long[] pieces = new long[2 * TYPE_COUNT];
+    private final long[] occupancy = new long[2];
+    private long allPieces;
+    private long key;
+    private int openingScore;
+    private int endgameScore;
+    private int phase;
+
+    public Bitboards() {
+
+    }
+
+    /**
+     * Builds the bitboards for an 8x8 grid laid out like {@link ChessBoard#getBoard()}
+     *
+     * @param grid grid indexed by [row - 1][column - 1]
+     * @return bitboards holding the same pieces as the grid
+     */
+    public static Bitboards fromGrid(ChessPiece[][] grid) {
+        Bitboards bitboards = new Bitboards();
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                if (grid[row][col] != null) {
+                    bitboards.set(row * 8 + col, grid[row][col]);
+                }
+            }
+        }
+        return bitboards;
+    }
+
+    public static int square(int row, int col) {
+        return (row - 1) * 8 + (col - 1);
+    }
+
+    public static int square(ChessPosition position) {
+        return square(position.getRow(), position.getColumn());
+    }
+
+    public static int row(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    public static int column(int square) {
+        return (square & 7) + 1;
+    }
+
+    public static ChessPosition position(int square) {
+        return ChessPosition.ofSquare(square);
+    }
+
+    public static int colorIndex(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? WHITE : BLACK;
+    }
+
+    public static int index(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return colorIndex(color) * TYPE_COUNT + type.ordinal();
+    }
+
+    /**
+     * Places a piece on a square, replacing whatever was there before
+     */
+    public void set(int square, ChessPiece piece) {
+        clear(square);
+        if (piece == null) {
+            return;
+        }
+        long bit = 1L << square;
+        int color = colorIndex(piece.getTeamColor());
+        int index = color * TYPE_COUNT + piece.getPieceType().ordinal();
+        pieces[index] |= bit;
+        occupancy[color] |= bit;
+        allPieces |= bit;
+        key ^= Zobrist.pieceKey(index, square);
+        openingScore += Evaluation.opening(index, square);
+        endgameScore += Evaluation.endgame(index, square);
+        phase += Evaluation.phase(index);
+    }
+
+    /**
+     * Removes any piece from a square
+     */
+    public void clear(int square) {
+        long bit = 1L << square;
+        if ((allPieces & bit) == 0) {
+            return;
+        }
+        long keep = ~bit;
+        for (int i = 0; i < pieces.length; i++) {
+            if ((pieces[i] & bit) != 0) {
+                pieces[i] &= keep;
+                key ^= Zobrist.pieceKey(i, square);
+                openingScore -= Evaluation.opening(i, square);
+                endgameScore -= Evaluation.endgame(i, square);
+                phase -= Evaluation.phase(i);
+                break;
+            }
+        }
+        occupancy[WHITE] &= keep;
+        occupancy[BLACK] &= keep;
+        allPieces &= keep;
+    }
+
+    /**
+     * @return mask of every square holding the given color and piece type
+     */
+    public long pieces(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return pieces[index(color, type)];
+    }
+
+    /**
+     * @return mask of every square holding a piece of the given color
+     */
+    public long occupancy(ChessGame.TeamColor color) {
+        return occupancy[colorIndex(color)];
+    }
+
+    /**
+     * @return mask of every occupied square
+     */
+    public long allPieces() {
+        return allPieces;
+    }
+
+    /**
+     * @return the Zobrist key of the pieces on the board, kept up to date as
+     * pieces are set and cleared
+     */
+    public long key() {
+        return key;
+    }
+
+    /**
+     * @return material and piece-square total for the opening, positive when white is ahead
+     */
+    public int openingScore() {
+        return openingScore;
+    }
+
+    /**
+     * @return material and piece-square total for the endgame, positive when white is ahead
+     */
+    public int endgameScore() {
+        return endgameScore;
+    }
+
+    /**
+     * @return how much non-pawn material is on the board, as weighted by {@link Evaluation}
+     */
+    public int phase() {
+        return phase;
+    }
+
+    public boolean isOccupied(int square) {
+        return (allPieces & (1L << square)) != 0;
+    }
+
+    /**
+     * @return the lowest square in the mask, or -1 if the mask is empty
+     */
+    public static int firstSquare(long mask) {
+        return mask == 0 ? -1 : Long.numberOfTrailingZeros(mask);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return Arrays.equals(pieces, ((Bitboards) o).pieces);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(pieces);
+    }
+}
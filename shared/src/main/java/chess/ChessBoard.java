@@ -12,9 +12,17 @@ public class ChessBoard {
 
     private ChessPiece[][] board = new ChessPiece[8][8];
 
-    private ChessMove lastMove;
+    /**
+     * Bitboard mirror of {@link #board}. Not serialized; it is rebuilt from the
+     * grid the first time it is needed after the board is deserialized.
+     */
+    private transient Bitboards bitboards;
 
-    private ChessPiece pieceThatItWas;
+    /**
+     * Everything needed to take back the moves played on this board, most recent
+     * last. Not serialized, so a deserialized board starts with nothing to undo.
+     */
+    private transient UndoStack undoStack;
 
 
 
@@ -22,49 +30,215 @@ public class ChessBoard {
 
     }
 
+    /**
+     * Sets up a board from the piece placement of a FEN string. A whole FEN
+     * string may be given; the fields after the placement are ignored.
+     *
+     * @throws IllegalArgumentException if the placement is not valid FEN
+     */
+    public static ChessBoard fromFen(String fen) {
+        return Fen.parseBoard(fen);
+    }
+
+    /**
+     * @return the piece placement field of FEN for this board
+     */
+    public String toFen() {
+        return Fen.format(this);
+    }
+
+    /**
+     * @return the grid of pieces indexed by [row - 1][column - 1]. Treat it as
+     * read only and use {@link #addPiece} to change the board, otherwise the
+     * bitboards will fall out of sync.
+     */
     public ChessPiece[][] getBoard(){
         return board;
     }
 
+    /**
+     * @return the bitboards for the pieces currently on the board
+     */
+    public Bitboards getBitboards() {
+        if (bitboards == null) {
+            // A deserialized grid holds its own piece objects, so swap in the shared ones
+            for (ChessPiece[] row : board) {
+                for (int col = 0; col < row.length; col++) {
+                    row[col] = ChessPiece.canonical(row[col]);
+                }
+            }
+            bitboards = Bitboards.fromGrid(board);
+        }
+        return bitboards;
+    }
+
+    /**
+     * @return Zobrist key of the pieces on the board. It does not include the team
+     * to move; use {@link ChessGame#getPositionKey()} for that.
+     */
+    public long getPositionKey() {
+        return getBitboards().key();
+    }
+
+    /**
+     * @return static evaluation of the pieces on the board in centipawns,
+     * positive when white is better. See {@link Evaluation}.
+     */
+    public int getEvaluation() {
+        return Evaluation.evaluate(getBitboards());
+    }
+
+    /**
+     * Counts how many times the current position occurred earlier among the moves
+     * that can still be undone, with the same team to move
+     *
+     * @return number of earlier occurrences, 0 if the position is new
+     */
+    public int getRepetitionCount() {
+        UndoStack stack = undoStack();
+        long key = getPositionKey();
+        int count = 0;
+        for (int i = stack.size - 2; i >= 0; i -= 2) {
+            if (stack.keys[i] == key) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Finds the king of the given team
+     *
+     * @param teamColor which team to find the king for
+     * @return The position of the king, or null if that team has no king
+     */
+    public ChessPosition findKing(ChessGame.TeamColor teamColor) {
+        int square = Bitboards.firstSquare(getBitboards().pieces(teamColor, ChessPiece.PieceType.KING));
+        return square < 0 ? null : Bitboards.position(square);
+    }
+
+    /**
+     * @return the most recent move that has not been undone, or null if there is none
+     */
     public ChessMove getLastMove() {
-        return lastMove;
+        UndoStack stack = undoStack();
+        return stack.size == 0 ? null : Move.toChessMove(stack.moves[stack.size - 1]);
+    }
+
+    /**
+     * @return how many moves can currently be taken back
+     */
+    public int getUndoDepth() {
+        return undoStack().size;
+    }
+
+    /**
+     * Forgets every move that could be taken back, for when the pieces are
+     * replaced and those moves no longer lead to this position
+     */
+    void clearUndoStack() {
+        undoStack = null;
     }
 
     public void makeMove(ChessMove move) {
-        ChessPosition startPosition = move.getStartPosition();
-        ChessPosition endPosition = move.getEndPosition();
-        pieceThatItWas = getPiece(endPosition);
-        ChessPiece pieceToMove = getPiece(startPosition);
-        addPiece(endPosition, pieceToMove);
-        addPiece(startPosition, null);
+        int from = Bitboards.square(move.getStartPosition());
+        int to = Bitboards.square(move.getEndPosition());
+        ChessPiece pieceToMove = pieceAt(from);
+        if (pieceToMove == null) {
+            return;
+        }
+        ChessPiece captured = pieceAt(to);
         ChessPiece.PieceType promotionPiece = move.getPromotionPiece();
-        if (promotionPiece != null && pieceToMove.getPieceType() == ChessPiece.PieceType.PAWN) {
-            ChessPiece promotedPiece = new ChessPiece(pieceToMove.getTeamColor(), promotionPiece);
-            addPiece(endPosition, promotedPiece);
+        if (pieceToMove.getPieceType() != ChessPiece.PieceType.PAWN) {
+            promotionPiece = null;
         }
-        lastMove = move;
+        makeMove(Move.encode(from, to, promotionPiece, pieceToMove.getPieceType(),
+                captured == null ? null : captured.getPieceType()));
+    }
+
+    /**
+     * Plays an encoded move from {@link MoveList} and records it so it can be
+     * taken back with {@link #unmakeMove()}. Moves can be stacked to any depth.
+     *
+     * @param move move encoded with {@link Move}
+     */
+    public void makeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        ChessPiece pieceToMove = pieceAt(from);
+        undoStack().push(move, pieceToMove, pieceAt(to), getPositionKey());
+        ChessPiece.PieceType promotionPiece = Move.promotion(move);
+        if (promotionPiece != null) {
+            pieceToMove = ChessPiece.of(pieceToMove.getTeamColor(), promotionPiece);
+        }
+        setSquare(to, pieceToMove);
+        setSquare(from, null);
+    }
+
+    /**
+     * Takes back the most recent move that has not already been undone, putting
+     * back the pieces that were moved and captured
+     *
+     * @throws IllegalStateException if every move played has already been taken back
+     */
+    public void unmakeMove() {
+        UndoStack stack = undoStack();
+        if (stack.size == 0) {
+            throw new IllegalStateException("No move to take back");
+        }
+        stack.size--;
+        int move = stack.moves[stack.size];
+        setSquare(Move.from(move), stack.movedPieces[stack.size]);
+        setSquare(Move.to(move), stack.capturedPieces[stack.size]);
+        stack.movedPieces[stack.size] = null;
+        stack.capturedPieces[stack.size] = null;
     }
 
     public void undoLastMove() {
-        //TODO undo make move reverse
-        if(lastMove != null) {
-            ChessPosition startPosition = lastMove.getEndPosition();
-            ChessPosition endPosition = lastMove.getStartPosition();
-            ChessPiece pieceToMove = getPiece(startPosition);
-            ChessPiece undoPromotionPiece = getPiece(lastMove.startPosition);
-            if (undoPromotionPiece != null) {
-                addPiece(endPosition, undoPromotionPiece);
-            } else {
-                addPiece(endPosition, pieceToMove);
+        if (undoStack().size > 0) {
+            unmakeMove();
+        }
+    }
+
+    private UndoStack undoStack() {
+        if (undoStack == null) {
+            undoStack = new UndoStack();
+        }
+        return undoStack;
+    }
+
+    /**
+     * Parallel arrays holding one entry per move played. The engine has no
+     * castling or en passant, so the move, the piece that moved and the piece it
+     * captured are all the state a move changes. The position key from before
+     * the move is kept for repetition detection.
+     */
+    private static class UndoStack {
+        int[] moves = new int[64];
+        ChessPiece[] movedPieces = new ChessPiece[64];
+        ChessPiece[] capturedPieces = new ChessPiece[64];
+        long[] keys = new long[64];
+        int size;
+
+        void push(int move, ChessPiece movedPiece, ChessPiece capturedPiece, long key) {
+            if (size == moves.length) {
+                moves = Arrays.copyOf(moves, size * 2);
+                movedPieces = Arrays.copyOf(movedPieces, size * 2);
+                capturedPieces = Arrays.copyOf(capturedPieces, size * 2);
+                keys = Arrays.copyOf(keys, size * 2);
             }
-            addPiece(startPosition, pieceThatItWas); // cant make it null if it was captured, make it the peice it was
+            moves[size] = move;
+            movedPieces[size] = movedPiece;
+            capturedPieces[size] = capturedPiece;
+            keys[size] = key;
+            size++;
         }
-        lastMove =null;
     }
 
 
     /**
-     * Adds a chess piece to the chessboard
+     * Adds a chess piece to the chessboard. The board stores the shared
+     * {@link ChessPiece#of} instance equal to the given piece.
      *
      * @param position where to add the piece to
      * @param piece    the piece to add
@@ -72,7 +246,23 @@ public class ChessBoard {
     public void addPiece(ChessPosition position, ChessPiece piece) {
         int row = position.getRow()-1;
         int col = position.getColumn()-1;
+        piece = ChessPiece.canonical(piece);
         board[row][col] = piece;
+        if (bitboards != null) {
+            bitboards.set(row * 8 + col, piece);
+        }
+    }
+
+    /**
+     * @return the piece on a square numbered as in {@link Bitboards}, or null if it is empty
+     */
+    public ChessPiece pieceAt(int square) {
+        return board[square >>> 3][square & 7];
+    }
+
+    private void setSquare(int square, ChessPiece piece) {
+        board[square >>> 3][square & 7] = piece;
+        getBitboards().set(square, piece);
     }
 
     /**
@@ -100,12 +290,12 @@ public class ChessBoard {
             return false;
         }
         ChessBoard that = (ChessBoard) o;
-        return toString().equals(that.toString());
+        return getPositionKey() == that.getPositionKey() && getBitboards().equals(that.getBitboards());
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(board);
+        return Long.hashCode(getPositionKey());
     }
 
     @Override
@@ -113,7 +303,7 @@ public class ChessBoard {
         StringBuilder stringBuilder = new StringBuilder();
         for(int i=1; i<=8; i++){
             for(int j=1; j<=8; j++){
-                ChessPosition position = new ChessPosition(i, j);
+                ChessPosition position = ChessPosition.of(i, j);
                 if(isValidPosition(position)){
                     stringBuilder.append(getPiece(position));
                 }
@@ -127,37 +317,33 @@ public class ChessBoard {
      * (How the game of chess normally starts)
      */
     public void resetBoard() {
-        addPiece(new ChessPosition(1, 5), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
-        addPiece(new ChessPosition(1, 4), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
-        addPiece(new ChessPosition(1, 1), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
-        addPiece(new ChessPosition(1, 8), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
-        addPiece(new ChessPosition(1, 2), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(1, 7), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(1, 3), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(1, 6), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(1, 5), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        addPiece(ChessPosition.of(1, 4), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+        addPiece(ChessPosition.of(1, 1), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(1, 8), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(1, 2), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(1, 7), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(1, 3), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(1, 6), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
 
         for (int col = 1; col <= 8; col++) {
-            addPiece(new ChessPosition(2, col), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+            addPiece(ChessPosition.of(2, col), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
         }
 
-        addPiece(new ChessPosition(8, 5), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
-        addPiece(new ChessPosition(8, 4), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
-        addPiece(new ChessPosition(8, 1), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
-        addPiece(new ChessPosition(8, 8), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
-        addPiece(new ChessPosition(8, 2), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(8, 7), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(8, 3), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(8, 6), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(8, 5), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        addPiece(ChessPosition.of(8, 4), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
+        addPiece(ChessPosition.of(8, 1), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(8, 8), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(8, 2), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(8, 7), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(8, 3), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(8, 6), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
 
         for (int col = 1; col <= 8; col++) {
-            addPiece(new ChessPosition(7, col), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+            addPiece(ChessPosition.of(7, col), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
         }
     }
 
-    public void print(Object object){
-        System.out.println(object);
-    }
-
     public boolean isValidPosition(ChessPosition position) {
         if(position != null) {
             if(position.getRow()-1 <= 7 && position.getColumn()-1 <= 7 && position.getRow()-1 >= 0 && position.getColumn()-1 >= 0) {
@@ -16,10 +16,137 @@ public class ChessGame {
 
     private boolean gameOver = false;
 
+    /**
+     * Plies since the last capture or pawn move, and the number of the move
+     * being played, which starts at 1 and goes up after each black move
+     */
+    private int halfmoveClock = 0;
+
+    private int fullmoveNumber = 1;
+
+    /**
+     * Reusable move lists so move generation does not allocate. One is kept per
+     * caller so that a status check can run while a piece's moves are held.
+     */
+    private final transient MoveList pieceMoves = new MoveList();
+
+    private final transient MoveList statusMoves = new MoveList();
+
+    private final transient LegalMoveGenerator legalMoves = new LegalMoveGenerator();
+
+    /**
+     * Last status computed for each team, indexed by {@link Bitboards#colorIndex}.
+     * An entry is reused while the board's position key still matches it.
+     */
+    private final transient GameStatus[] statuses = new GameStatus[2];
+
+    /**
+     * {@link Move#key}s of the moves played with makeMove since the game was
+     * set up, oldest first, so whoever saves the game can store just the new
+     * moves. Created on the first move. Once the position is changed any other
+     * way the moves no longer lead to it and the log is dropped for good.
+     */
+    private transient MoveList moveLog;
+
+    private transient boolean moveLogBroken;
+
+    /**
+     * Table of statuses shared by every game in the JVM, or null to compute
+     * each game's statuses on its own
+     */
+    private static volatile PositionTable positionTable;
+
+    /**
+     * Endgame results consulted by {@link #probeTablebase()}, or null for none
+     */
+    private static volatile Tablebase tablebase;
+
+    /**
+     * Moves a new move log has room for before it grows; most games are shorter
+     */
+    private static final int MOVE_LOG_CAPACITY = 128;
+
     public ChessGame() {
         board.resetBoard();
     }
 
+    /**
+     * @param board the board to play on, used as is rather than copied
+     */
+    ChessGame(ChessBoard board) {
+        this.board = board;
+    }
+
+    /**
+     * Sets up a game from a FEN string. Fields after the piece placement may be
+     * left out; castling and en passant are accepted but ignored since the
+     * engine does not play those moves.
+     *
+     * @throws IllegalArgumentException if the string is not valid FEN
+     */
+    public static ChessGame fromFen(String fen) {
+        return Fen.parseGame(fen);
+    }
+
+    /**
+     * @return the position in FEN, with castling and en passant written as "-"
+     */
+    public String toFen() {
+        return Fen.format(this);
+    }
+
+    /**
+     * @return a game in the same position that shares nothing with this one,
+     * so one caller can play on while another reads or saves this one. Moves
+     * played before the copy can't be taken back on it.
+     */
+    public ChessGame copy() {
+        ChessGame copy = Fen.parseGame(Fen.format(this));
+        copy.gameOver = gameOver;
+        copy.moveLogBroken = moveLogBroken;
+        if (moveLog != null) {
+            copy.moveLog = new MoveList(moveLog.size() + MOVE_LOG_CAPACITY);
+            for (int i = 0; i < moveLog.size(); i++) {
+                copy.moveLog.add(moveLog.get(i));
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * @return plies played before the current position, counted the way the
+     * fullmove number counts them, so the first move of a game is ply 0
+     */
+    public int getPly() {
+        return (fullmoveNumber - 1) * 2 + (turn == TeamColor.BLACK ? 1 : 0);
+    }
+
+    /**
+     * @return the {@link Move#key}s of the moves played with makeMove since the
+     * game was set up or loaded, oldest first, so the last one was played at
+     * {@code getPly() - 1}; or null if the position has since been changed
+     * with setBoard, setTeamTurn or setClocks, so the moves don't lead to it
+     */
+    public int[] getMoveLog() {
+        if (moveLogBroken) {
+            return null;
+        }
+        return moveLog == null ? new int[0] : moveLog.toArray();
+    }
+
+    /**
+     * Starts an empty move log from the current position, once it has been set up
+     */
+    void startMoveLog() {
+        moveLog = null;
+        moveLogBroken = false;
+    }
+
+    private void breakMoveLog() {
+        moveLog = null;
+        moveLogBroken = true;
+    }
+
     /**
      * @return Which team's turn it is
      */
@@ -34,6 +161,46 @@ public class ChessGame {
      */
     public void setTeamTurn(TeamColor team) {
         turn = team;
+        breakMoveLog();
+    }
+
+    /**
+     * @return Zobrist key of the position including the team to move, suitable
+     * as a cache key or for spotting repeated positions
+     */
+    public long getPositionKey() {
+        long key = board.getPositionKey();
+        return turn == TeamColor.BLACK ? key ^ Zobrist.sideToMove() : key;
+    }
+
+    /**
+     * @return static evaluation of the position in centipawns, positive when
+     * white is better, for showing who is ahead. It does not look for checkmate
+     * or search ahead.
+     */
+    public int getEvaluation() {
+        return board.getEvaluation();
+    }
+
+    /**
+     * @return plies played since the last capture or pawn move
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /**
+     * Sets the halfmove clock and fullmove number, as when setting up a
+     * position or playing a move the engine does not generate itself
+     */
+    public void setClocks(int halfmoveClock, int fullmoveNumber) {
+        this.halfmoveClock = halfmoveClock;
+        this.fullmoveNumber = fullmoveNumber;
+        breakMoveLog();
     }
 
     public boolean getGameOver() {
@@ -60,94 +227,80 @@ public class ChessGame {
      * startPosition
      */
     public Collection<ChessMove> validMoves(ChessPosition startPosition) {
-
-        ChessPosition startPositionForMoveToTry = new ChessPosition(2, 6);
-        ChessPosition endPositionForMoveToTry = new ChessPosition(8, 5);
-        if(startPosition.equals(startPositionForMoveToTry)) {
-            print("pawn moves");
-        }
-
-        ChessMove moveToTry = new ChessMove(startPositionForMoveToTry, endPositionForMoveToTry,null);
-        ChessPiece pieceToTry = board.getPiece(startPosition);
-
-
-        if(isInCheck(pieceToTry.getTeamColor())) {
-            print("in check you cant move normally");
-        }
-
-        Set<ChessMove> validMoves = doGetValidMoves(startPosition);
-        if(validMoves.contains(moveToTry)) {
-            print("0------in movetoTry 1st");
-            print(validMoves);
+        ChessPiece piece = board.getPiece(startPosition);
+        if (piece == null) {
+            return null;
         }
-        boolean checkmate = isInCheckmate(getTeamTurn());
-        boolean stalemate = isInStalemate(getTeamTurn());
-        if(checkmate || stalemate) {
+        if (!getStatus(getTeamTurn()).hasLegalMove()) {
+            // Checkmate or stalemate ends the game, so nothing can move
             return new ArrayList<>();
         }
-        Set<ChessMove> validMovesNew = removeBadMovesWithoutStalemate(validMoves);
-
-        print("validMovesNew");
-
-        return validMovesNew;
+        return getStatus(piece.getTeamColor()).movesFrom(startPosition);
     }
 
-    private Set<ChessMove> doGetValidMoves(ChessPosition startPosition) {
-        if(getTeamTurn() == null) {
-            setTeamTurn(TeamColor.WHITE);
-        }
-        Set<ChessMove> validMoves = new HashSet<>();
-        ChessPiece piece = board.getPiece(startPosition);
-        if(piece != null) {
-            validMoves.addAll(piece.pieceMoves(board, startPosition));
+    /**
+     * Gets the check, checkmate and stalemate state and the legal moves of a team,
+     * computing them only once per position
+     *
+     * @param teamColor the team to get the status of
+     * @return the team's status in the current position
+     */
+    public GameStatus getStatus(TeamColor teamColor) {
+        int index = Bitboards.colorIndex(teamColor);
+        GameStatus status = statuses[index];
+        if (status == null || status.getPositionKey() != board.getPositionKey()) {
+            PositionTable table = positionTable;
+            status = table == null ? null : table.probe(board, teamColor);
+            if (status == null) {
+                status = GameStatus.compute(board, teamColor, legalMoves, statusMoves);
+                if (table != null) {
+                    table.store(status);
+                }
+            }
+            statuses[index] = status;
         }
-        return validMoves;
+        return status;
     }
 
+    /**
+     * Shares one table of computed statuses between every game, so a position
+     * reached in many games only has its moves generated once
+     *
+     * @param table the table to use, or null to stop sharing
+     */
+    public static void setPositionTable(PositionTable table) {
+        positionTable = table;
+    }
 
-    public Set<ChessMove> removeBadMovesWithoutStalemate(Set<ChessMove> potentialMoves) {
-
-
-        ChessPosition startPositionForMoveToTry = new ChessPosition(7, 4);
-        ChessPosition endPositionForMoveToTry = new ChessPosition(6, 5);
-        // print(move);
-        ChessMove moveToTry = new ChessMove(startPositionForMoveToTry, endPositionForMoveToTry,null);
-
-
-        Iterator<ChessMove> iterator = potentialMoves.iterator();
-
-        while (iterator.hasNext()) {
-            ChessMove move = iterator.next();
-            if(moveToTry.endPosition.equals(move.endPosition)) {
-
-                print("0------in movetoTry in try");
-                print(board);
-                print(board.getLastMove());
-            }
-
-            ChessPosition kingPosition = new ChessPosition(6, 5);
-            if(kingPosition.equals(move.endPosition)) {
-                print("found pawn that shouldn't move");
-            }
-
-            ChessPosition startPosition = move.getStartPosition();
-            ChessPiece pieceToMove = board.getPiece(startPosition);
-            if(pieceToMove != null) {
-                TeamColor turn = pieceToMove.pieceColor;
-
-                board.makeMove(move);
-                if (isInCheck(turn)) {
-                    iterator.remove(); // Remove the move if it leads to check
-                }
-                board.undoLastMove();
+    public static PositionTable getPositionTable() {
+        return positionTable;
+    }
 
-            }
+    /**
+     * Sets the tablebase every game consults for its endgame result
+     *
+     * @param table the tablebase to use, or null for none
+     */
+    public static void setTablebase(Tablebase table) {
+        tablebase = table;
+    }
 
+    public static Tablebase getTablebase() {
+        return tablebase;
+    }
 
-        }
-        return potentialMoves;
+    /**
+     * Looks the position up in the tablebase
+     *
+     * @return the result with best play for the team whose turn it is, or null
+     * if no tablebase is set or the position has too many pieces
+     */
+    public Tablebase.Outcome probeTablebase() {
+        Tablebase table = tablebase;
+        return table == null ? null : table.probe(board, turn);
     }
 
+
     /**
      * Makes a move in a chess game
      *
@@ -155,12 +308,24 @@ public class ChessGame {
      * @throws InvalidMoveException if move is invalid
      */
     public void makeMove(ChessMove move) throws InvalidMoveException {
-        ChessPiece pieceToMove = validateMoveInput(move);
-        performMoveWithCheckCheck(move, pieceToMove);
+        int encodedMove = validateMoveInput(move);
+        board.makeMove(encodedMove);
+        if (!moveLogBroken) {
+            if (moveLog == null) {
+                moveLog = new MoveList(MOVE_LOG_CAPACITY);
+            }
+            moveLog.add(Move.key(encodedMove));
+        }
+        boolean resetsClock = Move.isCapture(encodedMove)
+                || Move.movedPiece(encodedMove) == ChessPiece.PieceType.PAWN;
+        halfmoveClock = resetsClock ? 0 : halfmoveClock + 1;
+        if (turn == TeamColor.BLACK) {
+            fullmoveNumber++;
+        }
         switchTurns();
     }
 
-    private ChessPiece validateMoveInput(ChessMove move) throws InvalidMoveException {
+    private int validateMoveInput(ChessMove move) throws InvalidMoveException {
         ChessPiece piece = board.getPiece(move.getStartPosition());
         if (piece == null){
             throw new InvalidMoveException("No piece at the starting position");
@@ -168,18 +333,22 @@ public class ChessGame {
         if (piece.getTeamColor() != getTeamTurn()) {
             throw new InvalidMoveException("Not your turn");
         }
-        if (!doGetValidMoves(move.getStartPosition()).contains(move)) {
+        if (!board.isValidPosition(move.getEndPosition())) {
             throw new InvalidMoveException("Invalid move");
         }
-        return piece;
-    }
 
-    private void performMoveWithCheckCheck(ChessMove move, ChessPiece piece) throws InvalidMoveException {
-        board.makeMove(move);
-        if (isInCheck(piece.getTeamColor())) {
-            board.undoLastMove();
+        int encodedMove = getStatus(getTeamTurn()).findByKey(Move.of(move));
+        if (encodedMove != -1) {
+            return encodedMove;
+        }
+
+        int startSquare = Bitboards.square(move.getStartPosition());
+        pieceMoves.clear();
+        MoveGenerator.generatePieceMoves(board, startSquare, pieceMoves);
+        if (pieceMoves.findByKey(Move.of(move)) != -1) {
             throw new InvalidMoveException("Move puts you in check");
         }
+        throw new InvalidMoveException("Invalid move");
     }
 
     private void switchTurns() {
@@ -195,81 +364,9 @@ public class ChessGame {
      * @return True if the specified team is in check
      */
     public boolean isInCheck(TeamColor teamColor) {
-        // Find the position of the team's king
-        ChessPosition kingPosition = findKingPosition(teamColor);
-
-        TeamColor oppositeTeamColor = TeamColor.WHITE;
-        if(teamColor == TeamColor.WHITE) {
-            oppositeTeamColor = TeamColor.BLACK;
-        }
-        return isUnderThreat(kingPosition, oppositeTeamColor);
-    }
-
-    /**
-     * Finds the position of the king for the specified team.
-     *
-     * @param teamColor which team to find the king for
-     * @return The position of the king
-     */
-    private ChessPosition findKingPosition(TeamColor teamColor) {
-        // Iterate through the chessboard to find the king's position
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                ChessPiece piece = board.getBoard()[row][col];
-                if (piece != null && piece.getPieceType() == ChessPiece.PieceType.KING && piece.getTeamColor() == teamColor) {
-                    return new ChessPosition(row + 1, col + 1);
-                }
-            }
-        }
-        // King not found (this should not happen in a valid chess game)
-        return null;
+        return getStatus(teamColor).isInCheck();
     }
 
-    /**
-     * Checks if a specific position on the chessboard is under threat from any opponent pieces.
-     *
-     * @param kingPosition  the position to check
-     * @param opponentColor the color of the opponent team
-     * @return True if the position is under threat
-     */
-    private boolean isUnderThreat(ChessPosition kingPosition, TeamColor opponentColor) {
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                if (isThreatFromPosition(row, col, kingPosition, opponentColor)) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
-    private boolean isThreatFromPosition(int row, int col, ChessPosition kingPosition, TeamColor opponentColor) {
-        ChessPiece piece = board.getBoard()[row][col];
-        if (piece == null || piece.getTeamColor() != opponentColor) {
-            return false;
-        }
-
-        ChessPosition piecePosition = new ChessPosition(row + 1, col + 1);
-        ChessPosition pawnPosition = new ChessPosition(6, 5);
-
-        Set<ChessMove> moves = (Set<ChessMove>) piece.pieceMoves(board, piecePosition);
-        if (moves == null) {
-            return false;
-        }
-
-        for (ChessMove move : moves) {
-            if (piecePosition.equals(pawnPosition)) {
-                print("found Pawn");
-            }
-            if (move.getEndPosition().equals(kingPosition)) {
-                return true;
-            }
-        }
-
-        return false;
-    }
-
-
     /**
      * Determines if the given team is in checkmate
      *
@@ -277,42 +374,7 @@ public class ChessGame {
      * @return True if the specified team is in checkmate
      */
     public boolean isInCheckmate(TeamColor teamColor) {
-        boolean check = isInCheck(teamColor);
-        boolean getOut = canGetOutOfCheckByDeath();
-        boolean checkmate = check;
-        if(getOut && check){
-            checkmate = false;
-        }
-        return checkmate;
-    }
-
-    private boolean canGetOutOfCheckByDeath() {
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                if (canEscapeCheckFrom(row, col)) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
-    private boolean canEscapeCheckFrom(int row, int col) {
-        ChessPiece piece = board.getBoard()[row][col];
-        if (piece == null || piece.getTeamColor() != getTeamTurn()){
-            return false;
-        }
-
-        ChessPosition pos = new ChessPosition(row + 1, col + 1);
-        for (ChessMove move : getPotentialMoves(pos)) {
-            board.makeMove(move);
-            boolean stillInCheck = isInCheck(getTeamTurn());
-            board.undoLastMove();
-            if (!stillInCheck) {
-                return true;
-            }
-        }
-        return false;
+        return getStatus(teamColor).isCheckmate();
     }
 
 
@@ -335,31 +397,7 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
-        ChessPosition kingPosition = findKingPosition(teamColor);
-        Set<ChessMove> kingMoves = getPotentialMoves(kingPosition);
-        kingMoves = removeBadMovesWithoutStalemate(kingMoves);
-
-        if (!kingMoves.isEmpty()) {
-            return false; // The king has valid moves, so not stalemate
-        }
-
-        return !hasOtherValidMoves(teamColor); // Check if any other piece has moves
-    }
-
-    private boolean hasOtherValidMoves(TeamColor teamColor) {
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                ChessPiece piece = board.getBoard()[row][col];
-                if (piece != null && piece.getTeamColor() == teamColor && piece.getPieceType() != ChessPiece.PieceType.KING) {
-                    ChessPosition piecePosition = new ChessPosition(row + 1, col + 1);
-                    Collection<ChessMove> pieceMoves = getPotentialMoves(piecePosition);
-                    if (!pieceMoves.isEmpty()) {
-                        return true; // Found a non-king piece with valid moves
-                    }
-                }
-            }
-        }
-        return false; // No valid moves from any other piece
+        return getStatus(teamColor).isStalemate();
     }
 
 
@@ -377,9 +415,11 @@ public class ChessGame {
         if (newBoardState.length != oldBoardState.length || newBoardState[0].length != oldBoardState[0].length) {
             throw new IllegalArgumentException("Dimensions of the new board do not match the current board");
         }
+        breakMoveLog();
+        board.clearUndoStack();
         for (int row = 0; row < oldBoardState.length; row++) {
             for (int col = 0; col < oldBoardState[row].length; col++) {
-                oldBoardState[row][col] = newBoardState[row][col];
+                board.addPiece(ChessPosition.of(row + 1, col + 1), newBoardState[row][col]);
             }
         }
     }
@@ -392,12 +432,4 @@ public class ChessGame {
     public ChessBoard getBoard() {
         return board;
     }
-
-    public void print(Object obj) {
-        System.out.println(obj);
-        System.out.println("\n");
-
-    }
-
-
 }
@@ -1,8 +1,7 @@
 package chess;
 
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Objects;
 
 /**
  * Represents a single chess piece
@@ -12,15 +11,42 @@ import java.util.Set;
  */
 public class ChessPiece {
 
-    ChessGame.TeamColor pieceColor;
-    ChessPiece.PieceType type;
-    Collection<ChessMove> pieceMoves;
+    /**
+     * One shared instance per team and piece type, indexed by {@link Bitboards#index}
+     */
+    private static final ChessPiece[] PIECES = new ChessPiece[12];
+
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                PIECES[Bitboards.index(color, type)] = new ChessPiece(color, type);
+            }
+        }
+    }
+
+    final ChessGame.TeamColor pieceColor;
+    final ChessPiece.PieceType type;
 
     public ChessPiece(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
         this.pieceColor = pieceColor;
         this.type = type;
     }
 
+    /**
+     * Gets the shared instance for a team and piece type. Pieces are immutable,
+     * so boards hold these rather than a new piece per square.
+     */
+    public static ChessPiece of(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
+        return PIECES[Bitboards.index(pieceColor, type)];
+    }
+
+    /**
+     * @return the shared instance equal to piece, or null if piece is null
+     */
+    static ChessPiece canonical(ChessPiece piece) {
+        return piece == null ? null : of(piece.pieceColor, piece.type);
+    }
+
     /**
      * The various different chess piece options
      */
@@ -47,6 +73,23 @@ public class ChessPiece {
         return type;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ChessPiece that = (ChessPiece) o;
+        return pieceColor == that.pieceColor && type == that.type;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Objects.hashCode(pieceColor) + Objects.hashCode(type);
+    }
+
     @Override
     public String toString() {
         return "ChessPiece{" +
@@ -72,11 +115,8 @@ public class ChessPiece {
             return validMoves.calculateValidMoves();
         }
         if(getPieceType() == PieceType.QUEEN) {
-            RookMovesCalculator rookValidMoves = new RookMovesCalculator(board, myPosition);
-            BishopMovesCalculator bishopMovesCalculator = new BishopMovesCalculator(board, myPosition);
-            Set<ChessMove> validMoves = new HashSet<>(rookValidMoves.calculateValidMoves());
-            validMoves.addAll(bishopMovesCalculator.calculateValidMoves());
-            return validMoves;
+            QueenMovesCalculator validMoves = new QueenMovesCalculator(board, myPosition);
+            return validMoves.calculateValidMoves();
         }
         if(getPieceType() == PieceType.KNIGHT) {
             KnightMovesCalculator validMoves = new KnightMovesCalculator(board, myPosition);
@@ -1,7 +1,5 @@
 package chess;
 
-import java.util.Objects;
-
 /**
  * Represents a single square position on a chess board
  * <p>
@@ -10,6 +8,17 @@ import java.util.Objects;
  */
 public class ChessPosition {
 
+    /**
+     * One shared instance per square, indexed like {@link Bitboards} squares
+     */
+    private static final ChessPosition[] SQUARES = new ChessPosition[64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            SQUARES[square] = new ChessPosition((square >>> 3) + 1, (square & 7) + 1);
+        }
+    }
+
     private final int row;
 
     private final int col;
@@ -19,6 +28,26 @@ public class ChessPosition {
         this.row = row;
     }
 
+    /**
+     * Gets the shared instance for a square. Positions are immutable, so move
+     * generation can hand these out instead of allocating new ones.
+     *
+     * @return the shared position, or a new one if the square is off the board
+     */
+    public static ChessPosition of(int row, int col) {
+        if (row < 1 || row > 8 || col < 1 || col > 8) {
+            return new ChessPosition(row, col);
+        }
+        return SQUARES[(row - 1) * 8 + (col - 1)];
+    }
+
+    /**
+     * @return the shared position for a square numbered as in {@link Bitboards}
+     */
+    static ChessPosition ofSquare(int square) {
+        return SQUARES[square];
+    }
+
     /**
      * @return which row this position is in
      * 1 codes for the bottom row
@@ -49,7 +78,7 @@ public class ChessPosition {
 
     @Override
     public int hashCode() {
-        return Objects.hash(row, col);
+        return row * 31 + col;
     }
 
     @Override
@@ -0,0 +1,292 @@
+package chess;
+
+/**
+ * Static evaluation of a position in centipawns, positive when white is better.
+ * <p>
+ * Material and piece-square values are kept as running totals by
+ * {@link Bitboards}, the same way it keeps the {@link Zobrist} key: placing or
+ * removing a piece adds or subtracts that piece's value on that square, so
+ * making and taking back moves keeps the totals current without looking at
+ * the rest of the board. There are two totals, one tuned for the opening and
+ * one for the endgame, and they are blended by how much non-pawn material is
+ * left.
+ * <p>
+ * Pawn structure (doubled, isolated and passed pawns) and mobility depend on
+ * how pieces stand relative to each other, so they are worked out from the
+ * piece masks when a score is asked for. That takes a few mask operations per
+ * file and per piece rather than a scan of all 64 squares.
+ */
+public final class Evaluation {
+
+    /**
+     * Centipawn values indexed by {@link ChessPiece.PieceType} ordinal
+     */
+    private static final int[] PIECE_VALUES = {0, 900, 330, 320, 500, 100};
+
+    /**
+     * Phase contributed by each piece type. A full set of pieces adds up to
+     * {@link #OPENING_PHASE}; a board with only kings and pawns is phase 0.
+     */
+    private static final int[] PHASE_WEIGHTS = {0, 4, 1, 1, 2, 0};
+    private static final int OPENING_PHASE = 24;
+
+    private static final int DOUBLED_PAWN = -12;
+    private static final int ISOLATED_PAWN = -15;
+
+    /**
+     * Bonus for a passed pawn by how many rows it has advanced, from its own side
+     */
+    private static final int[] PASSED_PAWN = {0, 0, 5, 10, 20, 35, 60, 100, 0};
+
+    /**
+     * Centipawns per square a piece attacks that is not held by its own team,
+     * indexed by {@link ChessPiece.PieceType} ordinal
+     */
+    private static final int[] MOBILITY = {0, 1, 4, 4, 2, 0};
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    // Piece-square tables from white's side, written with row 8 at the top so
+    // they read like a board. Black uses them mirrored.
+
+    private static final int[] KING_OPENING = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+            20, 20, 0, 0, 0, 0, 20, 20,
+            20, 30, 10, 0, 0, 10, 30, 20
+    };
+
+    private static final int[] KING_ENDGAME = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10, 0, 0, -10, -20, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -30, 0, 0, 0, 0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50
+    };
+
+    private static final int[] QUEEN_TABLE = {
+            -20, -10, -10, -5, -5, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 5, 5, 5, 0, -10,
+            -5, 0, 5, 5, 5, 5, 0, -5,
+            0, 0, 5, 5, 5, 5, 0, -5,
+            -10, 5, 5, 5, 5, 5, 0, -10,
+            -10, 0, 5, 0, 0, 0, 0, -10,
+            -20, -10, -10, -5, -5, -10, -10, -20
+    };
+
+    private static final int[] BISHOP_TABLE = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 10, 10, 5, 0, -10,
+            -10, 5, 5, 10, 10, 5, 5, -10,
+            -10, 0, 10, 10, 10, 10, 0, -10,
+            -10, 10, 10, 10, 10, 10, 10, -10,
+            -10, 5, 0, 0, 0, 0, 5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20
+    };
+
+    private static final int[] KNIGHT_TABLE = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20, 0, 0, 0, 0, -20, -40,
+            -30, 0, 10, 15, 15, 10, 0, -30,
+            -30, 5, 15, 20, 20, 15, 5, -30,
+            -30, 0, 15, 20, 20, 15, 0, -30,
+            -30, 5, 10, 15, 15, 10, 5, -30,
+            -40, -20, 0, 5, 5, 0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50
+    };
+
+    private static final int[] ROOK_TABLE = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            5, 10, 10, 10, 10, 10, 10, 5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            0, 0, 0, 5, 5, 0, 0, 0
+    };
+
+    private static final int[] PAWN_OPENING = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+            5, 5, 10, 25, 25, 10, 5, 5,
+            0, 0, 0, 20, 20, 0, 0, 0,
+            5, -5, -10, 0, 0, -10, -5, 5,
+            5, 10, 10, -20, -20, 10, 10, 5,
+            0, 0, 0, 0, 0, 0, 0, 0
+    };
+
+    private static final int[] PAWN_ENDGAME = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            80, 80, 80, 80, 80, 80, 80, 80,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            30, 30, 30, 30, 30, 30, 30, 30,
+            15, 15, 15, 15, 15, 15, 15, 15,
+            5, 5, 5, 5, 5, 5, 5, 5,
+            0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0
+    };
+
+    /**
+     * Material plus piece-square value, negated for black, indexed by
+     * {@link Bitboards#index} and square
+     */
+    private static final int[][] OPENING = new int[12][64];
+    private static final int[][] ENDGAME = new int[12][64];
+
+    private static final long[] FILES = new long[8];
+    private static final long[] ADJACENT_FILES = new long[8];
+
+    /**
+     * Squares in front of a pawn, on its own and the neighbouring files, that
+     * must be free of enemy pawns for it to be passed. Indexed by color and square.
+     */
+    private static final long[][] PASSED_SPANS = new long[2][64];
+
+    static {
+        int[][] openingTables = {KING_OPENING, QUEEN_TABLE, BISHOP_TABLE, KNIGHT_TABLE, ROOK_TABLE, PAWN_OPENING};
+        int[][] endgameTables = {KING_ENDGAME, QUEEN_TABLE, BISHOP_TABLE, KNIGHT_TABLE, ROOK_TABLE, PAWN_ENDGAME};
+        for (ChessPiece.PieceType type : TYPES) {
+            int t = type.ordinal();
+            for (int square = 0; square < 64; square++) {
+                int white = Bitboards.index(ChessGame.TeamColor.WHITE, type);
+                int black = Bitboards.index(ChessGame.TeamColor.BLACK, type);
+                // Row 8 comes first in the tables, so white's squares are flipped to read them
+                int whiteEntry = square ^ 56;
+                int blackEntry = square;
+                OPENING[white][square] = PIECE_VALUES[t] + openingTables[t][whiteEntry];
+                ENDGAME[white][square] = PIECE_VALUES[t] + endgameTables[t][whiteEntry];
+                OPENING[black][square] = -(PIECE_VALUES[t] + openingTables[t][blackEntry]);
+                ENDGAME[black][square] = -(PIECE_VALUES[t] + endgameTables[t][blackEntry]);
+            }
+        }
+
+        for (int file = 0; file < 8; file++) {
+            FILES[file] = 0x0101010101010101L << file;
+        }
+        for (int file = 0; file < 8; file++) {
+            ADJACENT_FILES[file] = (file > 0 ? FILES[file - 1] : 0) | (file < 7 ? FILES[file + 1] : 0);
+        }
+        for (int square = 0; square < 64; square++) {
+            int file = square & 7;
+            long span = FILES[file] | ADJACENT_FILES[file];
+            int row = square >>> 3;
+            long above = row == 7 ? 0 : -1L << ((row + 1) * 8);
+            long below = row == 0 ? 0 : -1L >>> ((8 - row) * 8);
+            PASSED_SPANS[Bitboards.WHITE][square] = span & above;
+            PASSED_SPANS[Bitboards.BLACK][square] = span & below;
+        }
+    }
+
+    private Evaluation() {
+
+    }
+
+    /**
+     * @return the material value of a piece type in centipawns, 0 for the king
+     */
+    public static int pieceValue(ChessPiece.PieceType type) {
+        return PIECE_VALUES[type.ordinal()];
+    }
+
+    /**
+     * @return the opening value of a piece on a square, negative for black
+     */
+    static int opening(int index, int square) {
+        return OPENING[index][square];
+    }
+
+    /**
+     * @return the endgame value of a piece on a square, negative for black
+     */
+    static int endgame(int index, int square) {
+        return ENDGAME[index][square];
+    }
+
+    /**
+     * @return how much a piece adds to the game phase
+     */
+    static int phase(int index) {
+        return PHASE_WEIGHTS[index % TYPES.length];
+    }
+
+    /**
+     * @return the score of the position in centipawns, positive when white is better
+     */
+    public static int evaluate(Bitboards bitboards) {
+        int phase = Math.min(bitboards.phase(), OPENING_PHASE);
+        int score = (bitboards.openingScore() * phase
+                + bitboards.endgameScore() * (OPENING_PHASE - phase)) / OPENING_PHASE;
+        score += pawnStructure(bitboards, ChessGame.TeamColor.WHITE)
+                - pawnStructure(bitboards, ChessGame.TeamColor.BLACK);
+        score += mobility(bitboards, ChessGame.TeamColor.WHITE) - mobility(bitboards, ChessGame.TeamColor.BLACK);
+        return score;
+    }
+
+    /**
+     * @return the score of the position in centipawns, positive when the given team is better
+     */
+    public static int evaluate(Bitboards bitboards, ChessGame.TeamColor color) {
+        int score = evaluate(bitboards);
+        return color == ChessGame.TeamColor.WHITE ? score : -score;
+    }
+
+    private static int pawnStructure(Bitboards bitboards, ChessGame.TeamColor color) {
+        long pawns = bitboards.pieces(color, ChessPiece.PieceType.PAWN);
+        if (pawns == 0) {
+            return 0;
+        }
+        ChessGame.TeamColor enemy = color == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        long enemyPawns = bitboards.pieces(enemy, ChessPiece.PieceType.PAWN);
+        int score = 0;
+        for (int file = 0; file < 8; file++) {
+            int count = Long.bitCount(pawns & FILES[file]);
+            if (count == 0) {
+                continue;
+            }
+            score += (count - 1) * DOUBLED_PAWN;
+            if ((pawns & ADJACENT_FILES[file]) == 0) {
+                score += count * ISOLATED_PAWN;
+            }
+        }
+
+        int colorIndex = Bitboards.colorIndex(color);
+        for (long remaining = pawns; remaining != 0; remaining &= remaining - 1) {
+            int square = Long.numberOfTrailingZeros(remaining);
+            if ((PASSED_SPANS[colorIndex][square] & enemyPawns) == 0) {
+                int row = Bitboards.row(square);
+                score += PASSED_PAWN[color == ChessGame.TeamColor.WHITE ? row : 9 - row];
+            }
+        }
+        return score;
+    }
+
+    private static int mobility(Bitboards bitboards, ChessGame.TeamColor color) {
+        long targets = ~bitboards.occupancy(color);
+        long occupied = bitboards.allPieces();
+        int score = 0;
+        for (ChessPiece.PieceType type : TYPES) {
+            int weight = MOBILITY[type.ordinal()];
+            if (weight == 0) {
+                continue;
+            }
+            for (long pieces = bitboards.pieces(color, type); pieces != 0; pieces &= pieces - 1) {
+                int square = Long.numberOfTrailingZeros(pieces);
+                long attacks = AttackTables.attacks(type, color, square, occupied);
+                score += weight * Long.bitCount(attacks & targets);
+            }
+        }
+        return score;
+    }
+}
@@ -0,0 +1,255 @@
+package chess;
+
+/**
+ * Reads and writes Forsyth-Edwards Notation, the one line description of a
+ * position used for test positions, benchmark fixtures and exchanging games.
+ * <p>
+ * A FEN string has six fields: piece placement, team to move, castling rights,
+ * en passant square, halfmove clock and fullmove number. Only the placement is
+ * required; missing fields take the values of a fresh game. The engine has no
+ * castling or en passant, so those fields are checked for well-formedness and
+ * then ignored, and are always written as "-".
+ * <p>
+ * Parsing walks the string once by index and writing goes into a single
+ * builder, so neither splits the string or allocates per square.
+ */
+final class Fen {
+
+    /**
+     * Piece for each FEN letter, indexed by character, null for anything else
+     */
+    private static final ChessPiece[] PIECES = new ChessPiece[128];
+
+    /**
+     * FEN letter of each piece, indexed by {@link Bitboards#index}
+     */
+    private static final char[] LETTERS = new char[12];
+
+    static {
+        char[] letters = {'k', 'q', 'b', 'n', 'r', 'p'};
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+                char letter = letters[type.ordinal()];
+                if (color == ChessGame.TeamColor.WHITE) {
+                    letter = Character.toUpperCase(letter);
+                }
+                LETTERS[Bitboards.index(color, type)] = letter;
+                PIECES[letter] = ChessPiece.of(color, type);
+            }
+        }
+    }
+
+    private final String fen;
+    private int index;
+
+    private Fen(String fen) {
+        this.fen = fen;
+    }
+
+    /**
+     * Reads the placement field of a FEN string; any fields after it are ignored
+     *
+     * @throws IllegalArgumentException if the placement is malformed
+     */
+    static ChessBoard parseBoard(String fen) {
+        Fen reader = new Fen(fen);
+        reader.skipSpaces();
+        return reader.placement();
+    }
+
+    /**
+     * Reads all six fields of a FEN string into a new game
+     *
+     * @throws IllegalArgumentException if any field is malformed
+     */
+    static ChessGame parseGame(String fen) {
+        Fen reader = new Fen(fen);
+        reader.skipSpaces();
+        ChessGame game = new ChessGame(reader.placement());
+        if (reader.nextField()) {
+            game.setTeamTurn(reader.teamToMove());
+        }
+        if (reader.nextField()) {
+            reader.castling();
+        }
+        if (reader.nextField()) {
+            reader.enPassant();
+        }
+        int halfmoveClock = 0;
+        int fullmoveNumber = 1;
+        if (reader.nextField()) {
+            halfmoveClock = reader.number();
+        }
+        if (reader.nextField()) {
+            fullmoveNumber = reader.number();
+            if (fullmoveNumber < 1) {
+                throw reader.error("fullmove number must be at least 1");
+            }
+        }
+        if (reader.nextField()) {
+            throw reader.error("unexpected text after the fullmove number");
+        }
+        game.setClocks(halfmoveClock, fullmoveNumber);
+        game.startMoveLog();
+        return game;
+    }
+
+    /**
+     * @return the placement field describing the pieces on a board
+     */
+    static String format(ChessBoard board) {
+        StringBuilder out = new StringBuilder(72);
+        appendPlacement(board, out);
+        return out.toString();
+    }
+
+    /**
+     * @return all six fields describing a game's position
+     */
+    static String format(ChessGame game) {
+        StringBuilder out = new StringBuilder(96);
+        appendPlacement(game.getBoard(), out);
+        out.append(game.getTeamTurn() == ChessGame.TeamColor.WHITE ? " w" : " b")
+                .append(" - - ")
+                .append(game.getHalfmoveClock())
+                .append(' ')
+                .append(game.getFullmoveNumber());
+        return out.toString();
+    }
+
+    private static void appendPlacement(ChessBoard board, StringBuilder out) {
+        ChessPiece[][] grid = board.getBoard();
+        for (int row = 7; row >= 0; row--) {
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                ChessPiece piece = grid[row][col];
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    out.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                out.append(LETTERS[Bitboards.index(piece.getTeamColor(), piece.getPieceType())]);
+            }
+            if (empty > 0) {
+                out.append((char) ('0' + empty));
+            }
+            if (row > 0) {
+                out.append('/');
+            }
+        }
+    }
+
+    private ChessBoard placement() {
+        ChessBoard board = new ChessBoard();
+        for (int row = 8; row >= 1; row--) {
+            int col = 1;
+            while (index < fen.length() && fen.charAt(index) != '/' && !isSpace(fen.charAt(index))) {
+                char c = fen.charAt(index++);
+                if (c >= '1' && c <= '8') {
+                    col += c - '0';
+                } else {
+                    ChessPiece piece = c < PIECES.length ? PIECES[c] : null;
+                    if (piece == null || col > 8) {
+                        throw error("unknown piece '" + c + "' or too many squares in row " + row);
+                    }
+                    board.addPiece(ChessPosition.of(row, col++), piece);
+                }
+            }
+            if (col != 9) {
+                throw error("row " + row + " does not have 8 squares");
+            }
+            if (row > 1) {
+                if (index >= fen.length() || fen.charAt(index) != '/') {
+                    throw error("placement must describe 8 rows");
+                }
+                index++;
+            }
+        }
+        return board;
+    }
+
+    private ChessGame.TeamColor teamToMove() {
+        char c = fen.charAt(index++);
+        if (c != 'w' && c != 'b' || !atFieldEnd()) {
+            throw error("team to move must be w or b");
+        }
+        return c == 'w' ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+    }
+
+    private void castling() {
+        if (fen.charAt(index) == '-') {
+            index++;
+        } else {
+            int start = index;
+            while (!atFieldEnd() && "KQkq".indexOf(fen.charAt(index)) >= 0) {
+                index++;
+            }
+            if (index == start || index - start > 4) {
+                throw error("castling rights must be - or letters from KQkq");
+            }
+        }
+        if (!atFieldEnd()) {
+            throw error("castling rights must be - or letters from KQkq");
+        }
+    }
+
+    private void enPassant() {
+        char c = fen.charAt(index++);
+        if (c != '-') {
+            char rank = index < fen.length() ? fen.charAt(index++) : ' ';
+            if (c < 'a' || c > 'h' || rank != '3' && rank != '6') {
+                throw error("en passant square must be - or a square on rank 3 or 6");
+            }
+        }
+        if (!atFieldEnd()) {
+            throw error("en passant square must be - or a single square");
+        }
+    }
+
+    private int number() {
+        int start = index;
+        int value = 0;
+        while (!atFieldEnd()) {
+            char c = fen.charAt(index++);
+            if (c < '0' || c > '9' || index - start > 9) {
+                throw error("expected a number of at most 9 digits");
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Moves past the spaces ending the current field
+     *
+     * @return True if another field follows
+     */
+    private boolean nextField() {
+        if (index < fen.length() && !isSpace(fen.charAt(index))) {
+            throw error("fields must be separated by spaces");
+        }
+        skipSpaces();
+        return index < fen.length();
+    }
+
+    private void skipSpaces() {
+        while (index < fen.length() && isSpace(fen.charAt(index))) {
+            index++;
+        }
+    }
+
+    private boolean atFieldEnd() {
+        return index >= fen.length() || isSpace(fen.charAt(index));
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+
+    private IllegalArgumentException error(String problem) {
+        return new IllegalArgumentException("Bad FEN at character " + index + ", " + problem + ": " + fen);
+    }
+}
@@ -0,0 +1,118 @@
+package chess;
+
+import java.util.Collection;
+import java.util.HashSet;
+
+/**
+ * Everything about a position that depends on one team's legal moves: whether
+ * the team is in check, whether it is checkmated or stalemated, and the legal
+ * moves themselves.
+ * <p>
+ * {@link ChessGame} computes this once per position and team, so validating a
+ * move, listing a piece's moves and the check/checkmate/stalemate tests all
+ * share one round of move generation. Instances are immutable.
+ */
+public final class GameStatus {
+
+    private final ChessGame.TeamColor team;
+    private final long positionKey;
+    private final boolean inCheck;
+    private final int[] moves;
+
+    GameStatus(ChessGame.TeamColor team, long positionKey, boolean inCheck, int[] moves) {
+        this.team = team;
+        this.positionKey = positionKey;
+        this.inCheck = inCheck;
+        this.moves = moves;
+    }
+
+    /**
+     * Generates the legal moves of a team on a board
+     *
+     * @param generator generator to run, its previous analysis is discarded
+     * @param scratch   list to generate into, its contents are discarded
+     */
+    static GameStatus compute(ChessBoard board, ChessGame.TeamColor team,
+                              LegalMoveGenerator generator, MoveList scratch) {
+        generator.analyze(board, team);
+        scratch.clear();
+        generator.generate(scratch);
+        return new GameStatus(team, board.getPositionKey(), generator.isInCheck(), scratch.toArray());
+    }
+
+    public ChessGame.TeamColor getTeam() {
+        return team;
+    }
+
+    /**
+     * @return the {@link ChessBoard#getPositionKey()} of the board this was computed for
+     */
+    long getPositionKey() {
+        return positionKey;
+    }
+
+    public boolean isInCheck() {
+        return inCheck;
+    }
+
+    public boolean isCheckmate() {
+        return inCheck && moves.length == 0;
+    }
+
+    public boolean isStalemate() {
+        return !inCheck && moves.length == 0;
+    }
+
+    public boolean hasLegalMove() {
+        return moves.length > 0;
+    }
+
+    public int getMoveCount() {
+        return moves.length;
+    }
+
+    /**
+     * @return the legal move at index, encoded with {@link Move}
+     */
+    public int getMove(int index) {
+        return moves[index];
+    }
+
+    /**
+     * @return every legal move of the team
+     */
+    public Collection<ChessMove> getLegalMoves() {
+        Collection<ChessMove> legalMoves = new HashSet<>();
+        for (int move : moves) {
+            legalMoves.add(Move.toChessMove(move));
+        }
+        return legalMoves;
+    }
+
+    /**
+     * @return the legal moves of the piece on the given square
+     */
+    public Collection<ChessMove> movesFrom(ChessPosition position) {
+        int square = Bitboards.square(position);
+        Collection<ChessMove> legalMoves = new HashSet<>();
+        for (int move : moves) {
+            if (Move.from(move) == square) {
+                legalMoves.add(Move.toChessMove(move));
+            }
+        }
+        return legalMoves;
+    }
+
+    /**
+     * @return the legal move with the same start, end and promotion as the key
+     * from {@link Move#of(ChessMove)}, or -1 if the move is not legal
+     */
+    public int findByKey(int key) {
+        for (int move : moves) {
+            if (Move.key(move) == key) {
+                return move;
+            }
+        }
+        return -1;
+    }
+}
@@ -7,85 +7,46 @@ public class KingMovesCalculator {
     private ChessBoard board;
     private ChessPosition position;
     private Set<ChessMove> validMoves;
-    private Set<ChessMove> movesGoingToCheck;
 
-
-
-
-    // just a test
     public KingMovesCalculator(ChessBoard board, ChessPosition position) {
         this.board = board;
         this.position = position;
         this.validMoves = new HashSet<>();
-        this.movesGoingToCheck = new HashSet<>();
     }
 
     /**
-     * Calculate and return the valid moves for the bishop
+     * Calculate and return the valid moves for the king
+     * Moves into check are left for ChessGame to filter out
      *
      * @return Set of valid moves
      */
     public Set<ChessMove> calculateValidMoves() {
         validMoves.clear(); // Clear any previous valid moves
 
-        calculateMovesGoingToCheck();
-
-        calculateMoves();
+        MoveList moves = new MoveList();
+        generate(board, Bitboards.square(position), moves);
+        moves.addTo(validMoves);
 
         return validMoves;
     }
 
-    private void calculateMovesGoingToCheck() {
-        BishopMovesCalculator bishopMovesCalculator = new BishopMovesCalculator(board, position);
-    }
-
-    private void calculateMoves() {
-        // Check up
-        calculateMovesInDirection(1, 0);
-
-        // Check right
-        calculateMovesInDirection(0, 1);
-
-        // Check left
-        calculateMovesInDirection(0, -1);
-
-        // Check down
-        calculateMovesInDirection(-1, 0);
-
-        // Check upper right diagonal
-        calculateMovesInDirection(1, 1);
-
-        // Check upper left diagonal
-        calculateMovesInDirection(1, -1);
-
-        // Check lower right diagonal
-        calculateMovesInDirection(-1, 1);
-
-        // Check lower left diagonal
-        calculateMovesInDirection(-1, -1);
+    /**
+     * Adds the moves for the king on square to the list without allocating
+     * Moves into check are left for ChessGame to filter out
+     */
+    static void generate(ChessBoard board, int square, MoveList moves) {
+        generate(board, square, -1L, moves);
     }
 
-    private void calculateMovesInDirection(int rowDirection, int colDirection) {
-        int currentRow = position.getRow() + rowDirection;
-        int currentCol = position.getColumn() + colDirection;
-
-        ChessPosition currentPosition = new ChessPosition(currentRow, currentCol);
-
-        if (board.isValidPosition(currentPosition)) {
-            ChessPiece pieceAtCurrentPosition = board.getPiece(currentPosition);
-
-            if (pieceAtCurrentPosition == null && !movesGoingToCheck.contains(currentPosition)) {
-                // Empty cell, add the move
-                validMoves.add(new ChessMove(position, currentPosition, null));
-            } else if (pieceAtCurrentPosition != null) {
-                // Occupied cell, check if the piece is an opponent's piece
-                if (pieceAtCurrentPosition.getTeamColor()
-                        != board.getPiece(position).getTeamColor()
-                        && !movesGoingToCheck.contains(currentPosition)) {
-                    validMoves.add(new ChessMove(position, currentPosition, null));
-                }
-            }
-        }
+    /**
+     * Same as {@link #generate(ChessBoard, int, MoveList)} but only adds moves
+     * that end on a square in the allowed mask
+     */
+    static void generate(ChessBoard board, int square, long allowed, MoveList moves) {
+        Bitboards bitboards = board.getBitboards();
+        ChessGame.TeamColor color = board.pieceAt(square).getTeamColor();
+        long targets = AttackTables.kingAttacks(square)
+                & ~bitboards.occupancy(color) & allowed;
+        MoveGenerator.addTargets(board, square, targets, moves);
     }
-
 }
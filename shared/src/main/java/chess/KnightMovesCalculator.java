@@ -16,61 +16,36 @@ public class KnightMovesCalculator {
     }
 
     /**
-     * Calculate and return the valid moves for the bishop
+     * Calculate and return the valid moves for the knight
      *
      * @return Set of valid moves
      */
     public Set<ChessMove> calculateValidMoves() {
         validMoves.clear(); // Clear any previous valid moves
 
-        calculateNormalMoves();
+        MoveList moves = new MoveList();
+        generate(board, Bitboards.square(position), moves);
+        moves.addTo(validMoves);
 
         return validMoves;
     }
 
-    private void calculateNormalMoves() {
-        // Check up left
-        calculateMovesInDirection(-1, 2);
-
-        // Check up right
-        calculateMovesInDirection(1, 2);
-
-        // Check down right
-        calculateMovesInDirection(1, -2);
-
-        // Check down left
-        calculateMovesInDirection(-1, -2);
-
-        // Check up left
-        calculateMovesInDirection(-2, 1);
-
-        // Check up right
-        calculateMovesInDirection(2, 1);
-
-        // Check down right
-        calculateMovesInDirection(2, - 1);
-
-        // Check down left
-        calculateMovesInDirection(-2, -1);
+    /**
+     * Adds the moves for the knight on square to the list without allocating
+     */
+    static void generate(ChessBoard board, int square, MoveList moves) {
+        generate(board, square, -1L, moves);
     }
 
-    private void calculateMovesInDirection(int row, int col) {
-        ChessPosition move = new ChessPosition(position.getRow()+row, position.getColumn()+col);
-
-        if(board.isValidPosition(move)){
-            ChessPiece pieceAtCurrentPosition = board.getPiece(new ChessPosition(move.getRow(), move.getColumn()));
-            if (pieceAtCurrentPosition == null) {
-                // Empty cell, add the move
-                validMoves.add(new ChessMove(position, new ChessPosition(move.getRow(), move.getColumn()), null));
-            } else {
-                // Occupied cell, check if the piece is an opponent's piece
-                if (pieceAtCurrentPosition.getTeamColor() != board.getPiece(position).getTeamColor()) {
-                    validMoves.add(new ChessMove(position, new ChessPosition(move.getRow(), move.getColumn()), null));
-                }
-
-            }
-        }
-
+    /**
+     * Same as {@link #generate(ChessBoard, int, MoveList)} but only adds moves
+     * that end on a square in the allowed mask
+     */
+    static void generate(ChessBoard board, int square, long allowed, MoveList moves) {
+        Bitboards bitboards = board.getBitboards();
+        ChessGame.TeamColor color = board.pieceAt(square).getTeamColor();
+        long targets = AttackTables.knightAttacks(square)
+                & ~bitboards.occupancy(color) & allowed;
+        MoveGenerator.addTargets(board, square, targets, moves);
     }
-
 }
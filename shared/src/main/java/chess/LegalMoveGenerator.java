@@ -0,0 +1,161 @@
+package chess;
+
+/**
+ * Generates only legal moves, without playing each candidate on the board to
+ * see whether it leaves the king in check.
+ * <p>
+ * {@link #analyze} works out once per position which enemy pieces give check
+ * and which of the mover's pieces are pinned to their king. Every other move is
+ * then restricted to the squares that keep the king safe: the king may only step
+ * to squares the enemy does not attack, a single check must be captured or
+ * blocked, a double check leaves only king moves, and a pinned piece may only
+ * move along the line between its king and the pinning piece.
+ * <p>
+ * An instance holds the analysis of the last position it was given, so it can
+ * be reused without allocating. It is not thread safe.
+ */
+public class LegalMoveGenerator {
+
+    private ChessBoard board;
+    private ChessGame.TeamColor color;
+    private ChessGame.TeamColor enemyColor;
+    private int kingSquare;
+    private long checkers;
+    private long pinned;
+    private final long[] pinRays = new long[64];
+
+    /**
+     * Works out checks and pins for the given team, to be used by the generate
+     * methods until the board changes
+     *
+     * @param board the position to generate moves for
+     * @param color the team to move
+     */
+    public void analyze(ChessBoard board, ChessGame.TeamColor color) {
+        this.board = board;
+        this.color = color;
+        this.enemyColor = color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        this.checkers = 0;
+        this.pinned = 0;
+
+        Bitboards bitboards = board.getBitboards();
+        kingSquare = Bitboards.firstSquare(bitboards.pieces(color, ChessPiece.PieceType.KING));
+        if (kingSquare < 0) {
+            // Boards without a king can't be in check, so every move is legal
+            return;
+        }
+
+        long occupied = bitboards.allPieces();
+        checkers = AttackTables.attackersTo(bitboards, kingSquare, enemyColor, occupied);
+
+        long enemyQueens = bitboards.pieces(enemyColor, ChessPiece.PieceType.QUEEN);
+        long snipers = (AttackTables.rookAttacks(kingSquare, 0)
+                & (bitboards.pieces(enemyColor, ChessPiece.PieceType.ROOK) | enemyQueens))
+                | (AttackTables.bishopAttacks(kingSquare, 0)
+                & (bitboards.pieces(enemyColor, ChessPiece.PieceType.BISHOP) | enemyQueens));
+        long ownPieces = bitboards.occupancy(color);
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long ray = AttackTables.between(kingSquare, sniper);
+            long blockers = ray & occupied;
+            if (Long.bitCount(blockers) == 1 && (blockers & ownPieces) != 0) {
+                pinned |= blockers;
+                pinRays[Long.numberOfTrailingZeros(blockers)] = ray | (1L << sniper);
+            }
+        }
+    }
+
+    /**
+     * @return True if the analyzed team's king is attacked
+     */
+    public boolean isInCheck() {
+        return checkers != 0;
+    }
+
+    /**
+     * Adds every legal move of the analyzed team to the list
+     */
+    public void generate(MoveList moves) {
+        long pieces = board.getBitboards().occupancy(color);
+        while (pieces != 0) {
+            generate(Long.numberOfTrailingZeros(pieces), moves);
+            pieces &= pieces - 1;
+        }
+    }
+
+    /**
+     * Adds the legal moves of the piece on square, which must belong to the analyzed team
+     */
+    public void generate(int square, MoveList moves) {
+        ChessPiece piece = board.pieceAt(square);
+        if (piece == null || piece.getTeamColor() != color) {
+            return;
+        }
+        if (kingSquare < 0) {
+            MoveGenerator.generatePieceMoves(board, square, moves);
+            return;
+        }
+        if (square == kingSquare) {
+            generateKingMoves(moves);
+            return;
+        }
+        if (Long.bitCount(checkers) > 1) {
+            // Only the king can answer a double check
+            return;
+        }
+
+        long allowed = -1L;
+        if (checkers != 0) {
+            int checker = Long.numberOfTrailingZeros(checkers);
+            allowed = AttackTables.between(kingSquare, checker) | checkers;
+        }
+        if ((pinned & (1L << square)) != 0) {
+            allowed &= pinRays[square];
+        }
+        if (allowed == 0) {
+            return;
+        }
+
+        switch (piece.getPieceType()) {
+            case QUEEN -> QueenMovesCalculator.generate(board, square, allowed, moves);
+            case BISHOP -> BishopMovesCalculator.generate(board, square, allowed, moves);
+            case KNIGHT -> KnightMovesCalculator.generate(board, square, allowed, moves);
+            case ROOK -> RookMovesCalculator.generate(board, square, allowed, moves);
+            case PAWN -> PawnMovesCalculator.generate(board, square, allowed, moves);
+            case KING -> KingMovesCalculator.generate(board, square, allowed, moves);
+        }
+    }
+
+    /**
+     * @return True if the analyzed team has at least one legal move
+     */
+    public boolean hasLegalMove(MoveList scratch) {
+        long pieces = board.getBitboards().occupancy(color);
+        while (pieces != 0) {
+            scratch.clear();
+            generate(Long.numberOfTrailingZeros(pieces), scratch);
+            if (!scratch.isEmpty()) {
+                return true;
+            }
+            pieces &= pieces - 1;
+        }
+        return false;
+    }
+
+    private void generateKingMoves(MoveList moves) {
+        Bitboards bitboards = board.getBitboards();
+        long targets = AttackTables.kingAttacks(kingSquare) & ~bitboards.occupancy(color);
+        // Take the king off the board so a slider checking it also covers the square behind it
+        long occupiedWithoutKing = bitboards.allPieces() & ~(1L << kingSquare);
+        long safe = 0;
+        while (targets != 0) {
+            int target = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            if (AttackTables.attackersTo(bitboards, target, enemyColor, occupiedWithoutKing) == 0) {
+                safe |= 1L << target;
+            }
+        }
+        MoveGenerator.addTargets(board, kingSquare, safe, moves);
+    }
+}
@@ -0,0 +1,100 @@
+package chess;
+
+/**
+ * Packs a chess move into a single int so move generation does not have to
+ * allocate a {@link ChessMove} and two {@link ChessPosition}s per move.
+ * <p>
+ * Layout, from the lowest bit up:
+ * <pre>
+ *  bits  0-5   start square (see {@link Bitboards} for square numbering)
+ *  bits  6-11  end square
+ *  bits 12-14  promotion piece type, 0 if none
+ *  bits 15-17  type of the piece being moved
+ *  bits 18-20  type of the piece being captured, 0 if none
+ * </pre>
+ * Piece types are stored as {@code ordinal() + 1} so that 0 can mean "no piece".
+ * The lower 15 bits identify the move the same way {@link ChessMove#equals} does
+ * and are what {@link #key} returns.
+ */
+public final class Move {
+
+    private static final int SQUARE_MASK = 0x3F;
+    private static final int TYPE_MASK = 0x7;
+    private static final int TO_SHIFT = 6;
+    private static final int PROMOTION_SHIFT = 12;
+    private static final int MOVED_SHIFT = 15;
+    private static final int CAPTURED_SHIFT = 18;
+    private static final int KEY_MASK = (1 << MOVED_SHIFT) - 1;
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private Move() {
+
+    }
+
+    public static int encode(int from, int to, ChessPiece.PieceType promotion,
+                             ChessPiece.PieceType moved, ChessPiece.PieceType captured) {
+        return from
+                | to << TO_SHIFT
+                | typeCode(promotion) << PROMOTION_SHIFT
+                | typeCode(moved) << MOVED_SHIFT
+                | typeCode(captured) << CAPTURED_SHIFT;
+    }
+
+    /**
+     * Encodes only the start, end and promotion of a move, which is enough to
+     * compare it against generated moves with {@link #key}
+     */
+    public static int of(ChessMove move) {
+        return Bitboards.square(move.getStartPosition())
+                | Bitboards.square(move.getEndPosition()) << TO_SHIFT
+                | typeCode(move.getPromotionPiece()) << PROMOTION_SHIFT;
+    }
+
+    public static int from(int move) {
+        return move & SQUARE_MASK;
+    }
+
+    public static int to(int move) {
+        return (move >>> TO_SHIFT) & SQUARE_MASK;
+    }
+
+    /**
+     * @return the start, end and promotion bits of the move
+     */
+    public static int key(int move) {
+        return move & KEY_MASK;
+    }
+
+    public static ChessPiece.PieceType promotion(int move) {
+        return type((move >>> PROMOTION_SHIFT) & TYPE_MASK);
+    }
+
+    public static ChessPiece.PieceType movedPiece(int move) {
+        return type((move >>> MOVED_SHIFT) & TYPE_MASK);
+    }
+
+    public static ChessPiece.PieceType capturedPiece(int move) {
+        return type((move >>> CAPTURED_SHIFT) & TYPE_MASK);
+    }
+
+    public static boolean isCapture(int move) {
+        return ((move >>> CAPTURED_SHIFT) & TYPE_MASK) != 0;
+    }
+
+    public static boolean isPromotion(int move) {
+        return ((move >>> PROMOTION_SHIFT) & TYPE_MASK) != 0;
+    }
+
+    public static ChessMove toChessMove(int move) {
+        return new ChessMove(Bitboards.position(from(move)), Bitboards.position(to(move)), promotion(move));
+    }
+
+    private static int typeCode(ChessPiece.PieceType type) {
+        return type == null ? 0 : type.ordinal() + 1;
+    }
+
+    private static ChessPiece.PieceType type(int code) {
+        return code == 0 ? null : TYPES[code - 1];
+    }
+}
@@ -0,0 +1,55 @@
+package chess;
+
+/**
+ * Fills {@link MoveList}s with pseudo-legal moves, meaning moves that follow how
+ * each piece moves but may still leave the mover's king in check.
+ */
+public final class MoveGenerator {
+
+    private MoveGenerator() {
+
+    }
+
+    /**
+     * Adds the moves of the piece on square, if there is one
+     */
+    public static void generatePieceMoves(ChessBoard board, int square, MoveList moves) {
+        ChessPiece piece = board.pieceAt(square);
+        if (piece == null) {
+            return;
+        }
+        switch (piece.getPieceType()) {
+            case KING -> KingMovesCalculator.generate(board, square, moves);
+            case QUEEN -> QueenMovesCalculator.generate(board, square, moves);
+            case BISHOP -> BishopMovesCalculator.generate(board, square, moves);
+            case KNIGHT -> KnightMovesCalculator.generate(board, square, moves);
+            case ROOK -> RookMovesCalculator.generate(board, square, moves);
+            case PAWN -> PawnMovesCalculator.generate(board, square, moves);
+        }
+    }
+
+    /**
+     * Adds the moves of every piece belonging to the given team
+     */
+    public static void generateMoves(ChessBoard board, ChessGame.TeamColor color, MoveList moves) {
+        long pieces = board.getBitboards().occupancy(color);
+        while (pieces != 0) {
+            generatePieceMoves(board, Long.numberOfTrailingZeros(pieces), moves);
+            pieces &= pieces - 1;
+        }
+    }
+
+    /**
+     * Adds a move from square to every square in targets, which must not hold
+     * pieces of the mover's own team
+     */
+    static void addTargets(ChessBoard board, int from, long targets, MoveList moves) {
+        ChessPiece.PieceType moved = board.pieceAt(from).getPieceType();
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            ChessPiece captured = board.pieceAt(to);
+            moves.add(Move.encode(from, to, null, moved, captured == null ? null : captured.getPieceType()));
+            targets &= targets - 1;
+        }
+    }
+}
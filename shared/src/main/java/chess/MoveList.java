@@ -0,0 +1,98 @@
+package chess;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A growable list of moves encoded with {@link Move}, backed by an int array.
+ * Clearing and refilling the same list lets move generation run without
+ * allocating anything once the list has grown to fit.
+ */
+public class MoveList {
+
+    /**
+     * More than the number of legal moves in any reachable chess position
+     */
+    private static final int DEFAULT_CAPACITY = 256;
+
+    private int[] moves;
+    private int size;
+
+    public MoveList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MoveList(int capacity) {
+        moves = new int[capacity];
+    }
+
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Shrinks the list, dropping every move from newSize onwards
+     */
+    public void truncate(int newSize) {
+        size = newSize;
+    }
+
+    /**
+     * Removes the move at index by moving the last move into its place
+     */
+    public void removeFast(int index) {
+        moves[index] = moves[--size];
+    }
+
+    /**
+     * @return the generated move with the same start, end and promotion as the
+     * given key, or -1 if there is none
+     */
+    public int findByKey(int key) {
+        for (int i = 0; i < size; i++) {
+            if (Move.key(moves[i]) == key) {
+                return moves[i];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return a copy of the moves in the list
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(moves, size);
+    }
+
+    /**
+     * Converts every move in the list to a {@link ChessMove} and adds it to the collection
+     */
+    public void addTo(Collection<ChessMove> collection) {
+        for (int i = 0; i < size; i++) {
+            collection.add(Move.toChessMove(moves[i]));
+        }
+    }
+}
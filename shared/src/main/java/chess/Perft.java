@@ -0,0 +1,206 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counts the leaf nodes of the legal move tree to a fixed depth. Comparing the
+ * counts against known values for standard positions is the usual way to prove
+ * a move generator correct, and timing the walk gives its throughput.
+ * <p>
+ * The walk plays moves with {@link ChessBoard#makeMove(int)} and takes them back
+ * with {@link ChessBoard#unmakeMove()}, so it exercises the same code as games do.
+ * <p>
+ * Run from the shared module with
+ * {@code java chess.Perft "<fen>" <depth> [divide]}, or {@code java chess.Perft suite [maxDepth]}
+ * to check every reference position.
+ */
+public final class Perft {
+
+    /**
+     * A standard test position with its node counts for depths 1, 2, ...
+     * <p>
+     * The engine has no castling or en passant, so positions where those moves
+     * are possible use counts from a generator without them.
+     */
+    public record Reference(String name, String fen, long... nodes) {
+
+    }
+
+    public static final List<Reference> REFERENCE_POSITIONS = List.of(
+            new Reference("start", "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w",
+                    20, 400, 8902, 197281, 4865351),
+            new Reference("kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w",
+                    46, 1865, 86585, 3499358),
+            new Reference("rook endgame", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w",
+                    14, 191, 2810, 43087, 671300),
+            new Reference("promotions", "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b",
+                    24, 496, 9483, 182838),
+            new Reference("middlegame", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w",
+                    46, 2079, 89890)
+    );
+
+    private static final int MAX_DEPTH = 64;
+
+    private final ChessBoard board;
+    private final LegalMoveGenerator[] generators = new LegalMoveGenerator[MAX_DEPTH];
+    private final MoveList[] moveLists = new MoveList[MAX_DEPTH];
+
+    public Perft(ChessBoard board) {
+        this.board = board;
+        for (int i = 0; i < MAX_DEPTH; i++) {
+            generators[i] = new LegalMoveGenerator();
+            moveLists[i] = new MoveList();
+        }
+    }
+
+    /**
+     * @param color the team to move
+     * @param depth number of plies to search, at most 64
+     * @return number of positions reached after exactly depth plies
+     */
+    public long count(ChessGame.TeamColor color, int depth) {
+        if (depth < 0 || depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Depth must be between 0 and " + MAX_DEPTH);
+        }
+        return count(color, depth, 0);
+    }
+
+    /**
+     * Counts the nodes below each root move separately, which narrows a wrong
+     * total down to the move whose subtree is off
+     *
+     * @return one line per root move in "e2e4: 20" form, followed by the total
+     */
+    public List<String> divide(ChessGame.TeamColor color, int depth) {
+        if (depth < 1 || depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Depth must be between 1 and " + MAX_DEPTH);
+        }
+        MoveList moves = new MoveList();
+        LegalMoveGenerator generator = new LegalMoveGenerator();
+        generator.analyze(board, color);
+        generator.generate(moves);
+
+        List<String> lines = new ArrayList<>();
+        long total = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            board.makeMove(move);
+            long nodes = count(opponent(color), depth - 1, 0);
+            board.unmakeMove();
+            total += nodes;
+            lines.add(moveName(move) + ": " + nodes);
+        }
+        lines.add("Total: " + total);
+        return lines;
+    }
+
+    private long count(ChessGame.TeamColor color, int depth, int ply) {
+        if (depth == 0) {
+            return 1;
+        }
+        MoveList moves = moveLists[ply];
+        moves.clear();
+        generators[ply].analyze(board, color);
+        generators[ply].generate(moves);
+        if (depth == 1) {
+            // Every generated move is legal, so the last ply only needs counting
+            return moves.size();
+        }
+
+        ChessGame.TeamColor opponent = opponent(color);
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            nodes += count(opponent, depth - 1, ply + 1);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    private static ChessGame.TeamColor opponent(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+
+    /**
+     * @return the move in coordinate notation, such as e7e8q
+     */
+    public static String moveName(int move) {
+        String name = squareName(Move.from(move)) + squareName(Move.to(move));
+        ChessPiece.PieceType promotion = Move.promotion(move);
+        if (promotion != null) {
+            name += switch (promotion) {
+                case QUEEN -> "q";
+                case ROOK -> "r";
+                case BISHOP -> "b";
+                case KNIGHT -> "n";
+                default -> "";
+            };
+        }
+        return name;
+    }
+
+    private static String squareName(int square) {
+        return "" + (char) ('a' + Bitboards.column(square) - 1) + Bitboards.row(square);
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.out.println("""
+                    usage:
+                    java chess.Perft "<fen>" <depth> [divide]
+                    java chess.Perft suite [maxDepth]
+                    """);
+            return;
+        }
+        if (args[0].equals("suite")) {
+            int maxDepth = args.length > 1 ? Integer.parseInt(args[1]) : Integer.MAX_VALUE;
+            boolean passed = runSuite(maxDepth);
+            System.exit(passed ? 0 : 1);
+        }
+
+        ChessGame game = ChessGame.fromFen(args[0]);
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        Perft perft = new Perft(game.getBoard());
+        if (args.length > 2 && args[2].equals("divide")) {
+            perft.divide(game.getTeamTurn(), depth).forEach(System.out::println);
+            return;
+        }
+        for (int d = 1; d <= depth; d++) {
+            long start = System.nanoTime();
+            long nodes = perft.count(game.getTeamTurn(), d);
+            System.out.println(report(d, nodes, System.nanoTime() - start));
+        }
+    }
+
+    private static boolean runSuite(int maxDepth) {
+        boolean passed = true;
+        long totalNodes = 0;
+        long totalNanos = 0;
+        for (Reference reference : REFERENCE_POSITIONS) {
+            System.out.println(reference.name() + ": " + reference.fen());
+            ChessGame game = ChessGame.fromFen(reference.fen());
+            Perft perft = new Perft(game.getBoard());
+            for (int d = 1; d <= Math.min(maxDepth, reference.nodes().length); d++) {
+                long start = System.nanoTime();
+                long nodes = perft.count(game.getTeamTurn(), d);
+                long elapsed = System.nanoTime() - start;
+                totalNodes += nodes;
+                totalNanos += elapsed;
+                long expected = reference.nodes()[d - 1];
+                String result = nodes == expected ? "ok" : "FAILED, expected " + expected;
+                passed &= nodes == expected;
+                System.out.println("  " + report(d, nodes, elapsed) + "  " + result);
+            }
+        }
+        System.out.printf("%d nodes in %.2fs, %,.0f nodes/s%n",
+                totalNodes, totalNanos / 1e9, totalNodes / Math.max(totalNanos / 1e9, 1e-9));
+        return passed;
+    }
+
+    private static String report(int depth, long nodes, long nanos) {
+        double seconds = nanos / 1e9;
+        return String.format("depth %d: %d nodes in %.3fs (%,.0f nodes/s)",
+                depth, nodes, seconds, nodes / Math.max(seconds, 1e-9));
+    }
+}
@@ -0,0 +1,231 @@
+package chess;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size table of {@link GameStatus} results that every thread can share
+ * without locks, so games passing through the same position reuse each other's
+ * move generation.
+ * <p>
+ * Entries live in a single {@code long[]}. Each entry is a check word, a meta
+ * word holding the move count and check flag, and the legal moves packed two
+ * to a long. The check word is the position key XORed with every other word of
+ * the entry. Writers store without locking, so two threads can interleave their
+ * words in the same entry, but a reader recomputes the XOR and treats any entry
+ * that does not give back its key as a miss. A torn entry is never returned.
+ * <p>
+ * The table is split into buckets of two entries. Each entry records a coarse
+ * age that ticks about every millisecond, read from the clock rather than a
+ * shared counter so that writers on different threads never contend on it.
+ * Positions with more than
+ * {@link #MAX_MOVES} legal moves are not stored; they are rare and cheap to
+ * recompute compared to the space they would need.
+ */
+public final class PositionTable {
+
+    /**
+     * Which entry of a bucket a new result overwrites
+     */
+    public enum ReplacementPolicy {
+        /**
+         * Each position always maps to the same entry of its bucket, replacing
+         * whatever is there
+         */
+        ALWAYS,
+        /**
+         * A position takes the entry of its bucket that was written longest ago,
+         * or if both were written in the same tick of the age, the entry
+         * ALWAYS would give it
+         */
+        OLDEST
+    }
+
+    public static final int MAX_MOVES = 60;
+
+    private static final int ENTRY_LONGS = 2 + MAX_MOVES / 2;
+    private static final int BUCKET_ENTRIES = 2;
+    private static final int ENTRY_BYTES = ENTRY_LONGS * Long.BYTES;
+
+    private static final long COUNT_MASK = 0xFF;
+    private static final long CHECK_FLAG = 1L << 8;
+    private static final int AGE_SHIFT = 16;
+
+    /**
+     * Nanoseconds per tick of the age, as a shift: 2^20 ns is about a millisecond
+     */
+    private static final int AGE_TICK_SHIFT = 20;
+
+    private final long[] table;
+    private final int bucketMask;
+    private final ReplacementPolicy policy;
+    private final long createdNanos = System.nanoTime();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+
+    /**
+     * @param sizeBytes most memory the table may use; the number of buckets is
+     *                  the largest power of two that fits
+     * @param policy    which entry a new result replaces
+     */
+    public PositionTable(long sizeBytes, ReplacementPolicy policy) {
+        long buckets = Long.highestOneBit(sizeBytes / (ENTRY_BYTES * BUCKET_ENTRIES));
+        if (buckets < 1) {
+            throw new IllegalArgumentException("Position table needs at least "
+                    + ENTRY_BYTES * BUCKET_ENTRIES + " bytes");
+        }
+        long maxBuckets = Integer.highestOneBit(Integer.MAX_VALUE / (ENTRY_LONGS * BUCKET_ENTRIES));
+        buckets = Math.min(buckets, maxBuckets);
+        this.table = new long[(int) buckets * BUCKET_ENTRIES * ENTRY_LONGS];
+        this.bucketMask = (int) buckets - 1;
+        this.policy = policy;
+    }
+
+    /**
+     * Looks up the status of a team in the board's current position
+     *
+     * @return the stored status, or null if the position is not in the table
+     */
+    public GameStatus probe(ChessBoard board, ChessGame.TeamColor team) {
+        long boardKey = board.getPositionKey();
+        long key = key(boardKey, team);
+        int bucket = bucketOffset(key);
+        for (int entry = 0; entry < BUCKET_ENTRIES; entry++) {
+            int offset = bucket + entry * ENTRY_LONGS;
+            long meta = table[offset + 1];
+            int count = (int) (meta & COUNT_MASK);
+            if (count > MAX_MOVES) {
+                continue;
+            }
+            long checkWord = table[offset];
+            long check = checkWord ^ meta;
+            for (int word = 0; word < (count + 1) / 2; word++) {
+                check ^= table[offset + 2 + word];
+            }
+            if (check != key) {
+                continue;
+            }
+            // A writer may have changed the moves since, so check the copy too
+            int[] moves = new int[count];
+            check = checkWord ^ meta;
+            for (int word = 0; word < (count + 1) / 2; word++) {
+                long packed = table[offset + 2 + word];
+                check ^= packed;
+                moves[2 * word] = (int) packed;
+                if (2 * word + 1 < count) {
+                    moves[2 * word + 1] = (int) (packed >>> 32);
+                }
+            }
+            if (check == key) {
+                hits.increment();
+                return new GameStatus(team, boardKey, (meta & CHECK_FLAG) != 0, moves);
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Stores a status so later probes of the same position and team find it
+     */
+    public void store(GameStatus status) {
+        int count = status.getMoveCount();
+        if (count > MAX_MOVES) {
+            skipped.increment();
+            return;
+        }
+        long key = key(status.getPositionKey(), status.getTeam());
+        int offset = bucketOffset(key) + chooseEntry(key) * ENTRY_LONGS;
+
+        long meta = count | (status.isInCheck() ? CHECK_FLAG : 0) | (age() << AGE_SHIFT);
+        long check = key ^ meta;
+        for (int word = 0; word < (count + 1) / 2; word++) {
+            long low = status.getMove(2 * word) & 0xFFFFFFFFL;
+            long high = 2 * word + 1 < count ? (long) status.getMove(2 * word + 1) << 32 : 0;
+            long packed = low | high;
+            table[offset + 2 + word] = packed;
+            check ^= packed;
+        }
+        table[offset + 1] = meta;
+        table[offset] = check;
+        stores.increment();
+    }
+
+    private int chooseEntry(long key) {
+        if (policy == ReplacementPolicy.ALWAYS) {
+            return (int) (key >>> 63);
+        }
+        int bucket = bucketOffset(key);
+        long firstAge = table[bucket + 1] >>> AGE_SHIFT;
+        long secondAge = table[bucket + ENTRY_LONGS + 1] >>> AGE_SHIFT;
+        if (firstAge == secondAge) {
+            return (int) (key >>> 63);
+        }
+        return firstAge < secondAge ? 0 : 1;
+    }
+
+    /**
+     * @return ticks since the table was made, starting at 1 so that empty entries are always oldest
+     */
+    private long age() {
+        return ((System.nanoTime() - createdNanos) >>> AGE_TICK_SHIFT) + 1;
+    }
+
+    private int bucketOffset(long key) {
+        return ((int) key & bucketMask) * BUCKET_ENTRIES * ENTRY_LONGS;
+    }
+
+    private static long key(long boardKey, ChessGame.TeamColor team) {
+        return team == ChessGame.TeamColor.BLACK ? boardKey ^ Zobrist.sideToMove() : boardKey;
+    }
+
+    /**
+     * Empties the table and resets the counters. Not safe to call while other
+     * threads are using the table.
+     */
+    public void clear() {
+        Arrays.fill(table, 0);
+        hits.reset();
+        misses.reset();
+        stores.reset();
+        skipped.reset();
+    }
+
+    /**
+     * @return number of positions the table can hold
+     */
+    public int capacity() {
+        return table.length / ENTRY_LONGS;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getStores() {
+        return stores.sum();
+    }
+
+    /**
+     * @return number of results not stored because they had too many moves
+     */
+    public long getSkipped() {
+        return skipped.sum();
+    }
+
+    /**
+     * @return fraction of probes that found their position, or 0 before the first probe
+     */
+    public double hitRate() {
+        long hitCount = getHits();
+        long total = hitCount + getMisses();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+}
@@ -0,0 +1,52 @@
+package chess;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class QueenMovesCalculator {
+
+    private ChessBoard board;
+    private ChessPosition position;
+    private Set<ChessMove> validMoves;
+
+    public QueenMovesCalculator(ChessBoard board, ChessPosition position) {
+        this.board = board;
+        this.position = position;
+        this.validMoves = new HashSet<>();
+    }
+
+    /**
+     * Calculate and return the valid moves for the queen
+     *
+     * @return Set of valid moves
+     */
+    public Set<ChessMove> calculateValidMoves() {
+        validMoves.clear(); // Clear any previous valid moves
+
+        MoveList moves = new MoveList();
+        generate(board, Bitboards.square(position), moves);
+        moves.addTo(validMoves);
+
+        return validMoves;
+    }
+
+    /**
+     * Adds the moves for the queen on square to the list without allocating
+     */
+    static void generate(ChessBoard board, int square, MoveList moves) {
+        generate(board, square, -1L, moves);
+    }
+
+    /**
+     * Same as {@link #generate(ChessBoard, int, MoveList)} but only adds moves
+     * that end on a square in the allowed mask
+     */
+    static void generate(ChessBoard board, int square, long allowed, MoveList moves) {
+        // Rook and bishop rays never overlap, so one lookup each covers the queen
+        Bitboards bitboards = board.getBitboards();
+        ChessGame.TeamColor color = board.pieceAt(square).getTeamColor();
+        long targets = AttackTables.queenAttacks(square, bitboards.allPieces())
+                & ~bitboards.occupancy(color) & allowed;
+        MoveGenerator.addTargets(board, square, targets, moves);
+    }
+}
@@ -0,0 +1,185 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Exact results for positions with very little material left, so a game that
+ * is already decided can be ended instead of played out.
+ * <p>
+ * A king and queen, rook or pawn against a lone king is looked up in a table
+ * holding one byte per placement of the three pieces and side to move. The
+ * tables are built once by {@link #generate} and kept as files that are
+ * memory mapped, so they load instantly and stay off the heap. Positions no
+ * side can ever win are recognised without a table: bare kings, a lone minor
+ * piece, or bishops of the same square color on each side. Anything else has
+ * too many pieces and is not covered.
+ * <p>
+ * The engine has no castling or en passant, so the position and the team to
+ * move are all a lookup needs. Reads use absolute offsets only, so a tablebase
+ * can be shared by every thread.
+ */
+public final class Tablebase {
+
+    /**
+     * The result with best play, from the point of view of the team to move
+     */
+    public enum Outcome {
+        WIN,
+        DRAW,
+        LOSS
+    }
+
+    /**
+     * Piece types that have a table, in the order they have to be generated
+     */
+    private static final ChessPiece.PieceType[] TABLE_PIECES = {
+            ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.ROOK, ChessPiece.PieceType.PAWN};
+
+    private static final long LIGHT_SQUARES = 0x55AA55AA55AA55AAL;
+
+    private final Map<ChessPiece.PieceType, ByteBuffer> tables;
+
+    private Tablebase(Map<ChessPiece.PieceType, ByteBuffer> tables) {
+        this.tables = tables;
+    }
+
+    /**
+     * @return a tablebase without tables, which only recognises positions no side can win
+     */
+    public static Tablebase empty() {
+        return new Tablebase(new EnumMap<>(ChessPiece.PieceType.class));
+    }
+
+    /**
+     * Maps whichever table files are in a directory. Materials whose file is
+     * missing are not covered.
+     *
+     * @throws IOException if a file can't be read or has the wrong size
+     */
+    public static Tablebase open(Path directory) throws IOException {
+        Map<ChessPiece.PieceType, ByteBuffer> tables = new EnumMap<>(ChessPiece.PieceType.class);
+        for (ChessPiece.PieceType type : TABLE_PIECES) {
+            Path file = directory.resolve(fileName(type));
+            if (!Files.exists(file)) {
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                if (channel.size() != TablebaseGenerator.SIZE) {
+                    throw new IOException(file + " should be " + TablebaseGenerator.SIZE + " bytes");
+                }
+                tables.put(type, channel.map(FileChannel.MapMode.READ_ONLY, 0, TablebaseGenerator.SIZE));
+            }
+        }
+        return new Tablebase(tables);
+    }
+
+    /**
+     * Builds any table file missing from a directory, then opens them all.
+     * Building takes a few seconds per table and only happens once.
+     *
+     * @throws IOException if the directory or a file can't be written
+     */
+    public static Tablebase generate(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        byte[] queen = null;
+        byte[] rook = null;
+        for (ChessPiece.PieceType type : TABLE_PIECES) {
+            Path file = directory.resolve(fileName(type));
+            byte[] table;
+            if (Files.exists(file)) {
+                table = type == ChessPiece.PieceType.PAWN ? null : Files.readAllBytes(file);
+            } else {
+                table = new TablebaseGenerator(type, queen, rook).generate();
+                Path partial = directory.resolve(fileName(type) + ".tmp");
+                Files.write(partial, table);
+                Files.move(partial, file, StandardCopyOption.ATOMIC_MOVE);
+            }
+            if (type == ChessPiece.PieceType.QUEEN) {
+                queen = table;
+            } else if (type == ChessPiece.PieceType.ROOK) {
+                rook = table;
+            }
+        }
+        return open(directory);
+    }
+
+    private static String fileName(ChessPiece.PieceType type) {
+        return "K" + type.name().charAt(0) + "vK.tb";
+    }
+
+    /**
+     * @return the result for the team to move, or null if the position is not covered
+     */
+    public Outcome probe(ChessBoard board, ChessGame.TeamColor toMove) {
+        Bitboards bitboards = board.getBitboards();
+        long all = bitboards.allPieces();
+        int count = Long.bitCount(all);
+        if (count == 2) {
+            return Outcome.DRAW;
+        }
+        if (count == 4) {
+            return sameColorBishops(bitboards) ? Outcome.DRAW : null;
+        }
+        if (count != 3) {
+            return null;
+        }
+
+        long kings = bitboards.pieces(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING)
+                | bitboards.pieces(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING);
+        if (Long.bitCount(kings) != 2) {
+            return null;
+        }
+        int square = Long.numberOfTrailingZeros(all & ~kings);
+        ChessPiece piece = board.pieceAt(square);
+        ChessPiece.PieceType type = piece.getPieceType();
+        if (type == ChessPiece.PieceType.BISHOP || type == ChessPiece.PieceType.KNIGHT) {
+            return Outcome.DRAW;
+        }
+        ByteBuffer table = tables.get(type);
+        if (table == null) {
+            return null;
+        }
+
+        // Tables have the side with the piece as white; turn the board over when it is black
+        ChessGame.TeamColor strong = piece.getTeamColor();
+        ChessGame.TeamColor weak = strong == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        int flip = strong == ChessGame.TeamColor.WHITE ? 0 : 56;
+        int strongKing = Long.numberOfTrailingZeros(bitboards.pieces(strong, ChessPiece.PieceType.KING)) ^ flip;
+        int weakKing = Long.numberOfTrailingZeros(bitboards.pieces(weak, ChessPiece.PieceType.KING)) ^ flip;
+        int index = TablebaseGenerator.index(toMove == weak, strongKing, weakKing, square ^ flip);
+        return switch (table.get(index)) {
+            case TablebaseGenerator.WIN -> Outcome.WIN;
+            case TablebaseGenerator.LOSS -> Outcome.LOSS;
+            case TablebaseGenerator.DRAW -> Outcome.DRAW;
+            default -> null;
+        };
+    }
+
+    /**
+     * @return True if each side has a king and one bishop, both on the same square color
+     */
+    private static boolean sameColorBishops(Bitboards bitboards) {
+        long white = bitboards.pieces(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP);
+        long black = bitboards.pieces(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP);
+        if (Long.bitCount(white) != 1 || Long.bitCount(black) != 1) {
+            return false;
+        }
+        return ((white & LIGHT_SQUARES) == 0) == ((black & LIGHT_SQUARES) == 0);
+    }
+
+    /**
+     * @return True if there is a table for king and the given piece against king
+     */
+    public boolean hasTable(ChessPiece.PieceType type) {
+        return tables.containsKey(type);
+    }
+}
@@ -0,0 +1,190 @@
+package chess;
+
+/**
+ * Builds the win/draw/loss tables for a king and one piece against a lone king
+ * by retrograde analysis.
+ * <p>
+ * Every placement of the three pieces with either side to move gets one byte.
+ * Checkmates and stalemates are scored first, then the whole table is swept
+ * again and again: the side with the piece wins if some move reaches a
+ * position the lone king loses, and the lone king loses if every move it has
+ * reaches a position the other side wins. When a sweep changes nothing, every
+ * position still unresolved is a draw, since neither side can force anything.
+ * <p>
+ * Tables are built with the side that has the piece as white, so pawns always
+ * move up the board. A pawn that promotes is looked up in the queen and rook
+ * tables, which therefore have to be built first; a bishop or knight promotion
+ * is a draw.
+ */
+final class TablebaseGenerator {
+
+    static final byte DRAW = 0;
+    static final byte WIN = 1;
+    static final byte LOSS = 2;
+    static final byte ILLEGAL = 3;
+    private static final byte UNKNOWN = 4;
+
+    /**
+     * Side to move bit of an index: clear when the side with the piece is to move
+     */
+    static final int WEAK_TO_MOVE = 1 << 18;
+    static final int SIZE = 1 << 19;
+
+    private static final long BACK_ROWS = 0xFFL | (0xFFL << 56);
+
+    private final ChessPiece.PieceType piece;
+    private final byte[] queenTable;
+    private final byte[] rookTable;
+    private final byte[] table = new byte[SIZE];
+
+    /**
+     * @param piece      the extra piece
+     * @param queenTable finished queen table, needed for pawns only
+     * @param rookTable  finished rook table, needed for pawns only
+     */
+    TablebaseGenerator(ChessPiece.PieceType piece, byte[] queenTable, byte[] rookTable) {
+        this.piece = piece;
+        this.queenTable = queenTable;
+        this.rookTable = rookTable;
+    }
+
+    /**
+     * Index of a position in a table
+     *
+     * @param weakToMove   True if the lone king is to move
+     * @param strongKing   square of the king with the piece
+     * @param weakKing     square of the lone king
+     * @param pieceSquare  square of the piece
+     */
+    static int index(boolean weakToMove, int strongKing, int weakKing, int pieceSquare) {
+        return (weakToMove ? WEAK_TO_MOVE : 0) | strongKing << 12 | weakKing << 6 | pieceSquare;
+    }
+
+    byte[] generate() {
+        for (int index = 0; index < SIZE; index++) {
+            table[index] = isLegal(index) ? UNKNOWN : ILLEGAL;
+        }
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int index = 0; index < SIZE; index++) {
+                if (table[index] != UNKNOWN) {
+                    continue;
+                }
+                byte value = (index & WEAK_TO_MOVE) == 0 ? scoreStrong(index) : scoreWeak(index);
+                if (value != UNKNOWN) {
+                    table[index] = value;
+                    changed = true;
+                }
+            }
+        }
+        for (int index = 0; index < SIZE; index++) {
+            if (table[index] == UNKNOWN) {
+                table[index] = DRAW;
+            }
+        }
+        return table;
+    }
+
+    private boolean isLegal(int index) {
+        int strongKing = (index >>> 12) & 63;
+        int weakKing = (index >>> 6) & 63;
+        int square = index & 63;
+        if (strongKing == weakKing || square == strongKing || square == weakKing) {
+            return false;
+        }
+        if ((AttackTables.kingAttacks(strongKing) & bit(weakKing)) != 0) {
+            return false;
+        }
+        if (piece == ChessPiece.PieceType.PAWN && (bit(square) & BACK_ROWS) != 0) {
+            return false;
+        }
+        // With the strong side to move, the lone king can't already be in check
+        return (index & WEAK_TO_MOVE) != 0
+                || (pieceAttacks(square, bit(strongKing) | bit(weakKing)) & bit(weakKing)) == 0;
+    }
+
+    private byte scoreStrong(int index) {
+        int strongKing = (index >>> 12) & 63;
+        int weakKing = (index >>> 6) & 63;
+        int square = index & 63;
+        boolean hasMove = false;
+
+        long kingTargets = AttackTables.kingAttacks(strongKing) & ~bit(square)
+                & ~AttackTables.kingAttacks(weakKing) & ~bit(weakKing);
+        for (long targets = kingTargets; targets != 0; targets &= targets - 1) {
+            hasMove = true;
+            int to = Long.numberOfTrailingZeros(targets);
+            if (table[index(true, to, weakKing, square)] == LOSS) {
+                return WIN;
+            }
+        }
+
+        long occupied = bit(strongKing) | bit(weakKing) | bit(square);
+        if (piece == ChessPiece.PieceType.PAWN) {
+            int push = square + 8;
+            if ((occupied & bit(push)) == 0) {
+                hasMove = true;
+                if (pawnPushWins(strongKing, weakKing, push)) {
+                    return WIN;
+                }
+                int doublePush = square + 16;
+                if (square < 16 && (occupied & bit(doublePush)) == 0) {
+                    if (table[index(true, strongKing, weakKing, doublePush)] == LOSS) {
+                        return WIN;
+                    }
+                }
+            }
+        } else {
+            long pieceTargets = pieceAttacks(square, occupied) & ~occupied;
+            for (long targets = pieceTargets; targets != 0; targets &= targets - 1) {
+                hasMove = true;
+                int to = Long.numberOfTrailingZeros(targets);
+                if (table[index(true, strongKing, weakKing, to)] == LOSS) {
+                    return WIN;
+                }
+            }
+        }
+        return hasMove ? UNKNOWN : DRAW;
+    }
+
+    private boolean pawnPushWins(int strongKing, int weakKing, int to) {
+        int next = index(true, strongKing, weakKing, to);
+        if (to < 56) {
+            return table[next] == LOSS;
+        }
+        return queenTable[next] == LOSS || rookTable[next] == LOSS;
+    }
+
+    private byte scoreWeak(int index) {
+        int strongKing = (index >>> 12) & 63;
+        int weakKing = (index >>> 6) & 63;
+        int square = index & 63;
+
+        // Sliders see through the lone king, so it can't escape along their line
+        long attacked = AttackTables.kingAttacks(strongKing) | pieceAttacks(square, bit(strongKing) | bit(square));
+        long targets = AttackTables.kingAttacks(weakKing) & ~attacked & ~bit(strongKing);
+        if (targets == 0) {
+            return (attacked & bit(weakKing)) != 0 ? LOSS : DRAW;
+        }
+        if ((targets & bit(square)) != 0) {
+            // Taking the undefended piece leaves two bare kings
+            return DRAW;
+        }
+        for (; targets != 0; targets &= targets - 1) {
+            int to = Long.numberOfTrailingZeros(targets);
+            if (table[index(false, strongKing, to, square)] != WIN) {
+                return UNKNOWN;
+            }
+        }
+        return LOSS;
+    }
+
+    private long pieceAttacks(int square, long occupied) {
+        return AttackTables.attacks(piece, ChessGame.TeamColor.WHITE, square, occupied);
+    }
+
+    private static long bit(int square) {
+        return 1L << square;
+    }
+}
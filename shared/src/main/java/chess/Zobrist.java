@@ -0,0 +1,55 @@
+package chess;
+
+/**
+ * Random keys for Zobrist hashing. A position's key is the XOR of the key for
+ * every piece on its square, plus {@link #sideToMove()} when black is to move,
+ * so it can be updated with a couple of XORs per move instead of being
+ * recomputed.
+ * <p>
+ * The keys come from a fixed-seed generator, so the same position has the same
+ * key in every JVM and keys can be stored or shared between servers.
+ */
+public final class Zobrist {
+
+    private static final long[][] PIECE_KEYS = new long[12][64];
+    private static final long SIDE_TO_MOVE;
+
+    static {
+        long state = 0x43484553534B4559L;
+        for (long[] keys : PIECE_KEYS) {
+            for (int square = 0; square < 64; square++) {
+                state += 0x9E3779B97F4A7C15L;
+                keys[square] = mix(state);
+            }
+        }
+        state += 0x9E3779B97F4A7C15L;
+        SIDE_TO_MOVE = mix(state);
+    }
+
+    private Zobrist() {
+
+    }
+
+    /**
+     * @return the key for a piece index from {@link Bitboards#index} standing on square
+     */
+    public static long pieceKey(int pieceIndex, int square) {
+        return PIECE_KEYS[pieceIndex][square];
+    }
+
+    /**
+     * @return the key that is XORed in when black is the team to move
+     */
+    public static long sideToMove() {
+        return SIDE_TO_MOVE;
+    }
+
+    /**
+     * SplitMix64 finalizer
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,226 @@
+package chess.book;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An opening book in the Polyglot .bin layout, read through a memory mapping
+ * so the file is never copied onto the heap.
+ * <p>
+ * The file is a run of 16 byte big-endian entries sorted by position key: the
+ * key (8 bytes), the move (2 bytes), its weight (2 bytes) and a learning value
+ * (4 bytes) that is ignored here. A lookup binary searches the mapping for the
+ * first entry with the position's key and reads entries from there until the
+ * key changes, so it touches a few dozen pages no matter how large the book is.
+ * Files over 1 GiB are mapped in several pieces.
+ * <p>
+ * Positions are keyed with {@link PolyglotKey}, so books made by other
+ * programs can be used as they are. Reads use absolute offsets only, so a book
+ * can be probed from any number of threads.
+ */
+public final class OpeningBook {
+
+    public static final int ENTRY_BYTES = 16;
+
+    /**
+     * Entries per mapping; 2^26 entries of 16 bytes is 1 GiB
+     */
+    private static final int SEGMENT_SHIFT = 26;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    /**
+     * Polyglot promotion codes, indexed by code
+     */
+    private static final ChessPiece.PieceType[] PROMOTIONS = {null, ChessPiece.PieceType.KNIGHT,
+            ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.ROOK, ChessPiece.PieceType.QUEEN};
+
+    /**
+     * A move the book suggests and how often it should be played relative to
+     * the other moves for the same position
+     */
+    public record BookMove(ChessMove move, int weight) {
+
+    }
+
+    /**
+     * One entry to write into a book
+     *
+     * @param key the {@link PolyglotKey} of the position the move is played in
+     */
+    public record Entry(long key, ChessMove move, int weight) {
+
+        /**
+         * @return an entry for a move in the game's current position
+         */
+        public static Entry of(ChessGame game, ChessMove move, int weight) {
+            return new Entry(PolyglotKey.of(game), move, weight);
+        }
+    }
+
+    private final MappedByteBuffer[] segments;
+    private final long entryCount;
+
+    private OpeningBook(MappedByteBuffer[] segments, long entryCount) {
+        this.segments = segments;
+        this.entryCount = entryCount;
+    }
+
+    /**
+     * Maps a book file. The file can be closed or moved afterwards, but must
+     * not be rewritten while the book is in use.
+     *
+     * @throws IOException if the file can't be read or is not a whole number of entries
+     */
+    public static OpeningBook open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size % ENTRY_BYTES != 0) {
+                throw new IOException(file + " is not an opening book: size " + size
+                        + " is not a multiple of " + ENTRY_BYTES);
+            }
+            long entryCount = size / ENTRY_BYTES;
+            int segmentCount = (int) ((entryCount + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+            MappedByteBuffer[] segments = new MappedByteBuffer[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                long start = ((long) i << SEGMENT_SHIFT) * ENTRY_BYTES;
+                long length = Math.min(size - start, (SEGMENT_MASK + 1) * ENTRY_BYTES);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            }
+            return new OpeningBook(segments, entryCount);
+        }
+    }
+
+    /**
+     * @return number of entries in the book
+     */
+    public long size() {
+        return entryCount;
+    }
+
+    /**
+     * Looks up the book moves for the position of a game. Moves that are not
+     * legal in the position, such as castling, are left out.
+     *
+     * @return the moves, highest weight first, or an empty list if the position is not in the book
+     */
+    public List<BookMove> lookup(ChessGame game) {
+        long key = PolyglotKey.of(game);
+        List<BookMove> moves = new ArrayList<>();
+        for (long i = firstEntry(key); i < entryCount && keyAt(i) == key; i++) {
+            ChessMove move = decodeMove(segment(i).getShort(offset(i) + 8) & 0xFFFF);
+            int weight = segment(i).getShort(offset(i) + 10) & 0xFFFF;
+            if (weight > 0 && isLegal(game, move)) {
+                moves.add(new BookMove(move, weight));
+            }
+        }
+        moves.sort(Comparator.comparingInt(BookMove::weight).reversed());
+        return moves;
+    }
+
+    public boolean contains(ChessGame game) {
+        long key = PolyglotKey.of(game);
+        long first = firstEntry(key);
+        return first < entryCount && keyAt(first) == key;
+    }
+
+    /**
+     * @return index of the first entry whose key is not below the given key, in unsigned order
+     */
+    private long firstEntry(long key) {
+        long low = 0;
+        long high = entryCount;
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(keyAt(middle), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long keyAt(long entry) {
+        return segment(entry).getLong(offset(entry));
+    }
+
+    private MappedByteBuffer segment(long entry) {
+        return segments[(int) (entry >>> SEGMENT_SHIFT)];
+    }
+
+    private static int offset(long entry) {
+        return (int) (entry & SEGMENT_MASK) * ENTRY_BYTES;
+    }
+
+    private static boolean isLegal(ChessGame game, ChessMove move) {
+        ChessPiece piece = game.getBoard().getPiece(move.getStartPosition());
+        if (piece == null || piece.getTeamColor() != game.getTeamTurn()) {
+            return false;
+        }
+        Collection<ChessMove> legal = game.validMoves(move.getStartPosition());
+        return legal != null && legal.contains(move);
+    }
+
+    /**
+     * Writes a book file, sorting the entries into the order lookups need.
+     * Weights above 65535 are capped.
+     */
+    public static void write(Path file, Collection<Entry> entries) throws IOException {
+        List<Entry> sorted = new ArrayList<>(entries);
+        sorted.sort((a, b) -> a.key() != b.key()
+                ? Long.compareUnsigned(a.key(), b.key())
+                : Integer.compare(b.weight(), a.weight()));
+        try (OutputStream stream = Files.newOutputStream(file);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+            for (Entry entry : sorted) {
+                out.writeLong(entry.key());
+                out.writeShort(encodeMove(entry.move()));
+                out.writeShort(Math.min(entry.weight(), 0xFFFF));
+                out.writeInt(0);
+            }
+        }
+    }
+
+    /**
+     * Polyglot packs a move as to column, to row, from column, from row and
+     * promotion, three bits each from the lowest bits up, all counting from 0
+     */
+    static ChessMove decodeMove(int move) {
+        ChessPosition to = ChessPosition.of(((move >>> 3) & 7) + 1, (move & 7) + 1);
+        ChessPosition from = ChessPosition.of(((move >>> 9) & 7) + 1, ((move >>> 6) & 7) + 1);
+        int promotion = (move >>> 12) & 7;
+        return new ChessMove(from, to, promotion < PROMOTIONS.length ? PROMOTIONS[promotion] : null);
+    }
+
+    static int encodeMove(ChessMove move) {
+        ChessPosition from = move.getStartPosition();
+        ChessPosition to = move.getEndPosition();
+        int promotion = 0;
+        for (int i = 1; i < PROMOTIONS.length; i++) {
+            if (PROMOTIONS[i] == move.getPromotionPiece()) {
+                promotion = i;
+            }
+        }
+        return (to.getColumn() - 1)
+                | (to.getRow() - 1) << 3
+                | (from.getColumn() - 1) << 6
+                | (from.getRow() - 1) << 9
+                | promotion << 12;
+    }
+}
@@ -0,0 +1,132 @@
+package chess.book;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Names of well known openings, looked up by position so a game is recognised
+ * however its moves were ordered.
+ * <p>
+ * Each line of the source reads {@code Name | e2e4 e7e5 ...}. The moves are
+ * played from the starting position and the name is stored under the key of
+ * the position they reach. Blank lines and lines starting with # are skipped.
+ */
+public final class OpeningNames {
+
+    private static final String RESOURCE = "openings.txt";
+
+    private static volatile OpeningNames standard;
+
+    private final Map<Long, String> names;
+
+    private OpeningNames(Map<Long, String> names) {
+        this.names = names;
+    }
+
+    /**
+     * @return the names bundled with the engine, loaded on first use
+     */
+    public static OpeningNames standard() {
+        OpeningNames loaded = standard;
+        if (loaded == null) {
+            synchronized (OpeningNames.class) {
+                loaded = standard;
+                if (loaded == null) {
+                    loaded = load();
+                    standard = loaded;
+                }
+            }
+        }
+        return loaded;
+    }
+
+    private static OpeningNames load() {
+        try (InputStream in = OpeningNames.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing resource " + RESOURCE);
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            return parse(reader.lines().toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if a line is malformed or plays an illegal move
+     */
+    public static OpeningNames parse(List<String> lines) {
+        Map<Long, String> names = new HashMap<>();
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            int separator = trimmed.indexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected 'name | moves': " + line);
+            }
+            String name = trimmed.substring(0, separator).trim();
+            ChessGame game = new ChessGame();
+            for (String move : trimmed.substring(separator + 1).trim().split("\\s+")) {
+                try {
+                    game.makeMove(parseMove(move));
+                } catch (InvalidMoveException e) {
+                    throw new IllegalArgumentException("Illegal move " + move + " in " + name, e);
+                }
+            }
+            names.put(game.getPositionKey(), name);
+        }
+        return new OpeningNames(names);
+    }
+
+    /**
+     * @return the name of the opening the game's position belongs to, or null if it has none
+     */
+    public String nameOf(ChessGame game) {
+        return names.get(game.getPositionKey());
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    private static ChessMove parseMove(String move) {
+        if (move.length() < 4 || move.length() > 5) {
+            throw new IllegalArgumentException("Expected a move such as e2e4: " + move);
+        }
+        ChessPiece.PieceType promotion = null;
+        if (move.length() == 5) {
+            promotion = switch (move.charAt(4)) {
+                case 'q' -> ChessPiece.PieceType.QUEEN;
+                case 'r' -> ChessPiece.PieceType.ROOK;
+                case 'b' -> ChessPiece.PieceType.BISHOP;
+                case 'n' -> ChessPiece.PieceType.KNIGHT;
+                default -> throw new IllegalArgumentException("Unknown promotion: " + move);
+            };
+        }
+        return new ChessMove(parseSquare(move, 0), parseSquare(move, 2), promotion);
+    }
+
+    private static ChessPosition parseSquare(String move, int index) {
+        int col = move.charAt(index) - 'a' + 1;
+        int row = move.charAt(index + 1) - '0';
+        if (col < 1 || col > 8 || row < 1 || row > 8) {
+            throw new IllegalArgumentException("Not a square: " + move.substring(index, index + 2));
+        }
+        return ChessPosition.of(row, col);
+    }
+}
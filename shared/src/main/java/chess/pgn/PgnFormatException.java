@@ -0,0 +1,24 @@
+package chess.pgn;
+
+import java.io.IOException;
+
+/**
+ * Indicates a game in a PGN file could not be read. The reader moves on to the
+ * next game, so reading can continue after catching it.
+ */
+public class PgnFormatException extends IOException {
+
+    private final long line;
+
+    public PgnFormatException(long line, String message) {
+        super("Line " + line + ": " + message);
+        this.line = line;
+    }
+
+    /**
+     * @return line of the file the problem was found on, counting from 1
+     */
+    public long getLine() {
+        return line;
+    }
+}
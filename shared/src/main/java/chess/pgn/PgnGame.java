@@ -0,0 +1,35 @@
+package chess.pgn;
+
+import chess.ChessGame;
+import chess.ChessMove;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One game of a PGN file
+ *
+ * @param tags     tag pairs in the order they appeared, such as Event, White and Result
+ * @param moves    the moves played from the starting position
+ * @param comments comment text keyed by the number of moves played before it,
+ *                 so 0 is a comment before the first move
+ * @param result   1-0, 0-1, 1/2-1/2 or * for a game still going on
+ * @param position the game after the last move
+ */
+public record PgnGame(Map<String, String> tags, List<ChessMove> moves, Map<Integer, String> comments,
+                      String result, ChessGame position) {
+
+    /**
+     * @return a new game in the position the moves start from: the FEN tag if
+     * there is one, otherwise the standard starting position
+     * @throws IllegalArgumentException if the FEN tag is malformed
+     */
+    public ChessGame startingPosition() {
+        return startingPosition(tags);
+    }
+
+    static ChessGame startingPosition(Map<String, String> tags) {
+        String fen = tags.get("FEN");
+        return fen == null ? new ChessGame() : ChessGame.fromFen(fen);
+    }
+}
@@ -0,0 +1,298 @@
+package chess.pgn;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the games of a PGN file one at a time, so a file of any size can be
+ * imported while only the game being read is held in memory.
+ * <p>
+ * Each game is replayed on a {@link ChessGame} as it is read, which resolves
+ * the SAN moves and rejects illegal ones. Tag pairs and comments are kept;
+ * variations, numeric annotations and !? marks are skipped. A game that
+ * can't be read throws {@link PgnFormatException} and the reader moves on to
+ * the start of the next game, so one bad game doesn't stop an import.
+ */
+public class PgnReader implements Closeable {
+
+    private static final int BUFFER_CHARS = 1 << 16;
+    private static final int MAX_TOKEN = 256;
+    private static final int MAX_COMMENT = 1 << 16;
+    private static final int NONE = -2;
+
+    private final Reader in;
+    private final StringBuilder token = new StringBuilder();
+    private int peeked = NONE;
+    private long line = 1;
+    private int column;
+    private boolean inTags;
+    private boolean resync;
+
+    public PgnReader(Reader in) {
+        this.in = in instanceof BufferedReader ? in : new BufferedReader(in, BUFFER_CHARS);
+    }
+
+    /**
+     * @return the next game, or null at the end of the file
+     * @throws PgnFormatException if the game is malformed or has an illegal move
+     */
+    public PgnGame next() throws IOException {
+        if (resync) {
+            resync = false;
+            skipToNextGame();
+        }
+        if (skipWhitespace() == -1) {
+            return null;
+        }
+        try {
+            return readGame();
+        } catch (PgnFormatException e) {
+            resync = true;
+            throw e;
+        }
+    }
+
+    private PgnGame readGame() throws IOException {
+        Map<String, String> tags = new LinkedHashMap<>();
+        inTags = true;
+        while (skipWhitespace() == '[') {
+            readTag(tags);
+        }
+        inTags = false;
+
+        ChessGame game;
+        try {
+            game = PgnGame.startingPosition(tags);
+        } catch (IllegalArgumentException e) {
+            throw error(e.getMessage());
+        }
+        List<ChessMove> moves = new ArrayList<>();
+        Map<Integer, String> comments = new HashMap<>();
+        String result = null;
+        while (result == null) {
+            int c = skipWhitespace();
+            if (c == -1 || (c == '[' && column == 0)) {
+                // The file ended or the next game began without a result
+                break;
+            }
+            if (c == '{') {
+                read();
+                addComment(comments, moves.size(), readUntil('}'));
+            } else if (c == ';') {
+                read();
+                addComment(comments, moves.size(), readUntil('\n'));
+            } else if (c == '(') {
+                skipVariation();
+            } else if (c == '$' || c == '!' || c == '?' || c == '.') {
+                read();
+            } else if (c == '*') {
+                read();
+                result = "*";
+            } else if (isTokenChar(c)) {
+                String text = readToken();
+                if (text.equals("1-0") || text.equals("0-1") || text.equals("1/2-1/2")) {
+                    result = text;
+                } else if (!isMoveNumber(text)) {
+                    moves.add(play(game, text));
+                }
+            } else {
+                throw error("unexpected character '" + (char) c + "'");
+            }
+        }
+        if (result == null) {
+            result = tags.getOrDefault("Result", "*");
+        }
+        return new PgnGame(tags, moves, comments, result, game);
+    }
+
+    private ChessMove play(ChessGame game, String san) throws PgnFormatException {
+        try {
+            ChessMove move = San.parse(game, san);
+            San.play(game, move);
+            return move;
+        } catch (IllegalArgumentException | InvalidMoveException e) {
+            throw error(e.getMessage());
+        }
+    }
+
+    private void readTag(Map<String, String> tags) throws IOException {
+        read();
+        skipSpaces();
+        token.setLength(0);
+        while (Character.isLetterOrDigit(peek()) || peek() == '_') {
+            appendToken(read());
+        }
+        if (token.length() == 0) {
+            throw error("tag without a name");
+        }
+        String name = token.toString();
+        skipSpaces();
+        if (read() != '"') {
+            throw error("tag " + name + " has no quoted value");
+        }
+        token.setLength(0);
+        for (int c = read(); c != '"'; c = read()) {
+            if (c == -1 || c == '\n') {
+                throw error("tag " + name + " is not closed");
+            }
+            appendToken(c == '\\' ? read() : c);
+        }
+        skipSpaces();
+        if (read() != ']') {
+            throw error("tag " + name + " is missing ]");
+        }
+        tags.put(name, token.toString());
+    }
+
+    private String readToken() throws IOException {
+        token.setLength(0);
+        while (isTokenChar(peek())) {
+            appendToken(read());
+        }
+        return token.toString();
+    }
+
+    /**
+     * Reads up to and past a closing character, which may be on a later line
+     */
+    private String readUntil(int close) throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int c = read(); c != close; c = read()) {
+            if (c == -1) {
+                if (close == '\n') {
+                    break;
+                }
+                throw error("comment is not closed");
+            }
+            if (text.length() == MAX_COMMENT) {
+                throw error("comment longer than " + MAX_COMMENT + " characters");
+            }
+            text.append((char) c);
+        }
+        return text.toString().trim();
+    }
+
+    private void skipVariation() throws IOException {
+        int depth = 0;
+        do {
+            int c = read();
+            if (c == -1) {
+                throw error("variation is not closed");
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == '{') {
+                readUntil('}');
+            } else if (c == ';') {
+                readUntil('\n');
+            }
+        } while (depth > 0);
+    }
+
+    /**
+     * After a bad game, skips ahead to the first tag of the next game
+     */
+    private void skipToNextGame() throws IOException {
+        boolean lineIsTag = inTags;
+        for (int c = peek(); c != -1; c = peek()) {
+            if (column == 0) {
+                if (c == '[' && !lineIsTag) {
+                    return;
+                }
+                lineIsTag = c == '[';
+            }
+            read();
+        }
+    }
+
+    private static void addComment(Map<Integer, String> comments, int ply, String text) {
+        if (!text.isEmpty()) {
+            comments.merge(ply, text, (a, b) -> a + " " + b);
+        }
+    }
+
+    private static boolean isMoveNumber(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isDigit(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isTokenChar(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '+' || c == '#' || c == '=' || c == '-' || c == '/' || c == ':' || c == '_';
+    }
+
+    private void appendToken(int c) throws PgnFormatException {
+        if (token.length() == MAX_TOKEN) {
+            throw error("token longer than " + MAX_TOKEN + " characters");
+        }
+        token.append((char) c);
+    }
+
+    /**
+     * Skips whitespace and lines escaped with % in the first column
+     *
+     * @return the next character, which is not consumed, or -1 at the end
+     */
+    private int skipWhitespace() throws IOException {
+        while (true) {
+            int c = peek();
+            if (c == '%' && column == 0) {
+                readUntil('\n');
+            } else if (c != -1 && Character.isWhitespace(c)) {
+                read();
+            } else {
+                return c;
+            }
+        }
+    }
+
+    private void skipSpaces() throws IOException {
+        while (peek() == ' ' || peek() == '\t') {
+            read();
+        }
+    }
+
+    private int peek() throws IOException {
+        if (peeked == NONE) {
+            peeked = in.read();
+        }
+        return peeked;
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        peeked = NONE;
+        if (c == '\n') {
+            line++;
+            column = 0;
+        } else if (c != -1) {
+            column++;
+        }
+        return c;
+    }
+
+    private PgnFormatException error(String message) {
+        return new PgnFormatException(line, message);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,126 @@
+package chess.pgn;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * Writes games in PGN export format, one at a time straight to the
+ * underlying writer, so any number of games can be exported without
+ * building the file in memory.
+ * <p>
+ * The seven standard tags come first in their usual order, filled with ? when
+ * missing, followed by any others. Moves are replayed from the starting
+ * position to write them in SAN, and lines are wrapped at 80 characters.
+ */
+public class PgnWriter implements Closeable, Flushable {
+
+    private static final String[] SEVEN_TAG_ROSTER = {"Event", "Site", "Date", "Round", "White", "Black", "Result"};
+    private static final int LINE_WIDTH = 80;
+
+    private final Writer out;
+    private int column;
+
+    public PgnWriter(Writer out) {
+        this.out = out instanceof BufferedWriter ? out : new BufferedWriter(out);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the game has an illegal move
+     */
+    public void write(PgnGame game) throws IOException {
+        Map<String, String> tags = game.tags();
+        String result = game.result() != null ? game.result() : tags.getOrDefault("Result", "*");
+        for (String name : SEVEN_TAG_ROSTER) {
+            String value = name.equals("Result") ? result : tags.get(name);
+            writeTag(name, value != null ? value : name.equals("Date") ? "????.??.??" : "?");
+        }
+        if (tags.containsKey("FEN") && !tags.containsKey("SetUp")) {
+            writeTag("SetUp", "1");
+        }
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            if (!isRosterTag(tag.getKey())) {
+                writeTag(tag.getKey(), tag.getValue());
+            }
+        }
+        out.write('\n');
+
+        ChessGame position = game.startingPosition();
+        column = 0;
+        boolean needsNumber = true;
+        writeComment(game, 0);
+        for (int i = 0; i < game.moves().size(); i++) {
+            ChessMove move = game.moves().get(i);
+            if (position.getTeamTurn() == ChessGame.TeamColor.WHITE) {
+                writeWord(position.getFullmoveNumber() + ".");
+            } else if (needsNumber) {
+                writeWord(position.getFullmoveNumber() + "...");
+            }
+            writeWord(San.format(position, move));
+            try {
+                San.play(position, move);
+            } catch (InvalidMoveException e) {
+                throw new IllegalArgumentException("Illegal move " + move + ": " + e.getMessage(), e);
+            }
+            needsNumber = writeComment(game, i + 1);
+        }
+        writeWord(result);
+        out.write("\n\n");
+    }
+
+    private boolean writeComment(PgnGame game, int ply) throws IOException {
+        String comment = game.comments().get(ply);
+        if (comment == null) {
+            return false;
+        }
+        // A brace would end the comment early
+        writeWord("{" + comment.replace('}', ')') + "}");
+        return true;
+    }
+
+    private void writeTag(String name, String value) throws IOException {
+        out.write('[');
+        out.write(name);
+        out.write(" \"");
+        out.write(value.replace("\\", "\\\\").replace("\"", "\\\""));
+        out.write("\"]\n");
+    }
+
+    private void writeWord(String word) throws IOException {
+        if (column > 0 && column + 1 + word.length() > LINE_WIDTH) {
+            out.write('\n');
+            column = 0;
+        } else if (column > 0) {
+            out.write(' ');
+            column++;
+        }
+        out.write(word);
+        column += word.length();
+    }
+
+    private static boolean isRosterTag(String name) {
+        for (String rosterTag : SEVEN_TAG_ROSTER) {
+            if (rosterTag.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,311 @@
+package chess.pgn;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.GameStatus;
+import chess.InvalidMoveException;
+import chess.Move;
+
+/**
+ * Standard algebraic notation, the move format of PGN, such as Nf3, exd5,
+ * Rad1, e8=Q+ and O-O.
+ * <p>
+ * The engine does not generate castling or en passant, but recorded games are
+ * full of them, so {@link #play} carries them out by moving the pieces
+ * directly. Those two moves are trusted to be legal since the engine can't
+ * check them; every other move goes through {@link ChessGame#makeMove}.
+ */
+public final class San {
+
+    private static final char[] PIECE_LETTERS = {'K', 'Q', 'B', 'N', 'R', 0};
+
+    private San() {
+
+    }
+
+    /**
+     * Finds the move a SAN string describes in a game's position. Check,
+     * mate and annotation marks at the end are ignored.
+     *
+     * @throws IllegalArgumentException if the string is malformed or matches no move, or more than one
+     */
+    public static ChessMove parse(ChessGame game, String san) {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        String text = san.substring(0, end);
+        if (text.equals("O-O") || text.equals("0-0")) {
+            return castling(game, 7);
+        }
+        if (text.equals("O-O-O") || text.equals("0-0-0")) {
+            return castling(game, 3);
+        }
+
+        int index = 0;
+        ChessPiece.PieceType type = ChessPiece.PieceType.PAWN;
+        if (index < end && Character.isUpperCase(text.charAt(index))) {
+            type = pieceType(text.charAt(index++), san);
+        }
+        ChessPiece.PieceType promotion = null;
+        int promotionAt = text.indexOf('=');
+        if (promotionAt >= 0) {
+            if (promotionAt != end - 2) {
+                throw new IllegalArgumentException("Bad promotion in " + san);
+            }
+            promotion = pieceType(text.charAt(end - 1), san);
+            end = promotionAt;
+        } else if (type == ChessPiece.PieceType.PAWN && end > 0 && Character.isUpperCase(text.charAt(end - 1))) {
+            // Some writers leave out the equals sign, as in e8Q
+            promotion = pieceType(text.charAt(end - 1), san);
+            end--;
+        }
+        if (end - index < 2) {
+            throw new IllegalArgumentException("Not a move: " + san);
+        }
+        int toCol = text.charAt(end - 2) - 'a' + 1;
+        int toRow = text.charAt(end - 1) - '0';
+        if (toCol < 1 || toCol > 8 || toRow < 1 || toRow > 8) {
+            throw new IllegalArgumentException("Not a move: " + san);
+        }
+
+        // Whatever is left between the piece and the square narrows down where it came from
+        int fromCol = 0;
+        int fromRow = 0;
+        for (int i = index; i < end - 2; i++) {
+            char c = text.charAt(i);
+            if (c >= 'a' && c <= 'h') {
+                fromCol = c - 'a' + 1;
+            } else if (c >= '1' && c <= '8') {
+                fromRow = c - '0';
+            } else if (c != 'x' && c != ':' && c != '-') {
+                throw new IllegalArgumentException("Not a move: " + san);
+            }
+        }
+
+        int to = (toRow - 1) * 8 + toCol - 1;
+        GameStatus status = game.getStatus(game.getTeamTurn());
+        int found = 0;
+        for (int i = 0; i < status.getMoveCount(); i++) {
+            int move = status.getMove(i);
+            int from = Move.from(move);
+            if (Move.to(move) == to && Move.movedPiece(move) == type && Move.promotion(move) == promotion
+                    && (fromCol == 0 || (from & 7) + 1 == fromCol)
+                    && (fromRow == 0 || (from >>> 3) + 1 == fromRow)) {
+                if (found != 0) {
+                    throw new IllegalArgumentException("Ambiguous move: " + san);
+                }
+                found = move;
+            }
+        }
+        if (found != 0) {
+            return Move.toChessMove(found);
+        }
+        if (type == ChessPiece.PieceType.PAWN && fromCol != 0 && promotion == null) {
+            ChessMove enPassant = new ChessMove(ChessPosition.of(toRow + (toRow == 6 ? -1 : 1), fromCol),
+                    ChessPosition.of(toRow, toCol), null);
+            if (isEnPassant(game, enPassant)) {
+                return enPassant;
+            }
+        }
+        throw new IllegalArgumentException("Illegal move: " + san);
+    }
+
+    /**
+     * Writes a legal move of a game's position in SAN, with + or # if it gives check or mate
+     *
+     * @throws IllegalArgumentException if the move is not legal in the position
+     */
+    public static String format(ChessGame game, ChessMove move) {
+        if (isCastling(game, move)) {
+            return move.getEndPosition().getColumn() == 7 ? "O-O" : "O-O-O";
+        }
+        if (isEnPassant(game, move)) {
+            return "" + file(move.getStartPosition()) + 'x' + square(move.getEndPosition());
+        }
+        GameStatus status = game.getStatus(game.getTeamTurn());
+        int encoded = status.findByKey(Move.of(move));
+        if (encoded == -1) {
+            throw new IllegalArgumentException("Illegal move: " + move);
+        }
+
+        StringBuilder san = new StringBuilder(8);
+        ChessPiece.PieceType type = Move.movedPiece(encoded);
+        if (type == ChessPiece.PieceType.PAWN) {
+            if (Move.isCapture(encoded)) {
+                san.append(file(move.getStartPosition()));
+            }
+        } else {
+            san.append(PIECE_LETTERS[type.ordinal()]);
+            appendDisambiguation(status, encoded, san);
+        }
+        if (Move.isCapture(encoded)) {
+            san.append('x');
+        }
+        san.append(square(move.getEndPosition()));
+        if (Move.promotion(encoded) != null) {
+            san.append('=').append(PIECE_LETTERS[Move.promotion(encoded).ordinal()]);
+        }
+
+        ChessBoard board = game.getBoard();
+        board.makeMove(encoded);
+        GameStatus reply = game.getStatus(opponent(game.getTeamTurn()));
+        if (reply.isCheckmate()) {
+            san.append('#');
+        } else if (reply.isInCheck()) {
+            san.append('+');
+        }
+        board.unmakeMove();
+        return san.toString();
+    }
+
+    /**
+     * Plays a move on a game, including castling and en passant
+     *
+     * @throws InvalidMoveException if the move is not legal in the position
+     */
+    public static void play(ChessGame game, ChessMove move) throws InvalidMoveException {
+        ChessBoard board = game.getBoard();
+        ChessPosition from = move.getStartPosition();
+        ChessPosition to = move.getEndPosition();
+        if (isCastling(game, move)) {
+            int row = from.getRow();
+            boolean kingside = to.getColumn() == 7;
+            ChessPosition rookFrom = ChessPosition.of(row, kingside ? 8 : 1);
+            ChessPosition rookTo = ChessPosition.of(row, kingside ? 6 : 4);
+            ChessPiece rook = board.getPiece(rookFrom);
+            board.addPiece(to, board.getPiece(from));
+            board.addPiece(from, null);
+            board.addPiece(rookTo, rook);
+            board.addPiece(rookFrom, null);
+            endTurn(game, game.getHalfmoveClock() + 1);
+        } else if (isEnPassant(game, move)) {
+            board.addPiece(to, board.getPiece(from));
+            board.addPiece(from, null);
+            board.addPiece(ChessPosition.of(from.getRow(), to.getColumn()), null);
+            endTurn(game, 0);
+        } else {
+            game.makeMove(move);
+        }
+    }
+
+    private static void endTurn(ChessGame game, int halfmoveClock) {
+        ChessGame.TeamColor mover = game.getTeamTurn();
+        game.setTeamTurn(opponent(mover));
+        game.setClocks(halfmoveClock,
+                game.getFullmoveNumber() + (mover == ChessGame.TeamColor.BLACK ? 1 : 0));
+    }
+
+    private static ChessMove castling(ChessGame game, int toCol) {
+        int row = game.getTeamTurn() == ChessGame.TeamColor.WHITE ? 1 : 8;
+        ChessMove move = new ChessMove(ChessPosition.of(row, 5), ChessPosition.of(row, toCol), null);
+        if (!isCastling(game, move)) {
+            throw new IllegalArgumentException("Castling is not possible in this position");
+        }
+        return move;
+    }
+
+    /**
+     * @return True if the move is the king stepping two squares from its starting
+     * square towards a rook in the corner, with nothing in between and the king
+     * not in check
+     */
+    private static boolean isCastling(ChessGame game, ChessMove move) {
+        ChessBoard board = game.getBoard();
+        ChessGame.TeamColor team = game.getTeamTurn();
+        int row = team == ChessGame.TeamColor.WHITE ? 1 : 8;
+        ChessPosition from = move.getStartPosition();
+        ChessPosition to = move.getEndPosition();
+        if (from.getRow() != row || from.getColumn() != 5 || to.getRow() != row
+                || (to.getColumn() != 7 && to.getColumn() != 3) || move.getPromotionPiece() != null
+                || !isPiece(board.getPiece(from), team, ChessPiece.PieceType.KING)) {
+            return false;
+        }
+        int rookCol = to.getColumn() == 7 ? 8 : 1;
+        if (!isPiece(board.getPiece(ChessPosition.of(row, rookCol)), team, ChessPiece.PieceType.ROOK)) {
+            return false;
+        }
+        for (int col = Math.min(5, rookCol) + 1; col < Math.max(5, rookCol); col++) {
+            if (board.getPiece(ChessPosition.of(row, col)) != null) {
+                return false;
+            }
+        }
+        return !game.isInCheck(team);
+    }
+
+    /**
+     * @return True if the move is a pawn taking diagonally onto an empty square
+     * behind an enemy pawn that could only just have made a double step
+     */
+    private static boolean isEnPassant(ChessGame game, ChessMove move) {
+        ChessBoard board = game.getBoard();
+        ChessGame.TeamColor team = game.getTeamTurn();
+        int direction = team == ChessGame.TeamColor.WHITE ? 1 : -1;
+        ChessPosition from = move.getStartPosition();
+        ChessPosition to = move.getEndPosition();
+        if (from.getRow() != (team == ChessGame.TeamColor.WHITE ? 5 : 4) || to.getRow() != from.getRow() + direction
+                || Math.abs(to.getColumn() - from.getColumn()) != 1 || move.getPromotionPiece() != null) {
+            return false;
+        }
+        return isPiece(board.getPiece(from), team, ChessPiece.PieceType.PAWN)
+                && board.getPiece(to) == null
+                && board.getPiece(ChessPosition.of(to.getRow() + direction, to.getColumn())) == null
+                && isPiece(board.getPiece(ChessPosition.of(from.getRow(), to.getColumn())),
+                opponent(team), ChessPiece.PieceType.PAWN);
+    }
+
+    private static void appendDisambiguation(GameStatus status, int encoded, StringBuilder san) {
+        int from = Move.from(encoded);
+        boolean sameCol = false;
+        boolean sameRow = false;
+        boolean ambiguous = false;
+        for (int i = 0; i < status.getMoveCount(); i++) {
+            int other = status.getMove(i);
+            int otherFrom = Move.from(other);
+            if (otherFrom != from && Move.to(other) == Move.to(encoded)
+                    && Move.movedPiece(other) == Move.movedPiece(encoded)) {
+                ambiguous = true;
+                sameCol |= (otherFrom & 7) == (from & 7);
+                sameRow |= (otherFrom >>> 3) == (from >>> 3);
+            }
+        }
+        if (!ambiguous) {
+            return;
+        }
+        if (!sameCol) {
+            san.append((char) ('a' + (from & 7)));
+        } else if (!sameRow) {
+            san.append((char) ('1' + (from >>> 3)));
+        } else {
+            san.append((char) ('a' + (from & 7))).append((char) ('1' + (from >>> 3)));
+        }
+    }
+
+    private static ChessPiece.PieceType pieceType(char letter, String san) {
+        for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+            if (PIECE_LETTERS[type.ordinal()] == letter) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown piece " + letter + " in " + san);
+    }
+
+    private static boolean isPiece(ChessPiece piece, ChessGame.TeamColor team, ChessPiece.PieceType type) {
+        return piece != null && piece.getTeamColor() == team && piece.getPieceType() == type;
+    }
+
+    private static char file(ChessPosition position) {
+        return (char) ('a' + position.getColumn() - 1);
+    }
+
+    private static String square(ChessPosition position) {
+        return "" + file(position) + position.getRow();
+    }
+
+    private static ChessGame.TeamColor opponent(ChessGame.TeamColor team) {
+        return team == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+}
@@ -0,0 +1,160 @@
+package chess.search;
+
+import chess.ChessGame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Searches one position on several threads at once in the Lazy SMP style.
+ * <p>
+ * Every thread runs its own {@link Searcher} over the whole tree, and they all
+ * share one {@link TranspositionTable}. The threads don't divide up the work;
+ * they speed each other up through the table, since whatever one thread has
+ * already searched the others can cut off or order by. Helper threads start
+ * their iterations at staggered depths so they spread out over the tree instead
+ * of searching the same nodes in step. The calling thread runs the main search,
+ * and when it hits its limits the helpers are stopped. The result is the main
+ * search's unless a helper finished a deeper iteration.
+ * <p>
+ * Searches share one pool of helper threads, so under load a helper may still
+ * be queued when the main search ends. It is then cancelled rather than waited
+ * for. Each search has its own stop signal, so a helper that starts late stops
+ * after its first iteration. {@link Searcher}s, with their move lists and
+ * tables, are kept between searches and reused.
+ * <p>
+ * With one thread the search runs on the calling thread with a cleared table,
+ * so the same position and depth or node limit always give the same result.
+ * Tests use this mode. Helper threads are daemons, so a searcher that is never
+ * shut down does not keep the JVM alive.
+ */
+public class ParallelSearcher {
+
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+    private final int threads;
+    private final TranspositionTable table;
+    private final ExecutorService helpers;
+    private final Queue<Searcher> idle = new ConcurrentLinkedQueue<>();
+    private final Searcher alone;
+
+    /**
+     * @param threads    number of threads per search, 1 for deterministic single thread searches
+     * @param tableBytes memory for the shared transposition table
+     */
+    public ParallelSearcher(int threads, long tableBytes) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one search thread");
+        }
+        this.threads = threads;
+        this.table = new TranspositionTable(tableBytes);
+        this.alone = new Searcher(table);
+        if (threads == 1) {
+            this.helpers = null;
+        } else {
+            int pool = POOL_COUNT.incrementAndGet();
+            AtomicInteger helperCount = new AtomicInteger();
+            this.helpers = Executors.newFixedThreadPool(threads - 1, task -> {
+                Thread thread = new Thread(task, "search-" + pool + "-helper-" + helperCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Searches the position of a game for the team whose turn it is
+     *
+     * @param game   the game to find a move in, which is not modified
+     * @param limits when to stop searching
+     * @return the best move found, with the nodes of every thread added together
+     */
+    public SearchResult search(ChessGame game, SearchLimits limits) {
+        if (threads == 1) {
+            return searchAlone(game, limits);
+        }
+
+        AtomicBoolean stop = new AtomicBoolean();
+        List<AtomicBoolean> claims = new ArrayList<>();
+        List<Future<SearchResult>> helperResults = new ArrayList<>();
+        for (int i = 1; i < threads; i++) {
+            int firstDepth = 1 + i % 2;
+            // Whoever sets the claim first decides whether the helper runs
+            AtomicBoolean claim = new AtomicBoolean();
+            claims.add(claim);
+            helperResults.add(helpers.submit(() -> claim.compareAndSet(false, true)
+                    ? searchWith(game, limits, stop, firstDepth) : null));
+        }
+
+        SearchResult best = searchWith(game, limits, stop, 1);
+        stop.set(true);
+
+        long nodes = best.nodes();
+        for (int i = 0; i < helperResults.size(); i++) {
+            Future<SearchResult> future = helperResults.get(i);
+            if (claims.get(i).compareAndSet(false, true)) {
+                // Still queued behind other searches' helpers
+                future.cancel(false);
+                continue;
+            }
+            SearchResult result;
+            try {
+                result = future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                helperResults.forEach(f -> f.cancel(true));
+                break;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Helper search failed", e.getCause());
+            }
+            nodes += result.nodes();
+            if (result.depth() > best.depth() && result.bestMove() != null) {
+                best = result;
+            }
+        }
+        return new SearchResult(best.bestMove(), best.score(), best.depth(), nodes, best.elapsedMillis());
+    }
+
+    private SearchResult searchWith(ChessGame game, SearchLimits limits, AtomicBoolean stop, int firstDepth) {
+        Searcher searcher = idle.poll();
+        if (searcher == null) {
+            searcher = new Searcher(table);
+        }
+        try {
+            searcher.setFirstDepth(firstDepth);
+            return searcher.search(game, limits, stop);
+        } finally {
+            idle.offer(searcher);
+        }
+    }
+
+    private SearchResult searchAlone(ChessGame game, SearchLimits limits) {
+        // Searches must not clear the table under each other
+        synchronized (table) {
+            table.clear();
+            alone.forget();
+            return alone.search(game, limits);
+        }
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Stops the helper threads. The searcher can't be used afterwards.
+     */
+    public void shutdown() {
+        if (helpers != null) {
+            helpers.shutdownNow();
+        }
+    }
+}
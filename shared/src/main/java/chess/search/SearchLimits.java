@@ -0,0 +1,42 @@
+package chess.search;
+
+/**
+ * When a search should stop. The search ends at whichever limit it reaches
+ * first, but always finishes at least a one ply search so it has a move to return.
+ *
+ * @param maxDepth   deepest iteration to search, in plies
+ * @param timeMillis wall clock budget, or 0 for no time limit
+ * @param maxNodes   node budget, or 0 for no node limit
+ */
+public record SearchLimits(int maxDepth, long timeMillis, long maxNodes) {
+
+    public SearchLimits {
+        if (maxDepth < 1) {
+            throw new IllegalArgumentException("maxDepth must be at least 1");
+        }
+        if (timeMillis < 0 || maxNodes < 0) {
+            throw new IllegalArgumentException("Limits must not be negative");
+        }
+    }
+
+    /**
+     * @return limits that search to a fixed depth
+     */
+    public static SearchLimits depth(int maxDepth) {
+        return new SearchLimits(maxDepth, 0, 0);
+    }
+
+    /**
+     * @return limits that search as deep as the time allows
+     */
+    public static SearchLimits time(long timeMillis) {
+        return new SearchLimits(Searcher.MAX_PLY, timeMillis, 0);
+    }
+
+    /**
+     * @return limits that search until the node budget is spent
+     */
+    public static SearchLimits nodes(long maxNodes) {
+        return new SearchLimits(Searcher.MAX_PLY, 0, maxNodes);
+    }
+}
@@ -0,0 +1,34 @@
+package chess.search;
+
+import chess.ChessMove;
+
+/**
+ * The outcome of a search
+ *
+ * @param bestMove      the move to play, or null if the team to move has no legal move
+ * @param score         centipawns from the point of view of the team to move, or a
+ *                      mate score as described in {@link Searcher#MATE_SCORE}
+ * @param depth         deepest iteration that finished
+ * @param nodes         positions visited
+ * @param elapsedMillis how long the search took
+ */
+public record SearchResult(ChessMove bestMove, int score, int depth, long nodes, long elapsedMillis) {
+
+    /**
+     * @return True if the score is a forced mate for either side
+     */
+    public boolean isMate() {
+        return Math.abs(score) >= Searcher.MATE_SCORE - Searcher.MAX_PLY;
+    }
+
+    /**
+     * @return plies until mate, positive when the team to move delivers it and
+     * negative when it is mated, or 0 if the score is not a mate
+     */
+    public int matePlies() {
+        if (!isMate()) {
+            return 0;
+        }
+        return score > 0 ? Searcher.MATE_SCORE - score : -(Searcher.MATE_SCORE + score);
+    }
+}
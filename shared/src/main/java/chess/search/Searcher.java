@@ -0,0 +1,505 @@
+package chess.search;
+
+import chess.Bitboards;
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.Evaluation;
+import chess.LegalMoveGenerator;
+import chess.Move;
+import chess.MoveList;
+import chess.Zobrist;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Picks a move with a negamax alpha-beta search.
+ * <p>
+ * The search deepens one ply at a time until it runs out of depth, time or
+ * nodes, and returns the best move of the last iteration. Each iteration tries
+ * the previous best move first. Other moves are ordered captures first, most
+ * valuable victim and least valuable attacker first (MVV-LVA), then killer
+ * moves that caused a cutoff at the same ply, then quiet moves by their history
+ * of causing cutoffs. At depth zero a quiescence search keeps resolving captures
+ * and promotions, so a position is never scored in the middle of an exchange.
+ * Positions are scored with {@link Evaluation}.
+ * <p>
+ * With a {@link TranspositionTable} the search also skips positions it has
+ * already searched deeply enough and tries their stored best move first.
+ * Several searchers can share one table, each on its own thread.
+ * <p>
+ * The search runs on a copy of the game's board, so the game is left alone. A
+ * searcher reuses its buffers between searches and is not thread safe; use one
+ * per thread.
+ */
+public class Searcher {
+
+    /**
+     * Score of being checkmated at the root. A mate found n plies from the root
+     * scores {@code MATE_SCORE - n} for the winner and {@code -(MATE_SCORE - n)}
+     * for the loser, so shorter mates score higher.
+     */
+    public static final int MATE_SCORE = 100_000;
+
+    static final int MAX_PLY = 64;
+
+    private static final int INFINITY = MATE_SCORE + 1;
+    private static final int CHECK_INTERVAL = 1024;
+
+
+    /**
+     * Values for picking the least valuable attacker, with the king as the most valuable
+     */
+    private static final int[] ATTACKER_VALUES = {1000, 900, 330, 320, 500, 100};
+
+    private static final int PV_BONUS = 4_000_000;
+    private static final int CAPTURE_BONUS = 2_000_000;
+    private static final int PROMOTION_BONUS = 1_500_000;
+    private static final int FIRST_KILLER_BONUS = 1_000_002;
+    private static final int SECOND_KILLER_BONUS = 1_000_001;
+    private static final int HISTORY_LIMIT = 1_000_000;
+
+    private final LegalMoveGenerator[] generators = new LegalMoveGenerator[MAX_PLY + 1];
+    private final MoveList[] moveLists = new MoveList[MAX_PLY + 1];
+    private final int[][] moveScores = new int[MAX_PLY + 1][256];
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    private final int[][][] history = new int[2][64][64];
+
+    private final TranspositionTable table;
+
+    private ChessBoard board;
+    private int firstDepth = 1;
+    private long nodes;
+    private long deadline;
+    private long nodeLimit;
+    private boolean stopped;
+    private boolean limitsActive;
+    private volatile AtomicBoolean stopSignal = new AtomicBoolean();
+
+    public Searcher() {
+        this(null);
+    }
+
+    /**
+     * @param table table to share results through, or null to search without one
+     */
+    public Searcher(TranspositionTable table) {
+        this.table = table;
+        for (int i = 0; i <= MAX_PLY; i++) {
+            generators[i] = new LegalMoveGenerator();
+            moveLists[i] = new MoveList();
+        }
+    }
+
+    /**
+     * Searches the position of a game for the team whose turn it is
+     *
+     * @param game   the game to find a move in, which is not modified
+     * @param limits when to stop searching
+     * @return the best move found and its score
+     */
+    public SearchResult search(ChessGame game, SearchLimits limits) {
+        return search(game, limits, new AtomicBoolean());
+    }
+
+    /**
+     * Searches until the limits are reached or the signal is set. The signal
+     * belongs to one search, so setting it before the search has started
+     * still stops it after its first iteration.
+     */
+    SearchResult search(ChessGame game, SearchLimits limits, AtomicBoolean stop) {
+        stopSignal = stop;
+        long start = System.nanoTime();
+        board = copyOf(game.getBoard());
+        ChessGame.TeamColor color = game.getTeamTurn();
+        prepare(limits, start);
+
+        LegalMoveGenerator generator = generators[0];
+        MoveList rootMoves = moveLists[0];
+        generator.analyze(board, color);
+        rootMoves.clear();
+        generator.generate(rootMoves);
+        if (rootMoves.isEmpty()) {
+            int score = generator.isInCheck() ? -MATE_SCORE : 0;
+            return new SearchResult(null, score, 0, 0, elapsedMillis(start));
+        }
+
+        int bestMove = rootMoves.get(0);
+        if (table != null) {
+            // Start from the move another search already found best here, if there is one
+            int tableMove = TranspositionTable.moveKey(table.probe(tableKey(color)));
+            for (int i = 0; i < rootMoves.size(); i++) {
+                if (tableMove != 0 && Move.key(rootMoves.get(i)) == tableMove) {
+                    bestMove = rootMoves.get(i);
+                }
+            }
+        }
+        int bestScore = -INFINITY;
+        int completedDepth = 0;
+        int maxDepth = Math.min(limits.maxDepth(), MAX_PLY);
+        ChessGame.TeamColor opponent = opposite(color);
+        int startDepth = Math.min(firstDepth, maxDepth);
+        for (int depth = startDepth; depth <= maxDepth; depth++) {
+            // The first iteration always finishes so there is a real move to return
+            limitsActive = depth > startDepth;
+            scoreMoves(rootMoves, moveScores[0], 0, color, Move.key(bestMove));
+            int alpha = -INFINITY;
+            int iterationMove = 0;
+            int iterationScore = -INFINITY;
+            for (int i = 0; i < rootMoves.size(); i++) {
+                int move = pickNext(rootMoves, moveScores[0], i);
+                board.makeMove(move);
+                int score = -alphaBeta(opponent, depth - 1, -INFINITY, -alpha, 1);
+                board.unmakeMove();
+                if (stopped) {
+                    break;
+                }
+                if (score > iterationScore) {
+                    iterationScore = score;
+                    iterationMove = move;
+                    alpha = Math.max(alpha, score);
+                }
+            }
+
+            if (iterationMove != 0) {
+                // A partial iteration still searched the previous best move first,
+                // so anything that beat it is at least as good
+                bestMove = iterationMove;
+                bestScore = iterationScore;
+            }
+            if (stopped) {
+                break;
+            }
+            completedDepth = depth;
+            if (table != null) {
+                table.store(tableKey(color), Move.key(bestMove), bestScore, depth, TranspositionTable.EXACT);
+            }
+            if (Math.abs(bestScore) >= MATE_SCORE - MAX_PLY) {
+                break;
+            }
+        }
+        return new SearchResult(Move.toChessMove(bestMove), bestScore, completedDepth, nodes, elapsedMillis(start));
+    }
+
+    /**
+     * Sets the depth of the first iteration. Helper threads sharing a table
+     * start at different depths so they don't all search the same tree in step.
+     */
+    void setFirstDepth(int firstDepth) {
+        this.firstDepth = Math.max(1, firstDepth);
+    }
+
+    /**
+     * Asks a running search to return as soon as it can. May be called from any thread.
+     */
+    public void stop() {
+        stopSignal.set(true);
+    }
+
+    /**
+     * Forgets the move ordering learned by earlier searches, so the next search
+     * runs as it would on a new searcher
+     */
+    void forget() {
+        for (int[][] colorHistory : history) {
+            for (int[] fromHistory : colorHistory) {
+                Arrays.fill(fromHistory, 0);
+            }
+        }
+    }
+
+    private void prepare(SearchLimits limits, long start) {
+        nodes = 0;
+        stopped = false;
+        deadline = limits.timeMillis() > 0 ? start + limits.timeMillis() * 1_000_000 : Long.MAX_VALUE;
+        nodeLimit = limits.maxNodes() > 0 ? limits.maxNodes() : Long.MAX_VALUE;
+        for (int[] plyKillers : killers) {
+            plyKillers[0] = 0;
+            plyKillers[1] = 0;
+        }
+        // Keep some history from the last search but let new cutoffs outweigh it
+        for (int[][] colorHistory : history) {
+            for (int[] fromHistory : colorHistory) {
+                for (int to = 0; to < 64; to++) {
+                    fromHistory[to] >>= 2;
+                }
+            }
+        }
+    }
+
+    private int alphaBeta(ChessGame.TeamColor color, int depth, int alpha, int beta, int ply) {
+        if (depth <= 0) {
+            return quiescence(color, alpha, beta, ply);
+        }
+        if (countNode()) {
+            return 0;
+        }
+        if (board.getRepetitionCount() > 0) {
+            return 0;
+        }
+        if (ply >= MAX_PLY) {
+            return evaluate(color);
+        }
+
+        long key = 0;
+        int tableMove = 0;
+        if (table != null) {
+            key = tableKey(color);
+            long entry = table.probe(key);
+            if (entry != 0) {
+                tableMove = TranspositionTable.moveKey(entry);
+                if (TranspositionTable.depth(entry) >= depth) {
+                    int score = fromTable(TranspositionTable.score(entry), ply);
+                    int bound = TranspositionTable.bound(entry);
+                    if (bound == TranspositionTable.EXACT
+                            || (bound == TranspositionTable.LOWER && score >= beta)
+                            || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                        return score;
+                    }
+                }
+            }
+        }
+
+        LegalMoveGenerator generator = generators[ply];
+        MoveList moves = moveLists[ply];
+        generator.analyze(board, color);
+        moves.clear();
+        generator.generate(moves);
+        if (moves.isEmpty()) {
+            return generator.isInCheck() ? -MATE_SCORE + ply : 0;
+        }
+        int tableDepth = depth;
+        if (generator.isInCheck()) {
+            // Look one ply further at checks so a mate threat isn't cut off at the horizon
+            depth++;
+        }
+
+        int[] scores = moveScores[ply];
+        scoreMoves(moves, scores, ply, color, tableMove);
+        ChessGame.TeamColor opponent = opposite(color);
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = pickNext(moves, scores, i);
+            board.makeMove(move);
+            int score = -alphaBeta(opponent, depth - 1, -beta, -alpha, ply + 1);
+            board.unmakeMove();
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        if (!Move.isCapture(move) && !Move.isPromotion(move)) {
+                            recordCutoff(move, color, depth, ply);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        if (table != null) {
+            int bound = best >= beta ? TranspositionTable.LOWER
+                    : best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+            table.store(key, Move.key(bestMove), toTable(best, ply), tableDepth, bound);
+        }
+        return best;
+    }
+
+    private int quiescence(ChessGame.TeamColor color, int alpha, int beta, int ply) {
+        if (countNode()) {
+            return 0;
+        }
+        if (ply >= MAX_PLY) {
+            return evaluate(color);
+        }
+
+        LegalMoveGenerator generator = generators[ply];
+        MoveList moves = moveLists[ply];
+        generator.analyze(board, color);
+        boolean inCheck = generator.isInCheck();
+        int best = -INFINITY;
+        if (!inCheck) {
+            // Standing pat: the side to move can usually do at least as well as doing nothing
+            best = evaluate(color);
+            if (best >= beta) {
+                return best;
+            }
+            alpha = Math.max(alpha, best);
+        }
+
+        moves.clear();
+        generator.generate(moves);
+        if (inCheck && moves.isEmpty()) {
+            return -MATE_SCORE + ply;
+        }
+        if (!inCheck) {
+            for (int i = moves.size() - 1; i >= 0; i--) {
+                if (!Move.isCapture(moves.get(i)) && !Move.isPromotion(moves.get(i))) {
+                    moves.removeFast(i);
+                }
+            }
+        }
+
+        int[] scores = moveScores[ply];
+        scoreMoves(moves, scores, ply, color, 0);
+        ChessGame.TeamColor opponent = opposite(color);
+        for (int i = 0; i < moves.size(); i++) {
+            int move = pickNext(moves, scores, i);
+            board.makeMove(move);
+            int score = -quiescence(opponent, -beta, -alpha, ply + 1);
+            board.unmakeMove();
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Counts a node and checks the limits every few nodes
+     *
+     * @return True if the search has to stop
+     */
+    private boolean countNode() {
+        nodes++;
+        if (limitsActive && (nodes & (CHECK_INTERVAL - 1)) == 0
+                && (stopSignal.get() || nodes >= nodeLimit || System.nanoTime() >= deadline)) {
+            stopped = true;
+        }
+        return stopped;
+    }
+
+    private int evaluate(ChessGame.TeamColor color) {
+        return Evaluation.evaluate(board.getBitboards(), color);
+    }
+
+    /**
+     * @param pvKey {@link Move#key(int)} of the move to try first, or 0 for none
+     */
+    private void scoreMoves(MoveList moves, int[] scores, int ply, ChessGame.TeamColor color, int pvKey) {
+        int[][] colorHistory = history[Bitboards.colorIndex(color)];
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int score;
+            if (pvKey != 0 && Move.key(move) == pvKey) {
+                score = PV_BONUS;
+            } else if (Move.isCapture(move)) {
+                score = CAPTURE_BONUS + Evaluation.pieceValue(Move.capturedPiece(move)) * 16
+                        - ATTACKER_VALUES[Move.movedPiece(move).ordinal()] / 16;
+            } else if (Move.isPromotion(move)) {
+                score = PROMOTION_BONUS + Evaluation.pieceValue(Move.promotion(move));
+            } else if (Move.key(move) == killers[ply][0]) {
+                score = FIRST_KILLER_BONUS;
+            } else if (Move.key(move) == killers[ply][1]) {
+                score = SECOND_KILLER_BONUS;
+            } else {
+                score = colorHistory[Move.from(move)][Move.to(move)];
+            }
+            scores[i] = score;
+        }
+    }
+
+    /**
+     * Moves the highest scoring move at or after index to index and returns it.
+     * Picking one move at a time is cheaper than sorting when a cutoff comes early.
+     */
+    private static int pickNext(MoveList moves, int[] scores, int index) {
+        int bestIndex = index;
+        for (int i = index + 1; i < moves.size(); i++) {
+            if (scores[i] > scores[bestIndex]) {
+                bestIndex = i;
+            }
+        }
+        int move = moves.get(bestIndex);
+        if (bestIndex != index) {
+            int score = scores[bestIndex];
+            moves.set(bestIndex, moves.get(index));
+            scores[bestIndex] = scores[index];
+            moves.set(index, move);
+            scores[index] = score;
+        }
+        return move;
+    }
+
+    private void recordCutoff(int move, ChessGame.TeamColor color, int depth, int ply) {
+        int key = Move.key(move);
+        if (killers[ply][0] != key) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = key;
+        }
+        int[][] colorHistory = history[Bitboards.colorIndex(color)];
+        int from = Move.from(move);
+        int to = Move.to(move);
+        colorHistory[from][to] += depth * depth;
+        if (colorHistory[from][to] >= HISTORY_LIMIT) {
+            for (int[] fromHistory : colorHistory) {
+                for (int square = 0; square < 64; square++) {
+                    fromHistory[square] >>= 1;
+                }
+            }
+        }
+    }
+
+    private long tableKey(ChessGame.TeamColor color) {
+        long key = board.getPositionKey();
+        return color == ChessGame.TeamColor.BLACK ? key ^ Zobrist.sideToMove() : key;
+    }
+
+    /**
+     * Mate scores count plies from the root, but a table entry can be reached at
+     * any ply, so they are stored counting from the entry's own position instead
+     */
+    private static int toTable(int score, int ply) {
+        if (score >= MATE_SCORE - MAX_PLY) {
+            return score + ply;
+        }
+        if (score <= -(MATE_SCORE - MAX_PLY)) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= MATE_SCORE - MAX_PLY) {
+            return score - ply;
+        }
+        if (score <= -(MATE_SCORE - MAX_PLY)) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    static ChessBoard copyOf(ChessBoard original) {
+        ChessBoard copy = new ChessBoard();
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = original.pieceAt(square);
+            if (piece != null) {
+                copy.addPiece(Bitboards.position(square), piece);
+            }
+        }
+        return copy;
+    }
+
+    private static ChessGame.TeamColor opposite(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+
+    private static long elapsedMillis(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -0,0 +1,126 @@
+package chess.search;
+
+import java.util.Arrays;
+
+/**
+ * Remembers the score, depth and best move of positions a search has already
+ * looked at, so a position reached again by another move order, on a later
+ * iteration or by another search thread is not searched twice.
+ * <p>
+ * Each entry is two longs: the entry's data, and the position key XORed with
+ * that data. Threads read and write entries without locks, so a write can land
+ * halfway through a read. A reader only trusts an entry whose two words still
+ * XOR back to its key, which a torn entry almost never does.
+ * <p>
+ * The data word holds the score in the high 32 bits, then the depth, the kind
+ * of bound, the best move's {@link chess.Move#key(int)} and a flag that marks
+ * the word as written.
+ */
+public final class TranspositionTable {
+
+    /**
+     * The stored score is the exact value of the position
+     */
+    public static final int EXACT = 0;
+    /**
+     * The search failed high, so the real value is at least the stored score
+     */
+    public static final int LOWER = 1;
+    /**
+     * The search failed low, so the real value is at most the stored score
+     */
+    public static final int UPPER = 2;
+
+    private static final int ENTRY_BYTES = 2 * Long.BYTES;
+
+    private static final long MOVE_MASK = 0x7FFF;
+    private static final int BOUND_SHIFT = 15;
+    private static final int DEPTH_SHIFT = 17;
+    private static final long DEPTH_MASK = 0x7F;
+    private static final long USED_FLAG = 1L << 24;
+    private static final int SCORE_SHIFT = 32;
+
+    private final long[] table;
+    private final int indexMask;
+
+    /**
+     * @param sizeBytes most memory the table may use; the number of entries is
+     *                  the largest power of two that fits
+     */
+    public TranspositionTable(long sizeBytes) {
+        long entries = Long.highestOneBit(sizeBytes / ENTRY_BYTES);
+        if (entries < 1) {
+            throw new IllegalArgumentException("Transposition table needs at least " + ENTRY_BYTES + " bytes");
+        }
+        entries = Math.min(entries, Integer.highestOneBit(Integer.MAX_VALUE / 2));
+        this.table = new long[(int) entries * 2];
+        this.indexMask = (int) entries - 1;
+    }
+
+    /**
+     * @param key position key including the side to move
+     * @return the entry's data word, or 0 if the position is not in the table
+     */
+    public long probe(long key) {
+        int offset = offset(key);
+        long data = table[offset + 1];
+        if ((table[offset] ^ data) != key || (data & USED_FLAG) == 0) {
+            return 0;
+        }
+        return data;
+    }
+
+    /**
+     * Stores a search result, replacing whatever shared its slot
+     *
+     * @param key     position key including the side to move
+     * @param moveKey {@link chess.Move#key(int)} of the best move, or 0 if none
+     * @param score   the score, with mate scores relative to this position
+     * @param depth   remaining depth the position was searched to
+     * @param bound   {@link #EXACT}, {@link #LOWER} or {@link #UPPER}
+     */
+    public void store(long key, int moveKey, int score, int depth, int bound) {
+        long data = ((long) score << SCORE_SHIFT)
+                | (Math.min(depth, DEPTH_MASK) << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT)
+                | (moveKey & MOVE_MASK)
+                | USED_FLAG;
+        int offset = offset(key);
+        table[offset] = key ^ data;
+        table[offset + 1] = data;
+    }
+
+    public static int score(long data) {
+        return (int) (data >> SCORE_SHIFT);
+    }
+
+    public static int depth(long data) {
+        return (int) ((data >>> DEPTH_SHIFT) & DEPTH_MASK);
+    }
+
+    public static int bound(long data) {
+        return (int) ((data >>> BOUND_SHIFT) & 3);
+    }
+
+    public static int moveKey(long data) {
+        return (int) (data & MOVE_MASK);
+    }
+
+    private int offset(long key) {
+        return ((int) (key ^ (key >>> 32)) & indexMask) * 2;
+    }
+
+    /**
+     * Empties the table. Not safe to call while a search is using it.
+     */
+    public void clear() {
+        Arrays.fill(table, 0);
+    }
+
+    /**
+     * @return number of positions the table can hold
+     */
+    public int capacity() {
+        return table.length / 2;
+    }
+}
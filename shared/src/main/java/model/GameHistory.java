@@ -0,0 +1,45 @@
+package model;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+import chess.Move;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A stored game with the moves that led to its position, for exporting it
+ *
+ * @param data     the game as it is now
+ * @param startFen the position the moves start from, or null for the standard start
+ * @param moves    the moves played from there, in order
+ */
+public record GameHistory(GameData data, String startFen, List<ChessMove> moves) {
+
+    /**
+     * @return the history of a game held in memory, from the standard start when
+     * its move log goes back that far, otherwise just its current position
+     */
+    public static GameHistory of(GameData data) {
+        ChessGame game = data.game();
+        int[] moveLog = game.getMoveLog();
+        if (moveLog != null && moveLog.length == game.getPly()) {
+            ChessGame replayed = new ChessGame();
+            List<ChessMove> moves = new ArrayList<>(moveLog.length);
+            try {
+                for (int key : moveLog) {
+                    ChessMove move = Move.toChessMove(key);
+                    replayed.makeMove(move);
+                    moves.add(move);
+                }
+                if (replayed.getPositionKey() == game.getPositionKey()) {
+                    return new GameHistory(data, null, moves);
+                }
+            } catch (InvalidMoveException e) {
+                // The log doesn't start from the standard position
+            }
+        }
+        return new GameHistory(data, game.toFen(), List.of());
+    }
+}
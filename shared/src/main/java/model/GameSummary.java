@@ -0,0 +1,25 @@
+package model;
+
+import chess.ChessGame;
+import chess.book.OpeningNames;
+
+/**
+ * What a list of games shows about each one, so listing games doesn't mean
+ * loading every position
+ *
+ * @param gameOver whether the game has ended
+ * @param teamTurn the team to move
+ * @param opening  the named opening the position is in, or null
+ */
+public record GameSummary(int gameID, String whiteUsername, String blackUsername, String gameName,
+                          boolean gameOver, ChessGame.TeamColor teamTurn, String opening) {
+
+    /**
+     * @return the summary of a game whose position is already loaded
+     */
+    public static GameSummary of(GameData data) {
+        ChessGame game = data.game();
+        return new GameSummary(data.gameID(), data.whiteUsername(), data.blackUsername(), data.gameName(),
+                game.getGameOver(), game.getTeamTurn(), OpeningNames.standard().nameOf(game));
+    }
+}
@@ -1,17 +1,17 @@
 package responsesandexceptions;
 
-import model.GameData;
+import model.GameSummary;
 
 import java.util.List;
 
 public class GameListResponse {
-    private List<GameData> games;
+    private List<GameSummary> games;
 
-    public List<GameData> getGames() {
+    public List<GameSummary> getGames() {
         return games;
     }
 
-    public void setGames(List<GameData> games) {
+    public void setGames(List<GameSummary> games) {
         this.games = games;
     }
 }
@@ -0,0 +1,49 @@
+package chess;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class ChessBoardTest {
+
+    @Test
+    void unmakeRestoresCapturedPiece() {
+        ChessBoard board = ChessBoard.fromFen("4k3/8/8/3p4/4P3/8/8/4K3");
+        board.makeMove(move("e4d5"));
+        assertEquals("4k3/8/8/3P4/8/8/8/4K3", board.toFen());
+        board.unmakeMove();
+        assertEquals("4k3/8/8/3p4/4P3/8/8/4K3", board.toFen());
+    }
+
+    @Test
+    void unmakeWithNothingToTakeBack() {
+        ChessBoard board = ChessBoard.fromFen("4k3/8/8/8/8/8/4P3/4K3");
+        IllegalStateException e = assertThrows(IllegalStateException.class, board::unmakeMove);
+        assertEquals("No move to take back", e.getMessage());
+
+        // The failed call leaves the board usable
+        board.makeMove(move("e2e4"));
+        board.unmakeMove();
+        assertEquals("4k3/8/8/8/8/8/4P3/4K3", board.toFen());
+        assertThrows(IllegalStateException.class, board::unmakeMove);
+    }
+
+    @Test
+    void replacedBoardHasNothingToTakeBack() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(Move.toChessMove(move("e2e4")));
+        game.setBoard(ChessBoard.fromFen("4k3/8/8/8/8/8/4P3/4K3"));
+
+        assertEquals(0, game.getBoard().getUndoDepth());
+        assertThrows(IllegalStateException.class, () -> game.getBoard().unmakeMove());
+        assertEquals("4k3/8/8/8/8/8/4P3/4K3", game.getBoard().toFen());
+    }
+
+    private static int move(String move) {
+        return Move.of(new ChessMove(position(move, 0), position(move, 2), null));
+    }
+
+    private static ChessPosition position(String move, int index) {
+        return ChessPosition.of(move.charAt(index + 1) - '0', move.charAt(index) - 'a' + 1);
+    }
+}
@@ -0,0 +1,72 @@
+package chess;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class EvaluationTest {
+
+    @Test
+    void startPositionIsEven() {
+        assertEquals(0, new ChessGame().getEvaluation());
+    }
+
+    @Test
+    void extraMaterialScoresForItsOwner() {
+        ChessGame whiteUp = ChessGame.fromFen("4k3/8/8/8/8/8/8/3QK3 w");
+        ChessGame blackUp = ChessGame.fromFen("3qk3/8/8/8/8/8/8/4K3 w");
+        assertTrue(whiteUp.getEvaluation() > 800, "scored " + whiteUp.getEvaluation());
+        assertTrue(blackUp.getEvaluation() < -800, "scored " + blackUp.getEvaluation());
+    }
+
+    @Test
+    void mirroredPositionNegatesScore() {
+        ChessGame game = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w");
+        ChessBoard flipped = new ChessBoard();
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = game.getBoard().pieceAt(square);
+            if (piece != null) {
+                ChessGame.TeamColor other = piece.getTeamColor() == ChessGame.TeamColor.WHITE
+                        ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+                flipped.addPiece(Bitboards.position(square ^ 56), ChessPiece.of(other, piece.getPieceType()));
+            }
+        }
+        assertNotEquals(0, game.getEvaluation());
+        assertEquals(-game.getEvaluation(), flipped.getEvaluation());
+    }
+
+    @Test
+    void passedPawnIsWorthMoreFurtherUp() {
+        ChessGame back = ChessGame.fromFen("4k3/8/8/8/8/8/P7/4K3 w");
+        ChessGame advanced = ChessGame.fromFen("4k3/P7/8/8/8/8/8/4K3 w");
+        assertTrue(advanced.getEvaluation() > back.getEvaluation() + 100);
+    }
+
+    @Test
+    void doubledAndIsolatedPawnsCost() {
+        ChessGame healthy = ChessGame.fromFen("4k3/8/8/8/8/8/PPP5/4K3 w");
+        ChessGame broken = ChessGame.fromFen("4k3/8/8/8/8/P7/P1P5/4K3 w");
+        assertTrue(healthy.getEvaluation() > broken.getEvaluation());
+    }
+
+    @Test
+    void movesKeepScoreInStepWithBoard() {
+        ChessGame game = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w");
+        ChessBoard board = game.getBoard();
+        int before = board.getEvaluation();
+        ChessGame.TeamColor color = game.getTeamTurn();
+        LegalMoveGenerator generator = new LegalMoveGenerator();
+        for (int ply = 0; ply < 6; ply++) {
+            MoveList moves = new MoveList();
+            generator.analyze(board, color);
+            generator.generate(moves);
+            board.makeMove(moves.get(moves.size() / 2));
+            assertEquals(Evaluation.evaluate(Bitboards.fromGrid(board.getBoard())), board.getEvaluation());
+            color = color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        }
+        for (int ply = 0; ply < 6; ply++) {
+            board.unmakeMove();
+        }
+        assertEquals(before, board.getEvaluation());
+    }
+}
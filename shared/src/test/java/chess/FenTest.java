@@ -0,0 +1,115 @@
+package chess;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class FenTest {
+
+    private static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1";
+
+    @Test
+    void startingPosition() {
+        assertEquals(START, new ChessGame().toFen());
+        ChessGame game = ChessGame.fromFen("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
+        assertEquals(new ChessGame().getBoard(), game.getBoard());
+        assertEquals(new ChessGame().getPositionKey(), game.getPositionKey());
+    }
+
+    @Test
+    void roundTripsEveryReferencePosition() {
+        for (Perft.Reference reference : Perft.REFERENCE_POSITIONS) {
+            ChessGame game = ChessGame.fromFen(reference.fen());
+            String fen = game.toFen();
+            assertEquals(reference.fen() + " - - 0 1", fen, reference.name());
+            ChessGame again = ChessGame.fromFen(fen);
+            assertEquals(game.getPositionKey(), again.getPositionKey(), reference.name());
+            assertEquals(game.getTeamTurn(), again.getTeamTurn(), reference.name());
+        }
+    }
+
+    @Test
+    void readsAllFields() {
+        ChessGame game = ChessGame.fromFen("  4k3/8/8/3pP3/8/8/8/4K3   b Kq d6 12 40 ");
+        assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+        assertEquals(12, game.getHalfmoveClock());
+        assertEquals(40, game.getFullmoveNumber());
+        assertEquals("4k3/8/8/3pP3/8/8/8/4K3 b - - 12 40", game.toFen());
+    }
+
+    @Test
+    void missingFieldsTakeDefaults() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/8/4K3");
+        assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+        assertEquals(0, game.getHalfmoveClock());
+        assertEquals(1, game.getFullmoveNumber());
+    }
+
+    @Test
+    void movesAdvanceClocks() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(move("g1f3"));
+        assertEquals("rnbqkbnr/pppppppp/8/8/8/5N2/PPPPPPPP/RNBQKB1R b - - 1 1", game.toFen());
+        game.makeMove(move("g8f6"));
+        assertEquals(2, game.getHalfmoveClock());
+        assertEquals(2, game.getFullmoveNumber());
+        game.makeMove(move("e2e4"));
+        assertEquals(0, game.getHalfmoveClock());
+        game.makeMove(move("f6e4"));
+        assertEquals("rnbqkb1r/pppppppp/8/8/4n3/5N2/PPPP1PPP/RNBQKB1R w - - 0 3", game.toFen());
+    }
+
+    @Test
+    void copiesShareNothing() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/4P3/4K3 b - - 3 40");
+        game.setGameOver(true);
+        ChessGame copy = game.copy();
+        assertEquals(game.toFen(), copy.toFen());
+        assertTrue(copy.getGameOver());
+
+        copy.makeMove(move("e8d7"));
+        assertEquals("4k3/8/8/8/8/8/4P3/4K3 b - - 3 40", game.toFen());
+        assertEquals(ChessGame.TeamColor.WHITE, copy.getTeamTurn());
+    }
+
+    @Test
+    void boardReadsPlacementOnly() {
+        ChessBoard board = ChessBoard.fromFen(START);
+        ChessBoard start = new ChessBoard();
+        start.resetBoard();
+        assertEquals(start, board);
+        assertEquals("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR", board.toFen());
+        assertEquals("8/8/8/8/8/8/8/8", new ChessBoard().toFen());
+    }
+
+    @Test
+    void rejectsBadRows() {
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen("8/8/8 w"));
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen("9/8/8/8/8/8/8/8 w"));
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen("7/8/8/8/8/8/8/8 w"));
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen("ppppppppp/8/8/8/8/8/8/8 w"));
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen("x7/8/8/8/8/8/8/8 w"));
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen("8/8/8/8/8/8/8/8/8 w"));
+    }
+
+    @Test
+    void rejectsBadFields() {
+        String board = "4k3/8/8/8/8/8/8/4K3 ";
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen(board + "x"));
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen(board + "w KQkqK"));
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen(board + "w X"));
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen(board + "w - e4"));
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen(board + "w - - x 1"));
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen(board + "w - - 0 0"));
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen(board + "w - - 0 1 extra"));
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen(board + "w - - 9999999999 1"));
+    }
+
+    private static ChessMove move(String move) {
+        return new ChessMove(position(move, 0), position(move, 2), null);
+    }
+
+    private static ChessPosition position(String move, int index) {
+        return ChessPosition.of(move.charAt(index + 1) - '0', move.charAt(index) - 'a' + 1);
+    }
+}
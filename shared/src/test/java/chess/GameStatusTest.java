@@ -0,0 +1,47 @@
+package chess;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class GameStatusTest {
+
+    @Test
+    void statusIsReusedUntilTheBoardChanges() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        GameStatus status = game.getStatus(ChessGame.TeamColor.WHITE);
+        assertSame(status, game.getStatus(ChessGame.TeamColor.WHITE));
+        assertEquals(20, status.getMoveCount());
+
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        GameStatus afterMove = game.getStatus(ChessGame.TeamColor.WHITE);
+        assertNotSame(status, afterMove);
+        assertEquals(30, afterMove.getMoveCount());
+    }
+
+    @Test
+    void directBoardChangesAreSeen() {
+        ChessGame game = new ChessGame();
+        assertFalse(game.isInCheck(ChessGame.TeamColor.BLACK));
+        game.getBoard().addPiece(new ChessPosition(7, 5), null);
+        game.getBoard().addPiece(new ChessPosition(6, 5),
+                new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        assertTrue(game.isInCheck(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    void foolsMate() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 6), new ChessPosition(3, 6), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(2, 7), new ChessPosition(4, 7), null));
+        game.makeMove(new ChessMove(new ChessPosition(8, 4), new ChessPosition(4, 8), null));
+
+        GameStatus status = game.getStatus(ChessGame.TeamColor.WHITE);
+        assertTrue(status.isInCheck());
+        assertTrue(status.isCheckmate());
+        assertFalse(status.isStalemate());
+        assertTrue(status.getLegalMoves().isEmpty());
+        assertTrue(game.validMoves(new ChessPosition(2, 1)).isEmpty());
+    }
+}
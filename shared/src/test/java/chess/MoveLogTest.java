@@ -0,0 +1,37 @@
+package chess;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class MoveLogTest {
+
+    @Test
+    void logsMovesFromTheSetUpPosition() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/4P3/4K3 b - - 0 30");
+        assertEquals(59, game.getPly());
+        assertArrayEquals(new int[0], game.getMoveLog());
+
+        ChessMove kingMove = new ChessMove(ChessPosition.of(8, 5), ChessPosition.of(7, 4), null);
+        ChessMove pawnMove = new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null);
+        game.makeMove(kingMove);
+        game.makeMove(pawnMove);
+        assertEquals(61, game.getPly());
+        int[] log = game.getMoveLog();
+        assertEquals(2, log.length);
+        assertEquals(kingMove, Move.toChessMove(log[0]));
+        assertEquals(pawnMove, Move.toChessMove(log[1]));
+        assertArrayEquals(log, game.copy().getMoveLog());
+    }
+
+    @Test
+    void dropsTheLogWhenThePositionIsChangedDirectly() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        game.setTeamTurn(ChessGame.TeamColor.WHITE);
+        assertNull(game.getMoveLog());
+        game.makeMove(new ChessMove(ChessPosition.of(2, 4), ChessPosition.of(4, 4), null));
+        assertNull(game.getMoveLog());
+        assertNull(game.copy().getMoveLog());
+    }
+}
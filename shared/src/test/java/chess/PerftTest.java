@@ -0,0 +1,44 @@
+package chess;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class PerftTest {
+
+    // Deeper counts are checked by running the suite from Perft.main
+    private static final int MAX_TEST_DEPTH = 3;
+
+    @Test
+    void referencePositions() {
+        for (Perft.Reference reference : Perft.REFERENCE_POSITIONS) {
+            ChessGame game = ChessGame.fromFen(reference.fen());
+            Perft perft = new Perft(game.getBoard());
+            for (int depth = 1; depth <= Math.min(MAX_TEST_DEPTH, reference.nodes().length); depth++) {
+                assertEquals(reference.nodes()[depth - 1], perft.count(game.getTeamTurn(), depth),
+                        reference.name() + " depth " + depth);
+            }
+        }
+    }
+
+    @Test
+    void countLeavesBoardUnchanged() {
+        String fen = Perft.REFERENCE_POSITIONS.get(1).fen();
+        ChessGame game = ChessGame.fromFen(fen);
+        ChessBoard before = ChessGame.fromFen(fen).getBoard();
+        new Perft(game.getBoard()).count(game.getTeamTurn(), 3);
+        assertEquals(before, game.getBoard());
+        assertEquals(0, game.getBoard().getUndoDepth());
+    }
+
+    @Test
+    void divideAddsUpToCount() {
+        ChessGame game = new ChessGame();
+        List<String> lines = new Perft(game.getBoard()).divide(ChessGame.TeamColor.WHITE, 3);
+        assertEquals(21, lines.size());
+        assertEquals("Total: 8902", lines.get(lines.size() - 1));
+        assertTrue(lines.contains("e2e4: 600"));
+    }
+}
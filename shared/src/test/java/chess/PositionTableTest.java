@@ -0,0 +1,138 @@
+package chess;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class PositionTableTest {
+
+    @AfterEach
+    void tearDown() {
+        ChessGame.setPositionTable(null);
+    }
+
+    @Test
+    void storedStatusIsFound() {
+        PositionTable table = new PositionTable(1 << 20, PositionTable.ReplacementPolicy.OLDEST);
+        ChessGame game = new ChessGame();
+        GameStatus status = game.getStatus(ChessGame.TeamColor.WHITE);
+
+        assertNull(table.probe(game.getBoard(), ChessGame.TeamColor.WHITE));
+        table.store(status);
+        GameStatus found = table.probe(game.getBoard(), ChessGame.TeamColor.WHITE);
+
+        assertNotNull(found);
+        assertEquals(status.getLegalMoves(), found.getLegalMoves());
+        assertEquals(status.isInCheck(), found.isInCheck());
+        assertNull(table.probe(game.getBoard(), ChessGame.TeamColor.BLACK));
+        assertEquals(1, table.getHits());
+        assertEquals(2, table.getMisses());
+    }
+
+    @Test
+    void checkFlagSurvives() {
+        PositionTable table = new PositionTable(1 << 20, PositionTable.ReplacementPolicy.ALWAYS);
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/8/K3R3 b");
+        table.store(game.getStatus(ChessGame.TeamColor.BLACK));
+        GameStatus found = table.probe(game.getBoard(), ChessGame.TeamColor.BLACK);
+        assertTrue(found.isInCheck());
+        assertEquals(game.getStatus(ChessGame.TeamColor.BLACK).getLegalMoves(), found.getLegalMoves());
+    }
+
+    @Test
+    void gamesShareResults() throws InvalidMoveException {
+        PositionTable table = new PositionTable(1 << 20, PositionTable.ReplacementPolicy.OLDEST);
+        ChessGame.setPositionTable(table);
+        ChessMove e4 = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+
+        ChessGame first = new ChessGame();
+        first.makeMove(e4);
+        first.isInCheckmate(ChessGame.TeamColor.BLACK);
+        long hitsBefore = table.getHits();
+
+        ChessGame second = new ChessGame();
+        second.makeMove(e4);
+        assertFalse(second.isInCheckmate(ChessGame.TeamColor.BLACK));
+        // Both validating e4 and the checkmate test reuse the first game's work
+        assertEquals(hitsBefore + 2, table.getHits());
+    }
+
+    @Test
+    void tinyTableStaysCorrect() throws InvalidMoveException {
+        // A single bucket, so positions keep evicting each other
+        PositionTable table = new PositionTable(512, PositionTable.ReplacementPolicy.OLDEST);
+        assertEquals(2, table.capacity());
+        ChessGame.setPositionTable(table);
+        for (ChessMove move : new ChessGame().getStatus(ChessGame.TeamColor.WHITE).getLegalMoves()) {
+            ChessGame game = new ChessGame();
+            game.makeMove(move);
+            GameStatus expected = GameStatus.compute(game.getBoard(), ChessGame.TeamColor.BLACK,
+                    new LegalMoveGenerator(), new MoveList());
+            assertEquals(expected.getLegalMoves(), game.getStatus(ChessGame.TeamColor.BLACK).getLegalMoves());
+        }
+        assertTrue(table.getStores() > 2);
+    }
+
+    @Test
+    void oldestEntryIsReplaced() throws InterruptedException {
+        PositionTable table = new PositionTable(512, PositionTable.ReplacementPolicy.OLDEST);
+        ChessGame[] games = {
+                ChessGame.fromFen("4k3/8/8/8/8/8/8/4K3 w"),
+                ChessGame.fromFen("4k3/8/8/8/8/8/4P3/4K3 w"),
+                ChessGame.fromFen("4k3/8/8/8/8/8/3P4/4K3 w")
+        };
+        for (ChessGame game : games) {
+            table.store(game.getStatus(ChessGame.TeamColor.WHITE));
+            // Let the age tick over so each store is younger than the last
+            Thread.sleep(5);
+        }
+        assertNull(table.probe(games[0].getBoard(), ChessGame.TeamColor.WHITE));
+        assertNotNull(table.probe(games[1].getBoard(), ChessGame.TeamColor.WHITE));
+        assertNotNull(table.probe(games[2].getBoard(), ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    void tooSmallTableIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new PositionTable(100, PositionTable.ReplacementPolicy.ALWAYS));
+    }
+
+    @Test
+    void concurrentWritersNeverProduceWrongResults() throws InterruptedException {
+        PositionTable table = new PositionTable(64 * 1024, PositionTable.ReplacementPolicy.ALWAYS);
+        List<ChessGame> positions = new ArrayList<>();
+        for (Perft.Reference reference : Perft.REFERENCE_POSITIONS) {
+            positions.add(ChessGame.fromFen(reference.fen()));
+        }
+        List<GameStatus> expected = new ArrayList<>();
+        for (ChessGame position : positions) {
+            expected.add(position.getStatus(position.getTeamTurn()));
+        }
+
+        List<String> failures = Collections.synchronizedList(new ArrayList<>());
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int round = 0; round < 20_000; round++) {
+                    int i = round % positions.size();
+                    ChessGame position = positions.get(i);
+                    table.store(expected.get(i));
+                    GameStatus found = table.probe(position.getBoard(), position.getTeamTurn());
+                    if (found != null && !found.getLegalMoves().equals(expected.get(i).getLegalMoves())) {
+                        failures.add("position " + i);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(failures.isEmpty(), failures.toString());
+    }
+}
@@ -0,0 +1,115 @@
+package chess;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class TablebaseTest {
+
+    private static Tablebase generated;
+
+    @AfterEach
+    void resetTablebase() {
+        ChessGame.setTablebase(null);
+    }
+
+    @Test
+    void queenAndRookWin() throws IOException {
+        assertEquals(Tablebase.Outcome.WIN, probe("8/8/8/4k3/8/8/8/K6Q w"));
+        assertEquals(Tablebase.Outcome.LOSS, probe("8/8/8/4k3/8/8/8/K6Q b"));
+        assertEquals(Tablebase.Outcome.WIN, probe("4k3/8/8/8/8/8/8/R3K3 w"));
+        // Same thing with colors swapped
+        assertEquals(Tablebase.Outcome.WIN, probe("r3k3/8/8/8/8/8/8/4K3 b"));
+        assertEquals(Tablebase.Outcome.LOSS, probe("r3k3/8/8/8/8/8/8/4K3 w"));
+    }
+
+    @Test
+    void undefendedRookCanBeTaken() throws IOException {
+        assertEquals(Tablebase.Outcome.DRAW, probe("8/8/8/8/8/4k3/3R4/6K1 b"));
+        assertEquals(Tablebase.Outcome.WIN, probe("8/8/8/8/8/4k3/3R4/6K1 w"));
+    }
+
+    @Test
+    void stalemateIsDraw() throws IOException {
+        assertEquals(Tablebase.Outcome.DRAW, probe("k7/8/1Q6/8/8/8/8/7K b"));
+    }
+
+    @Test
+    void checkmateIsLoss() throws IOException {
+        assertEquals(Tablebase.Outcome.LOSS, probe("k7/1Q6/1K6/8/8/8/8/8 b"));
+    }
+
+    @Test
+    void kingAndPawnEndings() throws IOException {
+        // King on the sixth in front of its pawn wins whoever moves
+        assertEquals(Tablebase.Outcome.WIN, probe("3k4/8/3K4/3P4/8/8/8/8 w"));
+        assertEquals(Tablebase.Outcome.LOSS, probe("3k4/8/3K4/3P4/8/8/8/8 b"));
+        // A rook pawn can't drive the king out of the corner
+        assertEquals(Tablebase.Outcome.DRAW, probe("k7/8/8/8/8/8/P7/4K3 w"));
+        // Opposition: with white to move black holds, with black to move it gives way
+        assertEquals(Tablebase.Outcome.DRAW, probe("8/4k3/8/4K3/4P3/8/8/8 w"));
+        assertEquals(Tablebase.Outcome.LOSS, probe("8/4k3/8/4K3/4P3/8/8/8 b"));
+        assertEquals(Tablebase.Outcome.DRAW, probe("4k3/4P3/4K3/8/8/8/8/8 b"));
+    }
+
+    @Test
+    void deadPositionsNeedNoTables() {
+        Tablebase tablebase = Tablebase.empty();
+        assertEquals(Tablebase.Outcome.DRAW, probe(tablebase, "8/8/4k3/8/8/3K4/8/8 w"));
+        assertEquals(Tablebase.Outcome.DRAW, probe(tablebase, "8/8/4k3/8/8/3K4/8/5N2 b"));
+        // Light squared bishops on both sides
+        assertEquals(Tablebase.Outcome.DRAW, probe(tablebase, "8/8/4k3/8/8/3K4/8/1b3B2 w"));
+        assertNull(probe(tablebase, "8/8/4k3/8/8/3K4/8/2b2B2 w"));
+        assertNull(probe(tablebase, "4k3/8/8/8/8/8/8/R3K3 w"));
+        assertNull(probe(tablebase, "4k3/8/8/8/8/8/P7/R3K3 w"));
+    }
+
+    @Test
+    void gamesConsultTheTablebase() throws IOException {
+        ChessGame game = ChessGame.fromFen("8/8/8/4k3/8/8/8/K6Q w");
+        assertNull(game.probeTablebase());
+        ChessGame.setTablebase(tablebase());
+        assertEquals(Tablebase.Outcome.WIN, game.probeTablebase());
+        assertNull(new ChessGame().probeTablebase());
+    }
+
+    @Test
+    void openMapsGeneratedFiles() throws IOException {
+        Path directory = Files.createTempDirectory("tablebase");
+        directory.toFile().deleteOnExit();
+        Tablebase.generate(directory);
+        try (var files = Files.list(directory)) {
+            files.forEach(file -> file.toFile().deleteOnExit());
+        }
+        Tablebase reopened = Tablebase.open(directory);
+        assertTrue(reopened.hasTable(ChessPiece.PieceType.PAWN));
+        assertEquals(Tablebase.Outcome.WIN, probe(reopened, "3k4/8/3K4/3P4/8/8/8/8 w"));
+        assertFalse(Tablebase.open(Files.createTempDirectory("empty")).hasTable(ChessPiece.PieceType.ROOK));
+    }
+
+    private static Tablebase.Outcome probe(String fen) throws IOException {
+        return probe(tablebase(), fen);
+    }
+
+    private static Tablebase.Outcome probe(Tablebase tablebase, String fen) {
+        ChessGame game = ChessGame.fromFen(fen);
+        return tablebase.probe(game.getBoard(), game.getTeamTurn());
+    }
+
+    private static synchronized Tablebase tablebase() throws IOException {
+        if (generated == null) {
+            Path directory = Files.createTempDirectory("tablebase");
+            generated = Tablebase.generate(directory);
+            try (var files = Files.list(directory)) {
+                files.forEach(file -> file.toFile().deleteOnExit());
+            }
+            directory.toFile().deleteOnExit();
+        }
+        return generated;
+    }
+}
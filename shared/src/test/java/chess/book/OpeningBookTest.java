@@ -0,0 +1,103 @@
+package chess.book;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class OpeningBookTest {
+
+    private static final ChessMove E4 = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+    private static final ChessMove D4 = new ChessMove(new ChessPosition(2, 4), new ChessPosition(4, 4), null);
+    private static final ChessMove C5 = new ChessMove(new ChessPosition(7, 3), new ChessPosition(5, 3), null);
+
+    @Test
+    void findsMovesForBookPositions() throws IOException, InvalidMoveException {
+        ChessGame start = new ChessGame();
+        ChessGame afterE4 = new ChessGame();
+        afterE4.makeMove(E4);
+
+        List<OpeningBook.Entry> entries = new ArrayList<>();
+        entries.add(OpeningBook.Entry.of(start, D4, 10));
+        entries.add(OpeningBook.Entry.of(afterE4, C5, 7));
+        entries.add(OpeningBook.Entry.of(start, E4, 30));
+        // Filler positions on both sides of the real ones in key order
+        for (long key = 1; key < 2000; key++) {
+            entries.add(new OpeningBook.Entry(key * 0x9E3779B97F4A7C15L, E4, 1));
+        }
+        OpeningBook book = OpeningBook.open(writeBook(entries));
+
+        assertEquals(entries.size(), book.size());
+        assertEquals(List.of(new OpeningBook.BookMove(E4, 30), new OpeningBook.BookMove(D4, 10)), book.lookup(start));
+        assertEquals(List.of(new OpeningBook.BookMove(C5, 7)), book.lookup(afterE4));
+        assertTrue(book.contains(afterE4));
+    }
+
+    @Test
+    void unknownPositionHasNoMoves() throws IOException, InvalidMoveException {
+        OpeningBook book = OpeningBook.open(writeBook(List.of(
+                OpeningBook.Entry.of(new ChessGame(), E4, 1))));
+        ChessGame game = new ChessGame();
+        game.makeMove(D4);
+        assertTrue(book.lookup(game).isEmpty());
+        assertFalse(book.contains(game));
+    }
+
+    @Test
+    void readsPolyglotKeys() throws IOException {
+        // The published Polyglot key of the starting position, as any book built elsewhere has it
+        OpeningBook book = OpeningBook.open(writeBook(List.of(new OpeningBook.Entry(0x463b96181691fc9cL, E4, 3))));
+        assertEquals(List.of(new OpeningBook.BookMove(E4, 3)), book.lookup(new ChessGame()));
+    }
+
+    @Test
+    void skipsIllegalMoves() throws IOException {
+        ChessMove castle = new ChessMove(new ChessPosition(1, 5), new ChessPosition(1, 8), null);
+        ChessGame start = new ChessGame();
+        OpeningBook book = OpeningBook.open(writeBook(List.of(
+                OpeningBook.Entry.of(start, castle, 5),
+                OpeningBook.Entry.of(start, E4, 5))));
+        assertEquals(List.of(new OpeningBook.BookMove(E4, 5)), book.lookup(start));
+    }
+
+    @Test
+    void emptyBookIsEmpty() throws IOException {
+        OpeningBook book = OpeningBook.open(writeBook(List.of()));
+        assertEquals(0, book.size());
+        assertTrue(book.lookup(new ChessGame()).isEmpty());
+    }
+
+    @Test
+    void rejectsPartialEntries() throws IOException {
+        Path file = Files.createTempFile("book", ".bin");
+        file.toFile().deleteOnExit();
+        Files.write(file, new byte[OpeningBook.ENTRY_BYTES + 3]);
+        assertThrows(IOException.class, () -> OpeningBook.open(file));
+    }
+
+    @Test
+    void movesUsePolyglotLayout() {
+        // e2e4 is from e2 (column 4, row 1 counting from 0) to e4 (column 4, row 3)
+        assertEquals(4 | 3 << 3 | 4 << 6 | 1 << 9, OpeningBook.encodeMove(E4));
+        ChessMove promotion = new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 1), ChessPiece.PieceType.QUEEN);
+        assertEquals(promotion, OpeningBook.decodeMove(OpeningBook.encodeMove(promotion)));
+        assertEquals(4 << 12, OpeningBook.encodeMove(promotion) & 0x7000);
+    }
+
+    private static Path writeBook(List<OpeningBook.Entry> entries) throws IOException {
+        Path file = Files.createTempFile("book", ".bin");
+        file.toFile().deleteOnExit();
+        OpeningBook.write(file, entries);
+        return file;
+    }
+}
@@ -0,0 +1,58 @@
+package chess.book;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class OpeningNamesTest {
+
+    @Test
+    void namesBundledOpenings() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, 2, 5, 4, 5);
+        play(game, 7, 3, 5, 3);
+        assertEquals("Sicilian Defense", OpeningNames.standard().nameOf(game));
+        assertTrue(OpeningNames.standard().size() > 30);
+    }
+
+    @Test
+    void recognisesTranspositions() throws InvalidMoveException {
+        // Nf3 and e4 in the other order still reach the King's Knight Opening
+        ChessGame game = new ChessGame();
+        play(game, 2, 5, 4, 5);
+        play(game, 7, 5, 5, 5);
+        play(game, 1, 7, 3, 6);
+        ChessGame transposed = new ChessGame();
+        play(transposed, 1, 7, 3, 6);
+        play(transposed, 7, 5, 5, 5);
+        play(transposed, 2, 5, 4, 5);
+
+        OpeningNames names = OpeningNames.parse(List.of("Knights | e2e4 e7e5 g1f3"));
+        assertEquals("Knights", names.nameOf(game));
+        assertEquals("Knights", names.nameOf(transposed));
+    }
+
+    @Test
+    void unnamedPositionHasNoName() {
+        OpeningNames names = OpeningNames.parse(List.of("# comment", "", "Open | e2e4"));
+        assertEquals(1, names.size());
+        assertNull(names.nameOf(new ChessGame()));
+    }
+
+    @Test
+    void rejectsIllegalLines() {
+        assertThrows(IllegalArgumentException.class, () -> OpeningNames.parse(List.of("Bad | e2e5")));
+        assertThrows(IllegalArgumentException.class, () -> OpeningNames.parse(List.of("no moves here")));
+    }
+
+    private static void play(ChessGame game, int fromRow, int fromCol, int toRow, int toCol)
+            throws InvalidMoveException {
+        game.makeMove(new ChessMove(new ChessPosition(fromRow, fromCol), new ChessPosition(toRow, toCol), null));
+    }
+}
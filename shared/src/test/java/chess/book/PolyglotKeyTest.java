@@ -0,0 +1,41 @@
+package chess.book;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Keys from the test positions published with the Polyglot book format. The
+ * ones whose FEN has an en passant square that could be captured are left
+ * out, since this engine has no en passant.
+ */
+public class PolyglotKeyTest {
+
+    @Test
+    void matchesPublishedKeys() {
+        assertKey(0x463b96181691fc9cL, "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w");
+        assertKey(0x823c9b50fd114196L, "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b");
+        assertKey(0x0756b94461c50fb0L, "rnbqkbnr/ppp1pppp/8/3p4/4P3/8/PPPP1PPP/RNBQKBNR w");
+        assertKey(0x662fafb965db29d4L, "rnbqkbnr/ppp1pppp/8/3pP3/8/8/PPPP1PPP/RNBQKBNR b");
+        // The white king has moved, so only black keeps its castling rights
+        assertKey(0x652a607ca3f242c1L, "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPPKPPP/RNBQ1BNR b");
+        assertKey(0x00fdd303c946bdd9L, "rnbq1bnr/ppp1pkpp/8/3pPp2/8/8/PPPPKPPP/RNBQ1BNR w");
+        // The a1 rook has left, taking white's queen side right with it
+        assertKey(0x5c3f9b829b279560L, "rnbqkbnr/p1pppppp/8/8/P6P/R1p5/1P1PPPP1/1NBQKBNR b");
+    }
+
+    @Test
+    void followsMoves() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        assertEquals(0x823c9b50fd114196L, PolyglotKey.of(game));
+    }
+
+    private static void assertKey(long expected, String fen) {
+        assertEquals(expected, PolyglotKey.of(ChessGame.fromFen(fen)), fen);
+    }
+}
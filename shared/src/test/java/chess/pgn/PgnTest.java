@@ -0,0 +1,144 @@
+package chess.pgn;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import chess.ChessGame;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+
+public class PgnTest {
+
+    private static final String OPERA_GAME = """
+            [Event "Paris"]
+            [Site "Paris FRA"]
+            [Date "1858.??.??"]
+            [Round "?"]
+            [White "Paul Morphy"]
+            [Black "Duke Karl / Count Isouard"]
+            [Result "1-0"]
+
+            1. e4 e5 2. Nf3 d6 3. d4 Bg4 4. dxe5 Bxf3 5. Qxf3 dxe5 6. Bc4 Nf6 7. Qb3 Qe7
+            8. Nc3 c6 9. Bg5 b5 10. Nxb5 cxb5 11. Bxb5+ Nbd7 12. O-O-O Rd8 13. Rxd7 Rxd7
+            14. Rd1 Qe6 15. Bxd7+ Nxd7 16. Qb8+ Nxb8 17. Rd8# 1-0
+            """;
+
+    @Test
+    void readsTagsMovesAndResult() throws IOException {
+        PgnReader reader = new PgnReader(new StringReader(OPERA_GAME));
+        PgnGame game = reader.next();
+        assertNull(reader.next());
+
+        assertEquals("Paul Morphy", game.tags().get("White"));
+        assertEquals(List.of("Event", "Site", "Date", "Round", "White", "Black", "Result"),
+                List.copyOf(game.tags().keySet()));
+        assertEquals(33, game.moves().size());
+        assertEquals("1-0", game.result());
+        assertTrue(game.position().isInCheckmate(ChessGame.TeamColor.BLACK));
+        assertEquals("1n1Rkb1r/p4ppp/4q3/4p1B1/4P3/8/PPP2PPP/2K5 b - - 1 17", game.position().toFen());
+    }
+
+    @Test
+    void writesWhatItReads() throws IOException {
+        PgnGame game = new PgnReader(new StringReader(OPERA_GAME)).next();
+        String written = write(game);
+        assertTrue(written.contains("12. O-O-O Rd8"), written);
+        assertTrue(written.contains("17. Rd8# 1-0"), written);
+        assertTrue(written.lines().allMatch(line -> line.length() <= 80), written);
+
+        PgnGame again = new PgnReader(new StringReader(written)).next();
+        assertEquals(game.tags(), again.tags());
+        assertEquals(game.moves(), again.moves());
+        assertEquals(written, write(again));
+    }
+
+    @Test
+    void keepsCommentsAndSkipsVariations() throws IOException {
+        String pgn = """
+                % a line escaped from the parser
+                {Before the game} 1. e4 $1 {King's pawn} (1. d4 {or this} d5 (1... Nf6)) 1... Nf6!?
+                2. e5 d5 ; the pawn can be taken
+                3. exd6 *
+                """;
+        PgnGame game = new PgnReader(new StringReader(pgn)).next();
+        assertEquals(5, game.moves().size());
+        assertEquals("*", game.result());
+        assertEquals(Map.of(0, "Before the game", 1, "King's pawn", 4, "the pawn can be taken"), game.comments());
+        assertEquals("rnbqkb1r/ppp1pppp/3P1n2/8/8/8/PPPP1PPP/RNBQKBNR b - - 0 3", game.position().toFen());
+
+        String written = write(game).replace('\n', ' ');
+        assertTrue(written.contains("{Before the game} 1. e4 {King's pawn} 1... Nf6 2. e5 d5 {the pawn can be taken} 3. exd6 *"),
+                written);
+    }
+
+    @Test
+    void startsFromFenTag() throws IOException {
+        String pgn = """
+                [FEN "4k3/8/8/8/8/8/4P3/4K3 b - - 0 30"]
+
+                30... Kd7 31. e4 *
+                """;
+        PgnGame game = new PgnReader(new StringReader(pgn)).next();
+        assertEquals("8/3k4/8/8/4P3/8/8/4K3 b - - 0 31", game.position().toFen());
+        String written = write(game);
+        assertTrue(written.contains("[SetUp \"1\"]"), written);
+        assertTrue(written.contains("30... Kd7 31. e4 *"), written);
+    }
+
+    @Test
+    void skipsBadGamesAndCarriesOn() throws IOException {
+        String pgn = """
+                [Event "Bad move"]
+
+                1. e4 e5 2. Ke3 Nc6 1-0
+
+                [Event "Unclosed tag
+                [Site "?"]
+
+                1. d4 *
+
+                [Event "Good"]
+
+                1. c4 *
+                """;
+        PgnReader reader = new PgnReader(new StringReader(pgn));
+        PgnFormatException badMove = assertThrows(PgnFormatException.class, reader::next);
+        assertEquals(3, badMove.getLine());
+        assertThrows(PgnFormatException.class, reader::next);
+        PgnGame good = reader.next();
+        assertEquals("Good", good.tags().get("Event"));
+        assertEquals(1, good.moves().size());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void readsGamesWithoutResultsOrTags() throws IOException {
+        PgnReader reader = new PgnReader(new StringReader("1. e4 e5\n[Event \"Next\"]\n1. d4 d5 1/2-1/2"));
+        assertEquals(2, reader.next().moves().size());
+        PgnGame next = reader.next();
+        assertEquals("1/2-1/2", next.result());
+        assertEquals("Next", next.tags().get("Event"));
+        assertNull(reader.next());
+    }
+
+    @Test
+    void escapesTagValues() throws IOException {
+        PgnGame game = new PgnGame(Map.of("Event", "The \"big\" one \\ final"), List.of(), Map.of(), "*", null);
+        String written = write(game);
+        assertTrue(written.startsWith("[Event \"The \\\"big\\\" one \\\\ final\"]\n[Site \"?\"]\n[Date \"????.??.??\"]"),
+                written);
+        assertEquals("The \"big\" one \\ final", new PgnReader(new StringReader(written)).next().tags().get("Event"));
+    }
+
+    private static String write(PgnGame game) throws IOException {
+        StringWriter out = new StringWriter();
+        PgnWriter writer = new PgnWriter(out);
+        writer.write(game);
+        writer.flush();
+        return out.toString();
+    }
+}
@@ -0,0 +1,78 @@
+package chess.pgn;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import org.junit.jupiter.api.Test;
+
+public class SanTest {
+
+    @Test
+    void parsesPieceAndPawnMoves() {
+        ChessGame game = new ChessGame();
+        assertEquals(move(1, 7, 3, 6), San.parse(game, "Nf3"));
+        assertEquals(move(2, 5, 4, 5), San.parse(game, "e4"));
+        assertEquals(move(2, 5, 4, 5), San.parse(game, "e4!?"));
+        assertThrows(IllegalArgumentException.class, () -> San.parse(game, "e5"));
+        assertThrows(IllegalArgumentException.class, () -> San.parse(game, "Zf3"));
+        assertThrows(IllegalArgumentException.class, () -> San.parse(game, "x"));
+    }
+
+    @Test
+    void disambiguatesByColumnAndRow() {
+        // Rooks on a4 and h4 both reach d4, knights on b5 and b1 both reach c3
+        ChessGame game = ChessGame.fromFen("4k3/8/8/1N6/R6R/8/8/1N2K3 w");
+        assertThrows(IllegalArgumentException.class, () -> San.parse(game, "Rd4"));
+        assertEquals(move(4, 1, 4, 4), San.parse(game, "Rad4"));
+        assertEquals("Rad4", San.format(game, move(4, 1, 4, 4)));
+        assertEquals(move(5, 2, 3, 3), San.parse(game, "N5c3"));
+        assertEquals("N5c3", San.format(game, move(5, 2, 3, 3)));
+        assertEquals("Nbd4", San.format(ChessGame.fromFen("4k3/8/8/1N6/8/5N2/8/4K3 w"), move(5, 2, 4, 4)));
+    }
+
+    @Test
+    void formatsCapturesPromotionsAndChecks() {
+        ChessGame game = ChessGame.fromFen("3qk3/2P5/8/8/8/8/8/4K3 w");
+        ChessMove takeQueen = new ChessMove(ChessPosition.of(7, 3), ChessPosition.of(8, 4), ChessPiece.PieceType.QUEEN);
+        assertEquals("cxd8=Q+", San.format(game, takeQueen));
+        assertEquals(takeQueen, San.parse(game, "cxd8=Q+"));
+        assertEquals(takeQueen, San.parse(game, "cxd8Q"));
+        assertEquals("Qa8#", San.format(ChessGame.fromFen("7k/8/6K1/8/8/8/8/Q7 w"), move(1, 1, 8, 1)));
+    }
+
+    @Test
+    void playsCastling() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        ChessMove kingside = San.parse(game, "O-O");
+        assertEquals("O-O", San.format(game, kingside));
+        San.play(game, kingside);
+        ChessMove queenside = San.parse(game, "O-O-O");
+        San.play(game, queenside);
+        assertEquals("2kr3r/8/8/8/8/8/8/R4RK1 w - - 2 2", game.toFen());
+    }
+
+    @Test
+    void refusesCastlingThroughPiecesOrOutOfCheck() {
+        assertThrows(IllegalArgumentException.class,
+                () -> San.parse(ChessGame.fromFen("4k3/8/8/8/8/8/8/R3KB1R w"), "O-O"));
+        assertThrows(IllegalArgumentException.class,
+                () -> San.parse(ChessGame.fromFen("4r1k1/8/8/8/8/8/8/4K2R w"), "O-O"));
+    }
+
+    @Test
+    void playsEnPassant() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1");
+        ChessMove capture = San.parse(game, "exd6");
+        assertEquals("exd6", San.format(game, capture));
+        San.play(game, capture);
+        assertEquals("4k3/8/3P4/8/8/8/8/4K3 b - - 0 1", game.toFen());
+    }
+
+    private static ChessMove move(int fromRow, int fromCol, int toRow, int toCol) {
+        return new ChessMove(ChessPosition.of(fromRow, fromCol), ChessPosition.of(toRow, toCol), null);
+    }
+}
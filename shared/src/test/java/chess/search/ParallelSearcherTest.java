@@ -0,0 +1,92 @@
+package chess.search;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import org.junit.jupiter.api.Test;
+
+public class ParallelSearcherTest {
+
+    private static final String MIDDLEGAME =
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w";
+
+    @Test
+    void singleThreadIsRepeatable() {
+        ParallelSearcher searcher = new ParallelSearcher(1, 1 << 20);
+        ChessGame game = ChessGame.fromFen(MIDDLEGAME);
+        SearchResult first = searcher.search(game, SearchLimits.depth(4));
+        SearchResult second = searcher.search(game, SearchLimits.depth(4));
+
+        assertEquals(first.bestMove(), second.bestMove());
+        assertEquals(first.score(), second.score());
+        assertEquals(first.nodes(), second.nodes());
+    }
+
+    @Test
+    void tableSavesNodes() {
+        ChessGame game = ChessGame.fromFen(MIDDLEGAME);
+        SearchResult plain = new Searcher().search(game, SearchLimits.depth(5));
+        SearchResult withTable = new ParallelSearcher(1, 1 << 20).search(game, SearchLimits.depth(5));
+
+        assertTrue(withTable.nodes() < plain.nodes(),
+                withTable.nodes() + " nodes with the table, " + plain.nodes() + " without");
+    }
+
+    @Test
+    void threadsFindMate() {
+        ParallelSearcher searcher = new ParallelSearcher(4, 1 << 20);
+        try {
+            ChessGame game = ChessGame.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w");
+            SearchResult result = searcher.search(game, SearchLimits.depth(4));
+            assertEquals(new ChessMove(new ChessPosition(1, 1), new ChessPosition(8, 1), null), result.bestMove());
+            assertEquals(1, result.matePlies());
+        } finally {
+            searcher.shutdown();
+        }
+    }
+
+    @Test
+    void threadsRespectTimeBudget() {
+        ParallelSearcher searcher = new ParallelSearcher(4, 1 << 20);
+        try {
+            ChessGame game = ChessGame.fromFen(MIDDLEGAME);
+            SearchResult result = searcher.search(game, SearchLimits.time(100));
+            assertNotNull(result.bestMove());
+            assertTrue(result.depth() >= 1);
+            assertTrue(result.elapsedMillis() < 1000, "took " + result.elapsedMillis() + "ms");
+            assertEquals(0, game.getBoard().getUndoDepth());
+        } finally {
+            searcher.shutdown();
+        }
+    }
+
+    @Test
+    void queuedHelpersDoNotHoldUpLaterSearches() throws InterruptedException {
+        // One helper thread for every search, so most searches' helpers wait in the queue
+        ParallelSearcher searcher = new ParallelSearcher(2, 1 << 20);
+        try {
+            ChessGame game = ChessGame.fromFen(MIDDLEGAME);
+            Thread[] callers = new Thread[4];
+            long start = System.nanoTime();
+            for (int i = 0; i < callers.length; i++) {
+                callers[i] = new Thread(() -> searcher.search(game, SearchLimits.time(200)));
+                callers[i].start();
+            }
+            for (Thread caller : callers) {
+                caller.join();
+            }
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            // Waiting for each queued helper's full budget would take about 800ms
+            assertTrue(elapsedMillis < 600, "took " + elapsedMillis + "ms");
+        } finally {
+            searcher.shutdown();
+        }
+    }
+
+    @Test
+    void needsAThread() {
+        assertThrows(IllegalArgumentException.class, () -> new ParallelSearcher(0, 1 << 20));
+    }
+}
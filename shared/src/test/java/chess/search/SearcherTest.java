@@ -0,0 +1,70 @@
+package chess.search;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import org.junit.jupiter.api.Test;
+
+public class SearcherTest {
+
+    @Test
+    void findsMateInOne() {
+        // Back rank mate with the rook
+        ChessGame game = ChessGame.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w");
+        SearchResult result = new Searcher().search(game, SearchLimits.depth(4));
+        assertEquals(new ChessMove(new ChessPosition(1, 1), new ChessPosition(8, 1), null), result.bestMove());
+        assertTrue(result.isMate());
+        assertEquals(1, result.matePlies());
+    }
+
+    @Test
+    void capturesHangingQueen() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/3q4/8/8/3R4/4K3 w");
+        SearchResult result = new Searcher().search(game, SearchLimits.depth(3));
+        assertEquals(new ChessMove(new ChessPosition(2, 4), new ChessPosition(5, 4), null), result.bestMove());
+        assertTrue(result.score() > 300);
+    }
+
+    @Test
+    void avoidsLosingQueenToPawn() {
+        // Qxd6 wins a pawn but the c7 pawn takes the queen back
+        ChessGame game = ChessGame.fromFen("4k3/2p5/3p4/8/8/8/3Q4/4K3 w");
+        SearchResult result = new Searcher().search(game, SearchLimits.depth(2));
+        assertNotEquals(new ChessMove(new ChessPosition(2, 4), new ChessPosition(6, 4), null), result.bestMove());
+    }
+
+    @Test
+    void respectsNodeBudget() {
+        ChessGame game = new ChessGame();
+        SearchResult result = new Searcher().search(game, SearchLimits.nodes(5000));
+        assertNotNull(result.bestMove());
+        assertTrue(result.nodes() < 5000 + 2048, "searched " + result.nodes());
+    }
+
+    @Test
+    void respectsTimeBudget() {
+        ChessGame game = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w");
+        SearchResult result = new Searcher().search(game, SearchLimits.time(50));
+        assertNotNull(result.bestMove());
+        assertTrue(result.elapsedMillis() < 500, "took " + result.elapsedMillis() + "ms");
+    }
+
+    @Test
+    void leavesGameUntouched() {
+        ChessGame game = new ChessGame();
+        long key = game.getPositionKey();
+        new Searcher().search(game, SearchLimits.depth(3));
+        assertEquals(key, game.getPositionKey());
+        assertEquals(0, game.getBoard().getUndoDepth());
+    }
+
+    @Test
+    void noMoveWhenCheckmated() {
+        ChessGame game = ChessGame.fromFen("R5k1/5ppp/8/8/8/8/8/6K1 b");
+        SearchResult result = new Searcher().search(game, SearchLimits.depth(3));
+        assertNull(result.bestMove());
+        assertEquals(-Searcher.MATE_SCORE, result.score());
+    }
+}
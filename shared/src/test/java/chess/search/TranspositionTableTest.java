@@ -0,0 +1,58 @@
+package chess.search;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class TranspositionTableTest {
+
+    @Test
+    void storedEntryComesBack() {
+        TranspositionTable table = new TranspositionTable(1 << 16);
+        long key = 0x1234_5678_9ABC_DEF0L;
+        table.store(key, 0x1ABC, -250, 7, TranspositionTable.LOWER);
+
+        long entry = table.probe(key);
+        assertNotEquals(0, entry);
+        assertEquals(0x1ABC, TranspositionTable.moveKey(entry));
+        assertEquals(-250, TranspositionTable.score(entry));
+        assertEquals(7, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(entry));
+    }
+
+    @Test
+    void keepsMateScores() {
+        TranspositionTable table = new TranspositionTable(1 << 16);
+        table.store(42, 0, -Searcher.MATE_SCORE + 3, 1, TranspositionTable.EXACT);
+        assertEquals(-Searcher.MATE_SCORE + 3, TranspositionTable.score(table.probe(42)));
+    }
+
+    @Test
+    void otherPositionInSameSlotMisses() {
+        TranspositionTable table = new TranspositionTable(1 << 16);
+        long key = 0x0F0F_0000_0000_0001L;
+        long sameSlot = key + ((long) table.capacity() << 32) + table.capacity();
+        table.store(key, 1, 10, 3, TranspositionTable.EXACT);
+
+        assertEquals(0, table.probe(sameSlot));
+        assertEquals(0, table.probe(key + 1));
+    }
+
+    @Test
+    void emptyTableMissesKeyZero() {
+        assertEquals(0, new TranspositionTable(1 << 10).probe(0));
+    }
+
+    @Test
+    void clearEmptiesTable() {
+        TranspositionTable table = new TranspositionTable(1 << 16);
+        table.store(99, 5, 0, 2, TranspositionTable.UPPER);
+        table.clear();
+        assertEquals(0, table.probe(99));
+    }
+
+    @Test
+    void tooSmallIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new TranspositionTable(8));
+    }
+}